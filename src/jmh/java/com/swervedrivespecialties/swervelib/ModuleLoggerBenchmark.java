@@ -0,0 +1,34 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Measures what a {@link ModuleLogger} record costs the calling thread, with the writer running in the background.
+ */
+@State(Scope.Benchmark)
+public class ModuleLoggerBenchmark {
+    private ModuleLogger logger;
+    private int device;
+    private double value = 0.0;
+
+    @Setup
+    public void setup() throws IOException {
+        logger = new ModuleLogger(Files.createTempDirectory("module-logger-benchmark"));
+        device = logger.registerDevice("Module");
+        logger.start();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        logger.close();
+    }
+
+    @Benchmark
+    public void log() {
+        logger.log(device, RecordType.DRIVE_VELOCITY, value += 0.001, 0.0, 0.0);
+    }
+}
@@ -0,0 +1,97 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+
+/**
+ * Measures {@link IOSteerController#setReferenceAngle(double)}, which every backend's steer controller runs on each
+ * call: reading the motor's position, counting towards an encoder reset and unwrapping the target.
+ * <p>
+ * The backends only differ in the unit conversion done by their {@link SteerIO}, so a stub IO stands in for all of
+ * them. With {@code latched} the controller is refreshed once and serves the latched inputs, otherwise every call
+ * reads the stub.
+ */
+@State(Scope.Thread)
+public class SteerReferenceAngleBenchmark {
+    private static final int SAMPLE_COUNT = 1024;
+
+    /**
+     * CPU tokens burnt per sensor read, standing in for the cost of a vendor JNI call.
+     */
+    @Param({"0", "100"})
+    public long readCost;
+
+    @Param({"false", "true"})
+    public boolean latched;
+
+    private StubSteerIO io;
+    private IOSteerController controller;
+
+    private final double[] referenceAngles = new double[SAMPLE_COUNT];
+    private final double[] positions = new double[SAMPLE_COUNT];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(2910);
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            referenceAngles[i] = random.nextDouble() * 2.0 * Math.PI;
+            // The motor's encoder is unbounded, so spread the current position over several revolutions
+            positions[i] = (random.nextDouble() - 0.5) * 20.0 * Math.PI;
+        }
+
+        io = new StubSteerIO(readCost);
+        controller = new IOSteerController(io, () -> 0.0);
+        if (latched) {
+            io.position = positions[0];
+            controller.refresh();
+        }
+    }
+
+    @Benchmark
+    public void setReferenceAngle(Blackhole blackhole) {
+        int i = index++ & (SAMPLE_COUNT - 1);
+        io.position = positions[i];
+        controller.setReferenceAngle(referenceAngles[i]);
+        blackhole.consume(io.target);
+    }
+
+    /**
+     * Steer IO that stores its target instead of talking to hardware.
+     */
+    private static class StubSteerIO implements SteerIO {
+        private final long readCost;
+
+        private double position = 0.0;
+        private double target = 0.0;
+
+        private StubSteerIO(long readCost) {
+            this.readCost = readCost;
+        }
+
+        @Override
+        public double getPositionRadians() {
+            Blackhole.consumeCPU(readCost);
+            return position;
+        }
+
+        @Override
+        public double getVelocityRadiansPerSecond() {
+            Blackhole.consumeCPU(readCost);
+            return 0.0;
+        }
+
+        @Override
+        public void setPosition(double positionRadians) {
+            target = positionRadians;
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Drive controller that stores its reference instead of talking to hardware.
+ * <p>
+ * Each sensor read burns {@code readCost} JMH tokens to stand in for the JNI/CAN cache lookup a real motor
+ * controller performs.
+ */
+public class StubDriveController implements DriveController {
+    private final long readCost;
+
+    private double referenceVoltage = 0.0;
+    private double velocity = 0.0;
+    private double distance = 0.0;
+    private int reads = 0;
+
+    public StubDriveController(long readCost) {
+        this.readCost = readCost;
+    }
+
+    @Override
+    public MotorController getDriveMotor() {
+        return null;
+    }
+
+    @Override
+    public void setReferenceVoltage(double voltage) {
+        this.referenceVoltage = voltage;
+    }
+
+    public double getReferenceVoltage() {
+        return referenceVoltage;
+    }
+
+    @Override
+    public double getStateVelocity() {
+        reads++;
+        Blackhole.consumeCPU(readCost);
+        return velocity;
+    }
+
+    @Override
+    public double getStateDistance() {
+        reads++;
+        Blackhole.consumeCPU(readCost);
+        return distance;
+    }
+
+    public void setState(double velocity, double distance) {
+        this.velocity = velocity;
+        this.distance = distance;
+    }
+
+    public int getReads() {
+        return reads;
+    }
+}
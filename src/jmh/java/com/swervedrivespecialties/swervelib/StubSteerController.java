@@ -0,0 +1,57 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Steer controller that stores its reference instead of talking to hardware.
+ * <p>
+ * Each sensor read burns {@code readCost} JMH tokens to stand in for the JNI/CAN cache lookup a real motor
+ * controller performs.
+ */
+public class StubSteerController implements SteerController {
+    private final long readCost;
+
+    private double referenceAngle = 0.0;
+    private double angle = 0.0;
+    private int reads = 0;
+
+    public StubSteerController(long readCost) {
+        this.readCost = readCost;
+    }
+
+    @Override
+    public MotorController getSteerMotor() {
+        return null;
+    }
+
+    @Override
+    public AbsoluteEncoder getSteerEncoder() {
+        return () -> angle;
+    }
+
+    @Override
+    public double getReferenceAngle() {
+        return referenceAngle;
+    }
+
+    @Override
+    public void setReferenceAngle(double referenceAngleRadians) {
+        this.referenceAngle = referenceAngleRadians;
+    }
+
+    @Override
+    public double getStateAngle() {
+        reads++;
+        Blackhole.consumeCPU(readCost);
+        return angle;
+    }
+
+    public void setStateAngle(double angle) {
+        this.angle = angle;
+    }
+
+    public int getReads() {
+        return reads;
+    }
+}
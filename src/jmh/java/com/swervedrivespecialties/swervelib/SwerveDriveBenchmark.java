@@ -0,0 +1,73 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures a full drivetrain cycle, reading every module and then commanding them from chassis speeds, against stub
+ * controllers.
+ */
+@State(Scope.Thread)
+public class SwerveDriveBenchmark {
+    private static final int SETPOINT_COUNT = 64;
+    private static final double HALF_TRACKWIDTH = 0.3;
+    private static final double HALF_WHEELBASE = 0.3;
+    private static final double MAX_VELOCITY = 4.5;
+
+    @Param({"4", "6"})
+    public int moduleCount;
+
+    /**
+     * CPU tokens burnt per sensor read, standing in for the cost of a vendor JNI call.
+     */
+    @Param({"0", "100"})
+    public long readCost;
+
+    private SwerveDrive swerveDrive;
+
+    private final ChassisSpeeds[] setpoints = new ChassisSpeeds[SETPOINT_COUNT];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        SwerveModuleFactory<Integer, Integer> factory = new SwerveModuleFactory<>(
+                SdsModuleConfigurations.MK4_L2,
+                (id, canbus, mechConfiguration) -> new StubDriveController(readCost),
+                (id, canbus, mechConfiguration) -> new StubSteerController(readCost)
+        );
+
+        SwerveModule[] modules = new SwerveModule[moduleCount];
+        Translation2d[] locations = new Translation2d[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            modules[i] = factory.create(i, i);
+            // Spread the modules evenly around the robot's center
+            double theta = 2.0 * Math.PI * i / moduleCount;
+            locations[i] = new Translation2d(HALF_WHEELBASE * Math.cos(theta), HALF_TRACKWIDTH * Math.sin(theta));
+        }
+        swerveDrive = new SwerveDrive(locations, modules, MAX_VELOCITY, 12.0);
+
+        for (int i = 0; i < SETPOINT_COUNT; i++) {
+            setpoints[i] = new ChassisSpeeds(
+                    MAX_VELOCITY * Math.cos(i),
+                    MAX_VELOCITY * Math.sin(i),
+                    Math.PI * Math.sin(0.5 * i)
+            );
+        }
+    }
+
+    @Benchmark
+    public void cycle() {
+        swerveDrive.readAll();
+        swerveDrive.drive(setpoints[index++ & (SETPOINT_COUNT - 1)]);
+    }
+
+    @Benchmark
+    public void kinematics(Blackhole blackhole) {
+        SwerveModuleState[] states = swerveDrive.getKinematics()
+                .toSwerveModuleStates(setpoints[index++ & (SETPOINT_COUNT - 1)]);
+        blackhole.consume(states);
+    }
+}
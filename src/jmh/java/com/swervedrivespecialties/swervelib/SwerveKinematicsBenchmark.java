@@ -0,0 +1,84 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares {@link SwerveKinematics} with WPILib's {@link SwerveDriveKinematics} for inverse kinematics with
+ * desaturation, and for forward kinematics.
+ */
+@State(Scope.Thread)
+public class SwerveKinematicsBenchmark {
+    private static final int SETPOINT_COUNT = 64;
+    private static final double HALF_TRACKWIDTH = 0.3;
+    private static final double HALF_WHEELBASE = 0.3;
+    private static final double MAX_VELOCITY = 4.5;
+
+    @Param({"4", "6"})
+    public int moduleCount;
+
+    private SwerveDriveKinematics wpilibKinematics;
+    private SwerveKinematics kinematics;
+
+    private final ChassisSpeeds[] setpoints = new ChassisSpeeds[SETPOINT_COUNT];
+    private SwerveModuleState[] moduleStates;
+    private double[] speeds;
+    private double[] angles;
+    private final double[] chassisSpeeds = new double[3];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Translation2d[] locations = new Translation2d[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            // Spread the modules evenly around the robot's center
+            double theta = 2.0 * Math.PI * i / moduleCount;
+            locations[i] = new Translation2d(HALF_WHEELBASE * Math.cos(theta), HALF_TRACKWIDTH * Math.sin(theta));
+        }
+        wpilibKinematics = new SwerveDriveKinematics(locations);
+        kinematics = new SwerveKinematics(locations);
+
+        for (int i = 0; i < SETPOINT_COUNT; i++) {
+            setpoints[i] = new ChassisSpeeds(
+                    MAX_VELOCITY * Math.cos(i),
+                    MAX_VELOCITY * Math.sin(i),
+                    Math.PI * Math.sin(0.5 * i)
+            );
+        }
+
+        moduleStates = wpilibKinematics.toSwerveModuleStates(setpoints[1]);
+        speeds = new double[moduleCount];
+        angles = new double[moduleCount];
+        kinematics.toModuleStates(setpoints[1], speeds, angles);
+    }
+
+    @Benchmark
+    public void wpilibInverse(Blackhole blackhole) {
+        SwerveModuleState[] states = wpilibKinematics.toSwerveModuleStates(setpoints[index++ & (SETPOINT_COUNT - 1)]);
+        SwerveDriveKinematics.desaturateWheelSpeeds(states, MAX_VELOCITY);
+        blackhole.consume(states);
+    }
+
+    @Benchmark
+    public void primitiveInverse(Blackhole blackhole) {
+        kinematics.toModuleStates(setpoints[index++ & (SETPOINT_COUNT - 1)], speeds, angles);
+        SwerveKinematics.desaturate(speeds, MAX_VELOCITY);
+        blackhole.consume(speeds);
+        blackhole.consume(angles);
+    }
+
+    @Benchmark
+    public ChassisSpeeds wpilibForward() {
+        return wpilibKinematics.toChassisSpeeds(moduleStates);
+    }
+
+    @Benchmark
+    public double[] primitiveForward() {
+        kinematics.toChassisSpeeds(speeds, angles, chassisSpeeds);
+        return chassisSpeeds;
+    }
+}
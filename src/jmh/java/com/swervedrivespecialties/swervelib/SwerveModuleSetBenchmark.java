@@ -0,0 +1,95 @@
+package com.swervedrivespecialties.swervelib;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures one module update through {@link SwerveModule#set(double, double)}.
+ * <p>
+ * {@code fused} runs the module returned by {@link SwerveModuleFactory}. {@code legacy} runs the previous
+ * implementation, which read the steer angle twice per update, against the same stub controllers so the two
+ * can be compared directly. Run with {@code ./gradlew jmh}; the gc profiler reports bytes/op as
+ * {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+public class SwerveModuleSetBenchmark {
+    private static final int SETPOINT_COUNT = 64;
+
+    /**
+     * CPU tokens burnt per sensor read, standing in for the cost of a vendor JNI call.
+     */
+    @Param({"0", "100"})
+    public long readCost;
+
+    private StubDriveController driveController;
+    private StubSteerController steerController;
+    private SwerveModule module;
+
+    private final double[] voltages = new double[SETPOINT_COUNT];
+    private final double[] angles = new double[SETPOINT_COUNT];
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        driveController = new StubDriveController(readCost);
+        steerController = new StubSteerController(readCost);
+        steerController.setStateAngle(Math.toRadians(30.0));
+        module = new SwerveModuleFactory<Integer, Integer>(
+                SdsModuleConfigurations.MK4_L2,
+                (id, canbus, mechConfiguration) -> driveController,
+                (id, canbus, mechConfiguration) -> steerController
+        ).create(0, 0);
+
+        // Spread the setpoints around the circle so every branch of the wrap/flip logic is taken
+        for (int i = 0; i < SETPOINT_COUNT; i++) {
+            voltages[i] = 12.0 * Math.sin(i);
+            angles[i] = (i - SETPOINT_COUNT / 2.0) * (4.0 * Math.PI / SETPOINT_COUNT);
+        }
+    }
+
+    @Benchmark
+    public void fused(Blackhole blackhole) {
+        int i = index++ & (SETPOINT_COUNT - 1);
+        module.set(voltages[i], angles[i]);
+        blackhole.consume(steerController.getReferenceAngle());
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        int i = index++ & (SETPOINT_COUNT - 1);
+        legacySet(driveController, steerController, voltages[i], angles[i]);
+        blackhole.consume(steerController.getReferenceAngle());
+    }
+
+    /**
+     * Copy of {@code ModuleImplementation.set} before the steer angle read was fused.
+     */
+    private static void legacySet(DriveController driveController, SteerController steerController,
+                                  double driveVoltage, double steerAngle) {
+        steerAngle %= (2.0 * Math.PI);
+        if (steerAngle < 0.0) {
+            steerAngle += 2.0 * Math.PI;
+        }
+
+        double difference = steerAngle - steerController.getStateAngle();
+        if (difference >= Math.PI) {
+            steerAngle -= 2.0 * Math.PI;
+        } else if (difference < -Math.PI) {
+            steerAngle += 2.0 * Math.PI;
+        }
+        difference = steerAngle - steerController.getStateAngle();
+
+        if (difference > Math.PI / 2.0 || difference < -Math.PI / 2.0) {
+            steerAngle += Math.PI;
+            driveVoltage *= -1.0;
+        }
+
+        steerAngle %= (2.0 * Math.PI);
+        if (steerAngle < 0.0) {
+            steerAngle += 2.0 * Math.PI;
+        }
+
+        driveController.setReferenceVoltage(driveVoltage);
+        steerController.setReferenceAngle(steerAngle);
+    }
+}
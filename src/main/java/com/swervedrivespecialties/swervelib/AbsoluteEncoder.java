@@ -1,7 +1,7 @@
 package com.swervedrivespecialties.swervelib;
 
 @FunctionalInterface
-public interface AbsoluteEncoder {
+public interface AbsoluteEncoder extends EncoderIO {
     /**
      * Gets the current angle reading of the encoder in radians.
      *
@@ -9,6 +9,44 @@ public interface AbsoluteEncoder {
      */
     double getAbsoluteAngle();
 
+    /**
+     * Gets whether the angle last returned by {@link #getAbsoluteAngle()} is a recent, good reading.
+     * <p>
+     * Encoders that return their last good reading when the hardware can't be read report false here once that
+     * reading is too old to be trusted.
+     *
+     * @return true if the last angle can be trusted
+     */
+    default boolean isValid() {
+        return true;
+    }
+
+    /**
+     * Gets the time the angle last returned by {@link #getAbsoluteAngle()} was read from the hardware.
+     *
+     * @return FPGA timestamp in seconds, or NaN if the encoder is always read on demand
+     */
+    default double getTimestamp() {
+        return Double.NaN;
+    }
+
+    @Override
+    default void updateInputs(Inputs inputs) {
+        // Validity and timestamp describe the angle just read, so read it first
+        inputs.absoluteAngleRadians = getAbsoluteAngle();
+        inputs.valid = isValid();
+        inputs.timestamp = getTimestamp();
+    }
+
+    /**
+     * Gets the encoder's status frame periods, to be retuned while the robot runs.
+     *
+     * @return the encoder, or null if it has no status frames of its own
+     */
+    default StatusFrameTarget getStatusFrameTarget() {
+        return null;
+    }
+
     /**
      * Returns the internal encoder object, if applicable
      * 
@@ -0,0 +1,147 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Collects how long each device took to configure and any errors reported while configuring it.
+ * <p>
+ * Devices configured through {@link #record(String, Supplier)} have their configuration errors held back instead of
+ * being sent to the driver station one at a time, so a parallel build can report every problem together once all
+ * devices are done with {@link #publish()}.
+ */
+public class DeviceConfigurationReport {
+    private static final ThreadLocal<List<String>> ACTIVE_ERRORS = new ThreadLocal<>();
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Reports a device error. Errors reported while a device is being recorded on the current thread are added to
+     * that device's entry, all others are sent straight to the driver station.
+     *
+     * @param message the error message
+     */
+    public static void reportError(String message) {
+        List<String> errors = ACTIVE_ERRORS.get();
+        if (errors != null) {
+            errors.add(message);
+        } else {
+            DriverStation.reportError(message, false);
+        }
+    }
+
+    /**
+     * Configures a device, recording how long it took and any errors reported while doing so. Exceptions are
+     * recorded as errors and rethrown.
+     *
+     * @param name      name of the device, used in the report
+     * @param configure creates and configures the device
+     * @return the configured device
+     */
+    public <T> T record(String name, Supplier<T> configure) {
+        List<String> errors = new ArrayList<>();
+        List<String> previousErrors = ACTIVE_ERRORS.get();
+        ACTIVE_ERRORS.set(errors);
+
+        long start = System.nanoTime();
+        try {
+            return configure.get();
+        } catch (RuntimeException e) {
+            errors.add(e.toString());
+            throw e;
+        } finally {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (previousErrors != null) {
+                ACTIVE_ERRORS.set(previousErrors);
+            } else {
+                ACTIVE_ERRORS.remove();
+            }
+
+            synchronized (entries) {
+                entries.add(new Entry(name, seconds, errors));
+            }
+        }
+    }
+
+    /**
+     * Gets the recorded devices, in the order they finished configuring.
+     */
+    public List<Entry> getEntries() {
+        synchronized (entries) {
+            return Collections.unmodifiableList(new ArrayList<>(entries));
+        }
+    }
+
+    public boolean hasErrors() {
+        for (Entry entry : getEntries()) {
+            if (!entry.getErrors().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the configuration time of every device to the driver station as a warning, and every recorded error as a
+     * single error message.
+     */
+    public void publish() {
+        DriverStation.reportWarning(toString(), false);
+
+        if (hasErrors()) {
+            StringBuilder message = new StringBuilder("Errors while configuring swerve devices:");
+            for (Entry entry : getEntries()) {
+                for (String error : entry.getErrors()) {
+                    message.append("\n  ").append(entry.getName()).append(": ").append(error);
+                }
+            }
+            DriverStation.reportError(message.toString(), false);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Swerve device configuration times:");
+        for (Entry entry : getEntries()) {
+            builder.append(String.format("%n  %-32s %7.1f ms", entry.getName(), entry.getSeconds() * 1000.0));
+            if (!entry.getErrors().isEmpty()) {
+                builder.append(" (").append(entry.getErrors().size()).append(" errors)");
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The configuration time and errors of a single device.
+     */
+    public static class Entry {
+        private final String name;
+        private final double seconds;
+        private final List<String> errors;
+
+        private Entry(String name, double seconds, List<String> errors) {
+            this.name = name;
+            this.seconds = seconds;
+            this.errors = Collections.unmodifiableList(errors);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets how long the device took to configure, in seconds.
+         */
+        public double getSeconds() {
+            return seconds;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
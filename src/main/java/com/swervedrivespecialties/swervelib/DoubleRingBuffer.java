@@ -0,0 +1,106 @@
+package com.swervedrivespecialties.swervelib;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free ring buffer of fixed-width {@code double} records for exactly one producer thread and one
+ * consumer thread.
+ * <p>
+ * Records are copied in and out of a single preallocated array, so neither side allocates or blocks. When the buffer
+ * is full new records are dropped, and counted, rather than overwriting records the consumer may be reading.
+ */
+public class DoubleRingBuffer {
+    private final int recordWidth;
+    private final int mask;
+    private final double[] data;
+
+    // Only written by the producer
+    private final AtomicLong writeIndex = new AtomicLong();
+    // Only written by the consumer
+    private final AtomicLong readIndex = new AtomicLong();
+
+    private final AtomicLong droppedRecords = new AtomicLong();
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param recordWidth The number of doubles in each record.
+     * @param capacity    The maximum number of records held at once. Rounded up to a power of two.
+     */
+    public DoubleRingBuffer(int recordWidth, int capacity) {
+        if (recordWidth < 1) {
+            throw new IllegalArgumentException("Record width must be positive");
+        }
+        if (capacity < 1 || capacity > (1 << 20)) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^20");
+        }
+
+        int roundedCapacity = Integer.highestOneBit(capacity);
+        if (roundedCapacity < capacity) {
+            roundedCapacity <<= 1;
+        }
+
+        this.recordWidth = recordWidth;
+        this.mask = roundedCapacity - 1;
+        this.data = new double[roundedCapacity * recordWidth];
+    }
+
+    /**
+     * Adds a record. Must only be called from the producer thread.
+     *
+     * @param record The record to copy in. Must be at least {@link #getRecordWidth()} long.
+     * @return true if the record was added, false if the buffer was full and the record was dropped
+     */
+    public boolean offer(double[] record) {
+        long write = writeIndex.get();
+        if (write - readIndex.get() > mask) {
+            droppedRecords.incrementAndGet();
+            return false;
+        }
+
+        System.arraycopy(record, 0, data, (int) (write & mask) * recordWidth, recordWidth);
+        // Publish the record only after it has been fully written
+        writeIndex.lazySet(write + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest record. Must only be called from the consumer thread.
+     *
+     * @param record Filled with the removed record. Must be at least {@link #getRecordWidth()} long.
+     * @return true if a record was removed, false if the buffer was empty
+     */
+    public boolean poll(double[] record) {
+        long read = readIndex.get();
+        if (read == writeIndex.get()) {
+            return false;
+        }
+
+        System.arraycopy(data, (int) (read & mask) * recordWidth, record, 0, recordWidth);
+        // Hand the slot back to the producer only after it has been fully read
+        readIndex.lazySet(read + 1);
+        return true;
+    }
+
+    /**
+     * Gets the number of records waiting to be polled.
+     */
+    public int size() {
+        return (int) (writeIndex.get() - readIndex.get());
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public int getRecordWidth() {
+        return recordWidth;
+    }
+
+    /**
+     * Gets the number of records dropped because the buffer was full.
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+}
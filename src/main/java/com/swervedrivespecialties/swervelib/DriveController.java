@@ -2,12 +2,62 @@ package com.swervedrivespecialties.swervelib;
 
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 
+import java.util.List;
+
 public interface DriveController {
     MotorController getDriveMotor();
 
     void setReferenceVoltage(double voltage);
 
+    /**
+     * Sets the drive velocity, closing the velocity loop on the motor controller.
+     * <p>
+     * Controllers without an on-controller velocity loop only apply the feedforward voltage.
+     *
+     * @param metersPerSecond  the target wheel velocity in m/s
+     * @param feedforwardVolts voltage added to the loop's output, typically from a motor feedforward model
+     */
+    default void setReferenceVelocity(double metersPerSecond, double feedforwardVolts) {
+        setReferenceVoltage(feedforwardVolts);
+    }
+
     double getStateVelocity();
 
     double getStateDistance();
+
+    /**
+     * Latches the controller's sensor readings. Controllers that cache their readings serve the state getters from
+     * the values latched by the last call; controllers that read on demand ignore this.
+     */
+    default void refresh() {
+    }
+
+    /**
+     * Gets the latencies of the controller's calls.
+     *
+     * @return the latencies, or null if the controller isn't instrumented
+     * @see SwerveModuleFactory#withInstrumentation()
+     */
+    default LatencyDiagnostics getDiagnostics() {
+        return null;
+    }
+
+    /**
+     * Gets the cache that suppresses repeated setpoint writes, along with its counts of writes sent and saved.
+     *
+     * @return the cache, or null if every setpoint is sent
+     */
+    default WriteCoalescer getWriteCoalescer() {
+        return null;
+    }
+
+    /**
+     * Gets the controller's devices whose status frame periods can be retuned while the robot runs.
+     *
+     * @return the devices, or an empty list if the controller's status frames can't be retuned
+     * @see StatusFrameScheduler
+     */
+    default List<StatusFrameTarget> getStatusFrameTargets() {
+        return List.of();
+    }
 }
@@ -0,0 +1,148 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Runs one drivetrain control cycle in three separate phases, so every module acts on sensor readings from the same
+ * moment and the motor writes go out back-to-back.
+ * <p>
+ * The read phase samples every module with {@link SwerveDrive#readAll()}. The compute phase works out the setpoints
+ * from those readings the same way {@link SwerveDrive#drive(ChassisSpeeds)} does, without touching any hardware. The
+ * write phase then sends every module its setpoints in one pass. How long each phase takes is recorded in a {@link LatencyHistogram}.
+ * <p>
+ * The modules should have sensor snapshots enabled. Otherwise each module reads its steer angle again when it is
+ * written to, which puts CAN reads back between the writes.
+ */
+public class DriveCycle {
+    /**
+     * The phases of a cycle, in the order they run.
+     */
+    public enum Phase {
+        READ,
+        COMPUTE,
+        WRITE
+    }
+
+    private final SwerveDrive drive;
+    private final SwerveModule[] modules;
+
+    private final double[] speedSetpoints;
+    private final double[] angleSetpoints;
+    private final double[] voltageSetpoints;
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private final double[] lastDurations = new double[Phase.values().length];
+
+    public DriveCycle(SwerveDrive drive) {
+        this.drive = drive;
+        this.modules = new SwerveModule[drive.getModuleCount()];
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = drive.getModule(i);
+        }
+
+        this.speedSetpoints = new double[modules.length];
+        this.angleSetpoints = new double[modules.length];
+        this.voltageSetpoints = new double[modules.length];
+        // Modules hold their current angle until they are first told to move
+        System.arraycopy(drive.getSteerAngles(), 0, angleSetpoints, 0, modules.length);
+
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Runs a cycle, driving the modules at the robot relative speeds with drive voltages proportional to their speeds.
+     *
+     * @see SwerveDrive#drive(ChassisSpeeds)
+     */
+    public void run(ChassisSpeeds chassisSpeeds) {
+        run(chassisSpeeds, false);
+    }
+
+    /**
+     * Runs a cycle, closing each module's drive velocity loop on its motor controller.
+     *
+     * @see SwerveDrive#driveVelocity(ChassisSpeeds)
+     */
+    public void runVelocity(ChassisSpeeds chassisSpeeds) {
+        run(chassisSpeeds, true);
+    }
+
+    private void run(ChassisSpeeds chassisSpeeds, boolean closedLoop) {
+        long start = System.nanoTime();
+
+        drive.readAll();
+        long read = System.nanoTime();
+
+        // Optimized against the readings just taken, so the writes below don't need new ones
+        drive.computeSetpoints(chassisSpeeds, speedSetpoints, angleSetpoints, voltageSetpoints);
+        long computed = System.nanoTime();
+
+        if (closedLoop) {
+            for (int i = 0; i < modules.length; i++) {
+                modules[i].setVelocity(speedSetpoints[i], voltageSetpoints[i], angleSetpoints[i]);
+            }
+        } else {
+            for (int i = 0; i < modules.length; i++) {
+                modules[i].set(voltageSetpoints[i], angleSetpoints[i]);
+            }
+        }
+        long written = System.nanoTime();
+
+        record(Phase.READ, read - start);
+        record(Phase.COMPUTE, computed - read);
+        record(Phase.WRITE, written - computed);
+    }
+
+    private void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+        lastDurations[phase.ordinal()] = nanos * 1.0e-9;
+    }
+
+    /**
+     * Gets the durations of every run of a phase.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * Gets how long a phase took in the last cycle, in seconds.
+     */
+    public double getLastDuration(Phase phase) {
+        return lastDurations[phase.ordinal()];
+    }
+
+    /**
+     * Clears the phase durations.
+     */
+    public void resetTiming() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Gets each module's speed setpoint from the last cycle, in m/s, after optimization.
+     */
+    public double[] getSpeedSetpoints() {
+        return speedSetpoints;
+    }
+
+    /**
+     * Gets each module's steer angle setpoint from the last cycle, in radians from [0, 2pi), after optimization.
+     */
+    public double[] getAngleSetpoints() {
+        return angleSetpoints;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("DriveCycle");
+        for (Phase phase : Phase.values()) {
+            builder.append(String.format("%n  %s: %s", phase, histograms[phase.ordinal()]));
+        }
+        return builder.toString();
+    }
+}
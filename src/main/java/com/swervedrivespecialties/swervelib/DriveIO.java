@@ -0,0 +1,72 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+/**
+ * The hardware a drive controller talks to, reduced to reading its sensors and sending it outputs.
+ * <p>
+ * Implementations do unit conversion and vendor calls only. The control logic lives in {@link IODriveController}.
+ */
+public interface DriveIO {
+    /**
+     * The drive's sensor readings, refreshed in place by {@link #updateInputs(Inputs)}.
+     */
+    class Inputs {
+        public double positionMeters = 0.0;
+        public double velocityMetersPerSecond = 0.0;
+    }
+
+    /**
+     * Reads every sensor into {@code inputs}.
+     */
+    default void updateInputs(Inputs inputs) {
+        inputs.positionMeters = getPositionMeters();
+        inputs.velocityMetersPerSecond = getVelocityMetersPerSecond();
+    }
+
+    /**
+     * Reads only the wheel's position, for callers that need a single sensor on demand.
+     */
+    double getPositionMeters();
+
+    /**
+     * Reads only the wheel's velocity, for callers that need a single sensor on demand.
+     */
+    double getVelocityMetersPerSecond();
+
+    void setVoltage(double volts);
+
+    /**
+     * Gets the voltage {@link #setVoltage(double)} divides by to get the duty cycle it sends, when that changes
+     * while the robot runs. Coalesced voltage setpoints are resent when it changes, so the motor's output follows the
+     * battery as it sags.
+     *
+     * @return the battery voltage, or NaN if the duty cycle sent for a voltage never changes
+     */
+    default double getSupplyVoltage() {
+        return Double.NaN;
+    }
+
+    /**
+     * Closes the velocity loop on the motor controller.
+     * <p>
+     * Hardware without an on-controller velocity loop only applies the feedforward voltage.
+     *
+     * @param metersPerSecond  the target wheel velocity in m/s
+     * @param feedforwardVolts voltage added to the loop's output
+     */
+    default void setVelocity(double metersPerSecond, double feedforwardVolts) {
+        setVoltage(feedforwardVolts);
+    }
+
+    MotorController getMotor();
+
+    /**
+     * Gets the drive motor's status frame periods, to be retuned while the robot runs.
+     *
+     * @return the motor, or null if its status frames can't be retuned
+     */
+    default StatusFrameTarget getStatusFrameTarget() {
+        return null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.swervedrivespecialties.swervelib;
+
+/**
+ * An absolute encoder, reduced to reading it in one call.
+ * <p>
+ * Every {@link AbsoluteEncoder} is one, so the CANCoder, analog and Spark MAX encoders can be used wherever an
+ * {@code EncoderIO} is.
+ */
+public interface EncoderIO {
+    /**
+     * The encoder's readings, refreshed in place by {@link #updateInputs(Inputs)}.
+     */
+    class Inputs {
+        /**
+         * The module angle in radians, from [0, 2pi).
+         */
+        public double absoluteAngleRadians = 0.0;
+        public boolean valid = true;
+        /**
+         * The FPGA time the angle was read from the hardware, in seconds, or NaN if it is read on demand.
+         */
+        public double timestamp = Double.NaN;
+    }
+
+    /**
+     * Reads the encoder into {@code inputs}.
+     */
+    void updateInputs(Inputs inputs);
+}
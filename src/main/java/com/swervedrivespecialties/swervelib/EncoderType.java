@@ -7,5 +7,7 @@ public enum EncoderType {
     /** CTRE CANCoder */
     CANCoder,
     /** An analog absolute encoder, such as the Thrifty Absolute Magnetic Encoder */
-    Analog
+    Analog,
+    /** A duty cycle absolute encoder wired to the steer motor's Spark MAX, such as the REV Through Bore Encoder */
+    SparkMaxAbsolute
 }
@@ -0,0 +1,111 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.List;
+
+/**
+ * Drive controller that talks to its hardware only through a {@link DriveIO}.
+ * <p>
+ * Until {@link #refresh()} is first called every state getter reads the sensors, so the controller behaves like one
+ * that reads on demand. Once it has been called, the getters serve the inputs read by the last call.
+ * <p>
+ * On-demand reads fetch only the sensor the getter returns, and only {@link #refresh()} writes the latched inputs, so
+ * the getters may be called from another thread, such as an {@link OdometrySampler}, while the robot loop commands
+ * the controller.
+ * <p>
+ * With a {@link WriteCoalescer}, setpoints the motor controller already has are not sent again. A voltage setpoint
+ * is sent again when the {@link DriveIO#getSupplyVoltage() supply voltage} it is divided by has changed, since the
+ * duty cycle the motor controller has is then out of date.
+ */
+public class IODriveController implements DriveController {
+    private static final int VOLTAGE_SETPOINT = 0;
+    private static final int VELOCITY_SETPOINT = 1;
+
+    private DriveIO io;
+    private final WriteCoalescer writeCoalescer;
+    private final DriveIO.Inputs inputs = new DriveIO.Inputs();
+    private boolean latched = false;
+
+    public IODriveController(DriveIO io) {
+        this(io, null);
+    }
+
+    /**
+     * @param io             the drive motor
+     * @param writeCoalescer suppresses repeated setpoints, or null to send every setpoint
+     */
+    public IODriveController(DriveIO io, WriteCoalescer writeCoalescer) {
+        this.io = io;
+        this.writeCoalescer = writeCoalescer;
+    }
+
+    public DriveIO getIO() {
+        return io;
+    }
+
+    /**
+     * Logs every read and output that goes through the IO from now on, for {@link ModuleReplay}. Called once when the
+     * module is created, before the controller is used.
+     *
+     * @param logger the logger to write to
+     * @param device the module's device index in the logger
+     */
+    void logTo(ModuleLogger logger, int device) {
+        io = new LoggedDriveIO(io, logger, device);
+    }
+
+    @Override
+    public MotorController getDriveMotor() {
+        return io.getMotor();
+    }
+
+    @Override
+    public void setReferenceVoltage(double voltage) {
+        if (writeCoalescer == null) {
+            io.setVoltage(voltage);
+            return;
+        }
+
+        // A change of either by more than epsilon volts changes the output by at most about epsilon volts
+        double supplyVoltage = io.getSupplyVoltage();
+        if (writeCoalescer.shouldWrite(VOLTAGE_SETPOINT, voltage, Double.isNaN(supplyVoltage) ? 0.0 : supplyVoltage)) {
+            io.setVoltage(voltage);
+        }
+    }
+
+    @Override
+    public void setReferenceVelocity(double metersPerSecond, double feedforwardVolts) {
+        if (writeCoalescer == null
+                || writeCoalescer.shouldWrite(VELOCITY_SETPOINT, metersPerSecond, feedforwardVolts)) {
+            io.setVelocity(metersPerSecond, feedforwardVolts);
+        }
+    }
+
+    @Override
+    public double getStateVelocity() {
+        return latched ? inputs.velocityMetersPerSecond : io.getVelocityMetersPerSecond();
+    }
+
+    @Override
+    public double getStateDistance() {
+        return latched ? inputs.positionMeters : io.getPositionMeters();
+    }
+
+    @Override
+    public WriteCoalescer getWriteCoalescer() {
+        return writeCoalescer;
+    }
+
+    @Override
+    public List<StatusFrameTarget> getStatusFrameTargets() {
+        StatusFrameTarget target = io.getStatusFrameTarget();
+        return target != null ? List.of(target) : List.of();
+    }
+
+    @Override
+    public void refresh() {
+        io.updateInputs(inputs);
+        latched = true;
+    }
+}
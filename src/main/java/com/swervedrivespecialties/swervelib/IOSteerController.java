@@ -0,0 +1,216 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Steer controller that talks to its hardware only through a {@link SteerIO} and an {@link EncoderIO}.
+ * <p>
+ * Targets are unwrapped to the revolution of the motor's position nearest its current angle, and the motor's encoder
+ * is periodically reset from the absolute encoder while the module is still, unless the position loop's sensor is
+ * absolute.
+ * <p>
+ * Until {@link #refresh()} is first called the motor's sensors are read whenever they are needed, so the controller
+ * behaves like one that reads on demand. Once it has been called, the inputs read by the last call are used.
+ * On-demand reads fetch only the sensors the call needs, and only {@link #refresh()} writes the latched inputs, so
+ * {@link #getStateAngle()} may be called from another thread, such as an {@link OdometrySampler}, while the robot
+ * loop sets the reference angle.
+ * <p>
+ * With a {@link WriteCoalescer}, position setpoints the motor controller already has are not sent again. Targets are
+ * still unwrapped and the encoder reset is still counted every call, so only the vendor call is skipped.
+ */
+public class IOSteerController implements SteerController {
+    private static final int ENCODER_RESET_ITERATIONS = 500;
+    private static final double ENCODER_RESET_MAX_ANGULAR_VELOCITY = Math.toRadians(0.5);
+
+    private SteerIO io;
+    private final AbsoluteEncoder absoluteEncoder;
+    private EncoderIO encoderIO;
+    private final WriteCoalescer writeCoalescer;
+    private final SteerIO.Inputs inputs = new SteerIO.Inputs();
+    private final EncoderIO.Inputs encoderInputs = new EncoderIO.Inputs();
+    private boolean latched = false;
+
+    private double referenceAngleRadians = 0.0;
+
+    private int resetIteration = 0;
+
+    /**
+     * @param io              the steer motor
+     * @param absoluteEncoder the module's absolute encoder, which is also read through its {@link EncoderIO} methods
+     */
+    public IOSteerController(SteerIO io, AbsoluteEncoder absoluteEncoder) {
+        this(io, absoluteEncoder, absoluteEncoder);
+    }
+
+    /**
+     * @param io              the steer motor
+     * @param absoluteEncoder the module's absolute encoder, as returned by {@link #getSteerEncoder()}
+     * @param encoderIO       read for the absolute angle when the motor's encoder is reset
+     */
+    public IOSteerController(SteerIO io, AbsoluteEncoder absoluteEncoder, EncoderIO encoderIO) {
+        this(io, absoluteEncoder, encoderIO, null);
+    }
+
+    /**
+     * @param io              the steer motor
+     * @param absoluteEncoder the module's absolute encoder, as returned by {@link #getSteerEncoder()}
+     * @param encoderIO       read for the absolute angle when the motor's encoder is reset
+     * @param writeCoalescer  suppresses repeated setpoints, or null to send every setpoint
+     */
+    public IOSteerController(SteerIO io, AbsoluteEncoder absoluteEncoder, EncoderIO encoderIO,
+                             WriteCoalescer writeCoalescer) {
+        this.io = io;
+        this.absoluteEncoder = absoluteEncoder;
+        this.encoderIO = encoderIO;
+        this.writeCoalescer = writeCoalescer;
+    }
+
+    /**
+     * Moves a reference angle in the range [0, 2pi) to whichever revolution of the motor's unbounded encoder position
+     * is closest to the current angle.
+     *
+     * @param referenceAngleRadians the reference angle, from [0, 2pi)
+     * @param currentAngleRadians   the current, unbounded angle of the motor's encoder
+     * @return the reference angle in the same units as the motor's encoder
+     */
+    public static double adjustReferenceAngle(double referenceAngleRadians, double currentAngleRadians) {
+        double currentAngleRadiansMod = currentAngleRadians % (2.0 * Math.PI);
+        if (currentAngleRadiansMod < 0.0) {
+            currentAngleRadiansMod += 2.0 * Math.PI;
+        }
+
+        // The reference angle has the range [0, 2pi) but the motor's encoder can go above that
+        double adjustedReferenceAngleRadians = referenceAngleRadians + currentAngleRadians - currentAngleRadiansMod;
+        if (referenceAngleRadians - currentAngleRadiansMod > Math.PI) {
+            adjustedReferenceAngleRadians -= 2.0 * Math.PI;
+        } else if (referenceAngleRadians - currentAngleRadiansMod < -Math.PI) {
+            adjustedReferenceAngleRadians += 2.0 * Math.PI;
+        }
+
+        return adjustedReferenceAngleRadians;
+    }
+
+    public SteerIO getIO() {
+        return io;
+    }
+
+    /**
+     * Logs every read and output that goes through the IO and the encoder IO from now on, for {@link ModuleReplay}.
+     * Called once when the module is created, before the controller is used.
+     *
+     * @param logger the logger to write to
+     * @param device the module's device index in the logger
+     */
+    void logTo(ModuleLogger logger, int device) {
+        io = new LoggedSteerIO(io, logger, device);
+        EncoderIO encoder = encoderIO;
+        encoderIO = inputs -> {
+            encoder.updateInputs(inputs);
+            logger.log(device, ModuleLogger.RecordType.ENCODER_IO_ANGLE, inputs.absoluteAngleRadians,
+                    inputs.valid ? 1.0 : 0.0, inputs.timestamp);
+        };
+    }
+
+    @Override
+    public MotorController getSteerMotor() {
+        return io.getMotor();
+    }
+
+    @Override
+    public AbsoluteEncoder getSteerEncoder() {
+        return absoluteEncoder;
+    }
+
+    @Override
+    public double getReferenceAngle() {
+        return referenceAngleRadians;
+    }
+
+    @Override
+    public void setReferenceAngle(double referenceAngleRadians) {
+        this.referenceAngleRadians = referenceAngleRadians;
+
+        // The motor controller wraps its loop around [0, 2pi) itself
+        if (io.isContinuousInput()) {
+            setPosition(referenceAngleRadians);
+            return;
+        }
+
+        double currentAngleRadians = latched ? inputs.positionRadians : io.getPositionRadians();
+
+        // An absolute feedback sensor never needs resetting
+        if (!io.hasAbsoluteFeedback()) {
+            // Reset the motor's encoder periodically when the module is not rotating.
+            // Sometimes (~5% of the time) when we initialize, the absolute encoder isn't fully set up, and we don't
+            // end up getting a good reading. If we reset periodically this won't matter anymore.
+            double velocityRadiansPerSecond = latched ? inputs.velocityRadiansPerSecond
+                    : io.getVelocityRadiansPerSecond();
+            if (velocityRadiansPerSecond < ENCODER_RESET_MAX_ANGULAR_VELOCITY) {
+                if (++resetIteration >= ENCODER_RESET_ITERATIONS) {
+                    resetIteration = 0;
+                    encoderIO.updateInputs(encoderInputs);
+                    // A non-blocking encoder may hand back a stale reading; wait for the next reset instead
+                    if (encoderInputs.valid) {
+                        io.resetPosition(encoderInputs.absoluteAngleRadians);
+                        // The unwrapped target can land on the same value in the reset frame, so resend it anyway
+                        if (writeCoalescer != null) {
+                            writeCoalescer.invalidate();
+                        }
+                        currentAngleRadians = encoderInputs.absoluteAngleRadians;
+                    }
+                }
+            } else {
+                resetIteration = 0;
+            }
+        }
+
+        setPosition(adjustReferenceAngle(referenceAngleRadians, currentAngleRadians));
+    }
+
+    private void setPosition(double positionRadians) {
+        if (writeCoalescer == null || writeCoalescer.shouldWrite(0, positionRadians, 0.0)) {
+            io.setPosition(positionRadians);
+        }
+    }
+
+    @Override
+    public double getStateAngle() {
+        double motorAngleRadians = (latched ? inputs.positionRadians : io.getPositionRadians()) % (2.0 * Math.PI);
+        if (motorAngleRadians < 0.0) {
+            motorAngleRadians += 2.0 * Math.PI;
+        }
+
+        return motorAngleRadians;
+    }
+
+    @Override
+    public WriteCoalescer getWriteCoalescer() {
+        return writeCoalescer;
+    }
+
+    @Override
+    public List<StatusFrameTarget> getStatusFrameTargets() {
+        List<StatusFrameTarget> targets = new ArrayList<>(2);
+        StatusFrameTarget motorTarget = io.getStatusFrameTarget();
+        if (motorTarget != null) {
+            targets.add(motorTarget);
+        }
+        // An absolute feedback sensor is part of the motor's position loop, so the motor retunes it
+        StatusFrameTarget encoderTarget = absoluteEncoder != null && !io.hasAbsoluteFeedback()
+                ? absoluteEncoder.getStatusFrameTarget()
+                : null;
+        if (encoderTarget != null) {
+            targets.add(encoderTarget);
+        }
+        return targets;
+    }
+
+    @Override
+    public void refresh() {
+        io.updateInputs(inputs);
+        latched = true;
+    }
+}
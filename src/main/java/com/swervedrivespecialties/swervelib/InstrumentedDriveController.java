@@ -0,0 +1,117 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.LatencyDiagnostics.CallSite;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
+
+import java.util.List;
+
+/**
+ * Drive controller that times every call into the controller it wraps.
+ */
+final class InstrumentedDriveController implements DriveController {
+    private final DriveController controller;
+    private final LatencyDiagnostics diagnostics;
+
+    private final LatencyHistogram setReferenceVoltage;
+    private final LatencyHistogram setReferenceVelocity;
+    private final LatencyHistogram getStateVelocity;
+    private final LatencyHistogram getStateDistance;
+    private final LatencyHistogram refresh;
+
+    private InstrumentedDriveController(DriveController controller, String name) {
+        this.controller = controller;
+        this.diagnostics = new LatencyDiagnostics(name);
+        this.setReferenceVoltage = diagnostics.getHistogram(CallSite.SET_REFERENCE_VOLTAGE);
+        this.setReferenceVelocity = diagnostics.getHistogram(CallSite.SET_REFERENCE_VELOCITY);
+        this.getStateVelocity = diagnostics.getHistogram(CallSite.GET_STATE_VELOCITY);
+        this.getStateDistance = diagnostics.getHistogram(CallSite.GET_STATE_DISTANCE);
+        this.refresh = diagnostics.getHistogram(CallSite.REFRESH);
+    }
+
+    /**
+     * Wraps a factory so its controllers are instrumented. The wrapped factory's dashboard entries are kept, and read
+     * the controller directly.
+     */
+    static <C extends DriveController, DC> DriveControllerFactory<InstrumentedDriveController, DC> wrap(
+            DriveControllerFactory<C, DC> factory) {
+        return new DriveControllerFactory<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void addDashboardEntries(ShuffleboardContainer container, InstrumentedDriveController controller) {
+                factory.addDashboardEntries(container, (C) controller.controller);
+            }
+
+            @Override
+            public InstrumentedDriveController create(DC driveConfiguration, String canbus,
+                                                      MechanicalConfiguration mechConfiguration) {
+                return new InstrumentedDriveController(factory.create(driveConfiguration, canbus, mechConfiguration),
+                        LatencyDiagnostics.controllerName("Drive", driveConfiguration, canbus));
+            }
+        };
+    }
+
+    /**
+     * Gets the wrapped controller.
+     */
+    DriveController getController() {
+        return controller;
+    }
+
+    @Override
+    public MotorController getDriveMotor() {
+        return controller.getDriveMotor();
+    }
+
+    @Override
+    public void setReferenceVoltage(double voltage) {
+        long start = System.nanoTime();
+        controller.setReferenceVoltage(voltage);
+        setReferenceVoltage.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public void setReferenceVelocity(double metersPerSecond, double feedforwardVolts) {
+        long start = System.nanoTime();
+        controller.setReferenceVelocity(metersPerSecond, feedforwardVolts);
+        setReferenceVelocity.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public double getStateVelocity() {
+        long start = System.nanoTime();
+        double velocity = controller.getStateVelocity();
+        getStateVelocity.record(System.nanoTime() - start);
+        return velocity;
+    }
+
+    @Override
+    public double getStateDistance() {
+        long start = System.nanoTime();
+        double distance = controller.getStateDistance();
+        getStateDistance.record(System.nanoTime() - start);
+        return distance;
+    }
+
+    @Override
+    public void refresh() {
+        long start = System.nanoTime();
+        controller.refresh();
+        refresh.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public LatencyDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    @Override
+    public WriteCoalescer getWriteCoalescer() {
+        return controller.getWriteCoalescer();
+    }
+
+    @Override
+    public List<StatusFrameTarget> getStatusFrameTargets() {
+        return controller.getStatusFrameTargets();
+    }
+}
@@ -0,0 +1,112 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.LatencyDiagnostics.CallSite;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
+
+import java.util.List;
+
+/**
+ * Steer controller that times every call into the controller it wraps.
+ */
+final class InstrumentedSteerController implements SteerController {
+    private final SteerController controller;
+    private final LatencyDiagnostics diagnostics;
+
+    private final LatencyHistogram setReferenceAngle;
+    private final LatencyHistogram getStateAngle;
+    private final LatencyHistogram refresh;
+
+    private InstrumentedSteerController(SteerController controller, String name) {
+        this.controller = controller;
+        this.diagnostics = new LatencyDiagnostics(name);
+        this.setReferenceAngle = diagnostics.getHistogram(CallSite.SET_REFERENCE_ANGLE);
+        this.getStateAngle = diagnostics.getHistogram(CallSite.GET_STATE_ANGLE);
+        this.refresh = diagnostics.getHistogram(CallSite.REFRESH);
+    }
+
+    /**
+     * Wraps a factory so its controllers are instrumented. The wrapped factory's dashboard entries are kept, and read
+     * the controller directly.
+     */
+    static <C extends SteerController, SC> SteerControllerFactory<InstrumentedSteerController, SC> wrap(
+            SteerControllerFactory<C, SC> factory) {
+        return new SteerControllerFactory<>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public void addDashboardEntries(ShuffleboardContainer container, InstrumentedSteerController controller) {
+                factory.addDashboardEntries(container, (C) controller.controller);
+            }
+
+            @Override
+            public InstrumentedSteerController create(SC steerConfiguration, String canbus,
+                                                      MechanicalConfiguration mechConfiguration) {
+                // Named after the steer motor rather than the whole configuration
+                Object device = steerConfiguration instanceof SteerConfiguration
+                        ? ((SteerConfiguration) steerConfiguration).getMotorPort()
+                        : steerConfiguration;
+                return new InstrumentedSteerController(factory.create(steerConfiguration, canbus, mechConfiguration),
+                        LatencyDiagnostics.controllerName("Steer", device, canbus));
+            }
+        };
+    }
+
+    /**
+     * Gets the wrapped controller.
+     */
+    SteerController getController() {
+        return controller;
+    }
+
+    @Override
+    public MotorController getSteerMotor() {
+        return controller.getSteerMotor();
+    }
+
+    @Override
+    public AbsoluteEncoder getSteerEncoder() {
+        return controller.getSteerEncoder();
+    }
+
+    @Override
+    public double getReferenceAngle() {
+        return controller.getReferenceAngle();
+    }
+
+    @Override
+    public void setReferenceAngle(double referenceAngleRadians) {
+        long start = System.nanoTime();
+        controller.setReferenceAngle(referenceAngleRadians);
+        setReferenceAngle.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public double getStateAngle() {
+        long start = System.nanoTime();
+        double angle = controller.getStateAngle();
+        getStateAngle.record(System.nanoTime() - start);
+        return angle;
+    }
+
+    @Override
+    public void refresh() {
+        long start = System.nanoTime();
+        controller.refresh();
+        refresh.record(System.nanoTime() - start);
+    }
+
+    @Override
+    public LatencyDiagnostics getDiagnostics() {
+        return diagnostics;
+    }
+
+    @Override
+    public WriteCoalescer getWriteCoalescer() {
+        return controller.getWriteCoalescer();
+    }
+
+    @Override
+    public List<StatusFrameTarget> getStatusFrameTargets() {
+        return controller.getStatusFrameTargets();
+    }
+}
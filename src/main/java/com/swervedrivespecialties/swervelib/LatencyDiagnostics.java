@@ -0,0 +1,94 @@
+package com.swervedrivespecialties.swervelib;
+
+/**
+ * Call latencies of a single drive or steer controller, with a {@link LatencyHistogram} for each call site.
+ *
+ * @see SwerveModuleFactory#withInstrumentation()
+ */
+public class LatencyDiagnostics {
+    /**
+     * The controller calls that are timed. Drive controllers use the first four, steer controllers the next two, and
+     * both time {@link #REFRESH}.
+     */
+    public enum CallSite {
+        SET_REFERENCE_VOLTAGE,
+        SET_REFERENCE_VELOCITY,
+        GET_STATE_VELOCITY,
+        GET_STATE_DISTANCE,
+        SET_REFERENCE_ANGLE,
+        GET_STATE_ANGLE,
+        REFRESH
+    }
+
+    private final String name;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[CallSite.values().length];
+
+    /**
+     * @param name name of the controller, used in {@link #toString()}
+     */
+    public LatencyDiagnostics(String name) {
+        this.name = name;
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Names a controller after the device it was created for, such as {@code "Drive 3"} or
+     * {@code "Steer 7 on canivore"}.
+     */
+    static String controllerName(String kind, Object device, String canbus) {
+        if (canbus == null || canbus.isEmpty()) {
+            return kind + " " + device;
+        }
+        return kind + " " + device + " on " + canbus;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getHistogram(CallSite callSite) {
+        return histograms[callSite.ordinal()];
+    }
+
+    /**
+     * Gets the largest 99th percentile of any call site, in seconds.
+     */
+    public double getWorstP99() {
+        double worst = 0.0;
+        for (LatencyHistogram histogram : histograms) {
+            worst = Math.max(worst, histogram.getP99());
+        }
+        return worst;
+    }
+
+    /**
+     * Gets the longest duration of any call, in seconds.
+     */
+    public double getMax() {
+        double max = 0.0;
+        for (LatencyHistogram histogram : histograms) {
+            max = Math.max(max, histogram.getMax());
+        }
+        return max;
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(name).append(" call latencies:");
+        for (CallSite callSite : CallSite.values()) {
+            LatencyHistogram histogram = getHistogram(callSite);
+            if (histogram.getCount() > 0) {
+                builder.append(String.format("%n  %-24s %s", callSite, histogram));
+            }
+        }
+        return builder.toString();
+    }
+}
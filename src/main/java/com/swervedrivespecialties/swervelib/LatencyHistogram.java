@@ -0,0 +1,109 @@
+package com.swervedrivespecialties.swervelib;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of call durations with fixed power of two buckets.
+ * <p>
+ * Bucket {@code i} counts durations from 2^(i-1) up to 2^i nanoseconds, so percentiles are accurate to within a
+ * factor of two. The maximum is tracked exactly. Recording never allocates or locks and is safe from any thread.
+ */
+public class LatencyHistogram {
+    // The last bucket also counts everything longer than 2^38 ns, about 4.5 minutes
+    private static final int BUCKET_COUNT = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private static int bucket(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(Math.max(nanos, 0L)), BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Records a call duration.
+     *
+     * @param nanos the duration in nanoseconds, as measured with {@link System#nanoTime()}
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(bucket(nanos));
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Gets the number of recorded durations.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets an upper bound of a percentile of the recorded durations.
+     *
+     * @param percentile the percentile, from 0 to 1
+     * @return the upper edge of the bucket the percentile falls in, capped at the maximum, in seconds. 0 if nothing
+     * has been recorded.
+     */
+    public double getPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0.0;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(1L << i, maxNanos.get()) / 1e9;
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * Gets the median recorded duration, in seconds.
+     *
+     * @see #getPercentile(double)
+     */
+    public double getP50() {
+        return getPercentile(0.5);
+    }
+
+    /**
+     * Gets the 99th percentile recorded duration, in seconds.
+     *
+     * @see #getPercentile(double)
+     */
+    public double getP99() {
+        return getPercentile(0.99);
+    }
+
+    /**
+     * Gets the longest recorded duration, in seconds.
+     */
+    public double getMax() {
+        return maxNanos.get() / 1e9;
+    }
+
+    /**
+     * Clears every recorded duration. Durations recorded while resetting may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0L);
+        }
+        maxNanos.set(0L);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d, p50=%.3f ms, p99=%.3f ms, max=%.3f ms",
+                getCount(), getP50() * 1000.0, getP99() * 1000.0, getMax() * 1000.0);
+    }
+}
@@ -0,0 +1,70 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+/**
+ * Drive IO that logs every sensor read and output sent through it, so {@link ModuleReplay} can feed the reads back
+ * to an {@link IODriveController} and check its outputs.
+ */
+final class LoggedDriveIO implements DriveIO {
+    private final DriveIO io;
+    private final ModuleLogger logger;
+    private final int device;
+
+    LoggedDriveIO(DriveIO io, ModuleLogger logger, int device) {
+        this.io = io;
+        this.logger = logger;
+        this.device = device;
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        io.updateInputs(inputs);
+        logger.log(device, RecordType.DRIVE_IO_POSITION, inputs.positionMeters, 0.0, 0.0);
+        logger.log(device, RecordType.DRIVE_IO_VELOCITY, inputs.velocityMetersPerSecond, 0.0, 0.0);
+    }
+
+    @Override
+    public double getPositionMeters() {
+        double position = io.getPositionMeters();
+        logger.log(device, RecordType.DRIVE_IO_POSITION, position, 0.0, 0.0);
+        return position;
+    }
+
+    @Override
+    public double getVelocityMetersPerSecond() {
+        double velocity = io.getVelocityMetersPerSecond();
+        logger.log(device, RecordType.DRIVE_IO_VELOCITY, velocity, 0.0, 0.0);
+        return velocity;
+    }
+
+    @Override
+    public void setVoltage(double volts) {
+        io.setVoltage(volts);
+        logger.log(device, RecordType.DRIVE_IO_SET_VOLTAGE, volts, 0.0, 0.0);
+    }
+
+    @Override
+    public double getSupplyVoltage() {
+        double supplyVoltage = io.getSupplyVoltage();
+        logger.log(device, RecordType.DRIVE_IO_SUPPLY_VOLTAGE, supplyVoltage, 0.0, 0.0);
+        return supplyVoltage;
+    }
+
+    @Override
+    public void setVelocity(double metersPerSecond, double feedforwardVolts) {
+        io.setVelocity(metersPerSecond, feedforwardVolts);
+        logger.log(device, RecordType.DRIVE_IO_SET_VELOCITY, metersPerSecond, feedforwardVolts, 0.0);
+    }
+
+    @Override
+    public MotorController getMotor() {
+        return io.getMotor();
+    }
+
+    @Override
+    public StatusFrameTarget getStatusFrameTarget() {
+        return io.getStatusFrameTarget();
+    }
+}
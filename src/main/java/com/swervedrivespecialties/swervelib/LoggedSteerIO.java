@@ -0,0 +1,73 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+/**
+ * Steer IO that logs every sensor read and output sent through it, so {@link ModuleReplay} can feed the reads back
+ * to an {@link IOSteerController} and check its outputs.
+ */
+final class LoggedSteerIO implements SteerIO {
+    private final SteerIO io;
+    private final ModuleLogger logger;
+    private final int device;
+
+    LoggedSteerIO(SteerIO io, ModuleLogger logger, int device) {
+        this.io = io;
+        this.logger = logger;
+        this.device = device;
+    }
+
+    @Override
+    public void updateInputs(Inputs inputs) {
+        io.updateInputs(inputs);
+        logger.log(device, RecordType.STEER_IO_POSITION, inputs.positionRadians, 0.0, 0.0);
+        logger.log(device, RecordType.STEER_IO_VELOCITY, inputs.velocityRadiansPerSecond, 0.0, 0.0);
+    }
+
+    @Override
+    public double getPositionRadians() {
+        double position = io.getPositionRadians();
+        logger.log(device, RecordType.STEER_IO_POSITION, position, 0.0, 0.0);
+        return position;
+    }
+
+    @Override
+    public double getVelocityRadiansPerSecond() {
+        double velocity = io.getVelocityRadiansPerSecond();
+        logger.log(device, RecordType.STEER_IO_VELOCITY, velocity, 0.0, 0.0);
+        return velocity;
+    }
+
+    @Override
+    public void setPosition(double positionRadians) {
+        io.setPosition(positionRadians);
+        logger.log(device, RecordType.STEER_IO_SET_POSITION, positionRadians, 0.0, 0.0);
+    }
+
+    @Override
+    public void resetPosition(double positionRadians) {
+        io.resetPosition(positionRadians);
+        logger.log(device, RecordType.STEER_IO_RESET_POSITION, positionRadians, 0.0, 0.0);
+    }
+
+    @Override
+    public boolean hasAbsoluteFeedback() {
+        return io.hasAbsoluteFeedback();
+    }
+
+    @Override
+    public boolean isContinuousInput() {
+        return io.isContinuousInput();
+    }
+
+    @Override
+    public MotorController getMotor() {
+        return io.getMotor();
+    }
+
+    @Override
+    public StatusFrameTarget getStatusFrameTarget() {
+        return io.getStatusFrameTarget();
+    }
+}
@@ -13,6 +13,10 @@ public class MkModuleConfiguration {
     private double driveCurrentLimit = 80.0;
     private double steerCurrentLimit = 20.0;
 
+    private double driveKP = Double.NaN;
+    private double driveKI = Double.NaN;
+    private double driveKD = Double.NaN;
+
     private double steerKP = Double.NaN;
     private double steerKI = Double.NaN;
     private double steerKD = Double.NaN;
@@ -21,6 +25,14 @@ public class MkModuleConfiguration {
     private double steerMMkA = Double.NaN;
     private double steerMMkS = Double.NaN;
 
+    private boolean configurationFingerprinting = false;
+    private boolean steerRemoteFeedback = false;
+    private StatusFrameProfile statusFrameProfile = new StatusFrameProfile();
+
+    private double driveWriteCoalescingEpsilon = Double.NaN;
+    private double steerWriteCoalescingEpsilon = Double.NaN;
+    private double writeCoalescingKeepAlivePeriod = Double.NaN;
+
     public double getNominalVoltage() {
         return nominalVoltage;
     }
@@ -45,6 +57,32 @@ public class MkModuleConfiguration {
         this.steerCurrentLimit = steerCurrentLimit;
     }
 
+    public double getDriveKP() {
+        return driveKP;
+    }
+
+    public double getDriveKI() {
+        return driveKI;
+    }
+
+    public double getDriveKD() {
+        return driveKD;
+    }
+
+    /**
+     * Sets the gains of the drive motor's on-controller velocity loop, used by
+     * {@link SwerveModule#setVelocity(double, double, double)}.
+     *
+     * @param driveKP volts per m/s of velocity error
+     * @param driveKI volts per meter of accumulated velocity error
+     * @param driveKD volts per m/s^2 of velocity error rate
+     */
+    public void setDrivePID(double driveKP, double driveKI, double driveKD) {
+        this.driveKP = driveKP;
+        this.driveKI = driveKI;
+        this.driveKD = driveKD;
+    }
+
     public double getSteerKP() {
         return steerKP;
     }
@@ -81,6 +119,66 @@ public class MkModuleConfiguration {
         this.steerMMkS = steerMMkS;
     }
 
+    public boolean isConfigurationFingerprinting() {
+        return configurationFingerprinting;
+    }
+
+    /**
+     * Sets whether motors that already have the module's configuration saved skip being reconfigured on boot.
+     */
+    public void setConfigurationFingerprinting(boolean configurationFingerprinting) {
+        this.configurationFingerprinting = configurationFingerprinting;
+    }
+
+    public boolean isSteerRemoteFeedback() {
+        return steerRemoteFeedback;
+    }
+
+    /**
+     * Sets whether Falcon 500 steer motors close their position loop directly on the module's CANCoder. Ignored for
+     * other steer motors.
+     */
+    public void setSteerRemoteFeedback(boolean steerRemoteFeedback) {
+        this.steerRemoteFeedback = steerRemoteFeedback;
+    }
+
+    public StatusFrameProfile getStatusFrameProfile() {
+        return statusFrameProfile;
+    }
+
+    /**
+     * Sets how often the module's motors and encoder send their CAN status frames.
+     */
+    public void setStatusFrameProfile(StatusFrameProfile statusFrameProfile) {
+        this.statusFrameProfile = statusFrameProfile;
+    }
+
+    public double getDriveWriteCoalescingEpsilon() {
+        return driveWriteCoalescingEpsilon;
+    }
+
+    public double getSteerWriteCoalescingEpsilon() {
+        return steerWriteCoalescingEpsilon;
+    }
+
+    public double getWriteCoalescingKeepAlivePeriod() {
+        return writeCoalescingKeepAlivePeriod;
+    }
+
+    /**
+     * Sets whether NEO motors skip being sent setpoints they already have. Ignored for other motors, which send their
+     * setpoints on a fixed period whether or not they are set again.
+     *
+     * @param driveEpsilon    the largest drive setpoint change that is suppressed, in volts
+     * @param steerEpsilon    the largest steer setpoint change that is suppressed, in radians
+     * @param keepAlivePeriod the longest time in seconds between setpoints being sent, or NaN to disable coalescing
+     */
+    public void setWriteCoalescing(double driveEpsilon, double steerEpsilon, double keepAlivePeriod) {
+        this.driveWriteCoalescingEpsilon = driveEpsilon;
+        this.steerWriteCoalescingEpsilon = steerEpsilon;
+        this.writeCoalescingKeepAlivePeriod = keepAlivePeriod;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -89,12 +187,21 @@ public class MkModuleConfiguration {
         return     Double.compare(that.getNominalVoltage(), getNominalVoltage()) == 0
                 && Double.compare(that.getDriveCurrentLimit(), getDriveCurrentLimit()) == 0
                 && Double.compare(that.getSteerCurrentLimit(), getSteerCurrentLimit()) == 0
+                && Double.compare(that.getDriveKP(), getDriveKP()) == 0
+                && Double.compare(that.getDriveKI(), getDriveKI()) == 0
+                && Double.compare(that.getDriveKD(), getDriveKD()) == 0
                 && Double.compare(that.getSteerKP(), getSteerKP()) == 0
                 && Double.compare(that.getSteerKI(), getSteerKI()) == 0
                 && Double.compare(that.getSteerKD(), getSteerKD()) == 0
                 && Double.compare(that.getSteerMMkV(), getSteerMMkV()) == 0
                 && Double.compare(that.getSteerMMkA(), getSteerMMkA()) == 0
-                && Double.compare(that.getSteerMMkS(), getSteerMMkS()) == 0;
+                && Double.compare(that.getSteerMMkS(), getSteerMMkS()) == 0
+                && that.isConfigurationFingerprinting() == isConfigurationFingerprinting()
+                && that.isSteerRemoteFeedback() == isSteerRemoteFeedback()
+                && Objects.equals(that.getStatusFrameProfile(), getStatusFrameProfile())
+                && Double.compare(that.getDriveWriteCoalescingEpsilon(), getDriveWriteCoalescingEpsilon()) == 0
+                && Double.compare(that.getSteerWriteCoalescingEpsilon(), getSteerWriteCoalescingEpsilon()) == 0
+                && Double.compare(that.getWriteCoalescingKeepAlivePeriod(), getWriteCoalescingKeepAlivePeriod()) == 0;
     }
 
     @Override
@@ -103,12 +210,21 @@ public class MkModuleConfiguration {
                 getNominalVoltage(),
                 getDriveCurrentLimit(),
                 getSteerCurrentLimit(),
+                getDriveKP(),
+                getDriveKI(),
+                getDriveKD(),
                 getSteerKP(),
                 getSteerKI(),
                 getSteerKD(),
                 getSteerMMkV(),
                 getSteerMMkA(),
-                getSteerMMkS()
+                getSteerMMkS(),
+                isConfigurationFingerprinting(),
+                isSteerRemoteFeedback(),
+                getStatusFrameProfile(),
+                getDriveWriteCoalescingEpsilon(),
+                getSteerWriteCoalescingEpsilon(),
+                getWriteCoalescingKeepAlivePeriod()
         );
     }
 
@@ -118,12 +234,21 @@ public class MkModuleConfiguration {
                 "nominalVoltage=" + getNominalVoltage() +
                 ", driveCurrentLimit=" + getDriveCurrentLimit() +
                 ", steerCurrentLimit=" + getSteerCurrentLimit() +
+                ", driveKP=" + getDriveKP() +
+                ", driveKI=" + getDriveKI() +
+                ", driveKD=" + getDriveKD() +
                 ", steerKP=" + getSteerKP() +
                 ", steerKI=" + getSteerKI() +
                 ", steerKD=" + getSteerKD() +
                 ", steerMMkV=" + getSteerMMkV() +
                 ", steerMMkA=" + getSteerMMkA() +
                 ", steerMMkS=" + getSteerMMkS() +
+                ", configurationFingerprinting=" + isConfigurationFingerprinting() +
+                ", steerRemoteFeedback=" + isSteerRemoteFeedback() +
+                ", statusFrameProfile=" + getStatusFrameProfile() +
+                ", driveWriteCoalescingEpsilon=" + getDriveWriteCoalescingEpsilon() +
+                ", steerWriteCoalescingEpsilon=" + getSteerWriteCoalescingEpsilon() +
+                ", writeCoalescingKeepAlivePeriod=" + getWriteCoalescingKeepAlivePeriod() +
                 '}';
     }
 
@@ -5,44 +5,89 @@ import com.swervedrivespecialties.swervelib.rev.*;
 
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class MkSwerveModuleBuilder {
+    /**
+     * Number of devices {@link #buildAll(MkSwerveModuleBuilder...)} configures at the same time.
+     */
+    public static final int DEFAULT_CONFIGURATION_THREADS = 4;
 
     private static DriveControllerFactory<?, Integer> getFalcon500DriveFactory(MkModuleConfiguration configuration) {
-        return new Falcon500DriveControllerFactoryBuilder()
+        Falcon500DriveControllerFactoryBuilder builder = new Falcon500DriveControllerFactoryBuilder()
                 .withVoltageCompensation(configuration.getNominalVoltage())
+                .withPidConstants(configuration.getDriveKP(), configuration.getDriveKI(), configuration.getDriveKD())
                 .withCurrentLimit(configuration.getDriveCurrentLimit())
-                .build();
+                .withStatusFrameProfile(configuration.getStatusFrameProfile());
+        if (configuration.isConfigurationFingerprinting()) {
+            builder.withConfigurationFingerprinting();
+        }
+        return builder.build();
     }
 
     private static SteerControllerFactory<?, SteerConfiguration> getFalcon500SteerFactory(MkModuleConfiguration configuration) {
-        return new Falcon500SteerControllerFactoryBuilder()
+        Falcon500SteerControllerFactoryBuilder builder = new Falcon500SteerControllerFactoryBuilder()
                 .withVoltageCompensation(configuration.getNominalVoltage())
                 .withPidConstants(configuration.getSteerKP(), configuration.getSteerKI(), configuration.getSteerKD())
                 .withMotionMagic(configuration.getSteerMMkV(), configuration.getSteerMMkA(),
                         configuration.getSteerMMkS())
                 .withCurrentLimit(configuration.getSteerCurrentLimit())
-                .build();
+                .withStatusFrameProfile(configuration.getStatusFrameProfile());
+        if (configuration.isConfigurationFingerprinting()) {
+            builder.withConfigurationFingerprinting();
+        }
+        if (configuration.isSteerRemoteFeedback()) {
+            builder.withRemoteCanCoderFeedback();
+        }
+        return builder.build();
     }
 
     private static DriveControllerFactory<?, Integer> getNeoDriveFactory(MkModuleConfiguration configuration) {
-        return new NeoDriveControllerFactoryBuilder()
+        NeoDriveControllerFactoryBuilder builder = new NeoDriveControllerFactoryBuilder()
                 .withVoltageCompensation(configuration.getNominalVoltage())
+                .withPidConstants(configuration.getDriveKP(), configuration.getDriveKI(), configuration.getDriveKD())
                 .withCurrentLimit(configuration.getDriveCurrentLimit())
-                .build();
+                .withStatusFrameProfile(configuration.getStatusFrameProfile());
+        if (configuration.isConfigurationFingerprinting()) {
+            builder.withConfigurationFingerprinting();
+        }
+        if (Double.isFinite(configuration.getWriteCoalescingKeepAlivePeriod())) {
+            builder.withWriteCoalescing(configuration.getDriveWriteCoalescingEpsilon(),
+                    configuration.getWriteCoalescingKeepAlivePeriod());
+        }
+        return builder.build();
     }
 
     private static SteerControllerFactory<?, SteerConfiguration> getNeoSteerFactory(MkModuleConfiguration configuration) {
-        return new NeoSteerControllerFactoryBuilder()
+        NeoSteerControllerFactoryBuilder builder = new NeoSteerControllerFactoryBuilder()
                 .withVoltageCompensation(configuration.getNominalVoltage())
                 .withPidConstants(configuration.getSteerKP(), configuration.getSteerKI(), configuration.getSteerKD())
                 .withCurrentLimit(configuration.getSteerCurrentLimit())
-                .build();
+                .withStatusFrameProfile(configuration.getStatusFrameProfile());
+        if (configuration.isConfigurationFingerprinting()) {
+            builder.withConfigurationFingerprinting();
+        }
+        if (Double.isFinite(configuration.getWriteCoalescingKeepAlivePeriod())) {
+            builder.withWriteCoalescing(configuration.getSteerWriteCoalescingEpsilon(),
+                    configuration.getWriteCoalescingKeepAlivePeriod());
+        }
+        return builder.build();
     }
 
     private final MkModuleConfiguration configuration;
     private final boolean useDefaultSteerConfiguration;
     private ShuffleboardLayout container = null;
+    private TelemetryPublisher telemetryPublisher = null;
     private MechanicalConfiguration mechConfig = null;
+    private boolean sensorSnapshots = false;
+    private boolean instrumentation = false;
+    private ModuleLogger logger = null;
 
     private DriveControllerFactory<?, Integer> driveFactory = null;
     private SteerControllerFactory<?, SteerConfiguration> steerFactory = null;
@@ -57,6 +102,8 @@ public class MkSwerveModuleBuilder {
     private int steerEncoderPort = -1;
     private double steerOffset = 0;
     private String steerEncoderCanbus = "";
+    private double steerEncoderStalenessTolerance = Double.NaN;
+    private boolean steerEncoderInverted = false;
 
     /**
      * Creates a new swerve module builder with the default values.
@@ -93,6 +140,56 @@ public class MkSwerveModuleBuilder {
         return this;
     }
 
+    /**
+     * (Optional) Publish the module's debug values through a telemetry publisher instead of having the dashboard
+     * read the module directly. The values are added to the container from {@link #withLayout(ShuffleboardLayout)},
+     * if one was given, and vendor specific entries are left out.
+     * 
+     * @param telemetryPublisher the publisher, not yet started
+     * @return the builder
+     */
+    public MkSwerveModuleBuilder withTelemetryPublisher(TelemetryPublisher telemetryPublisher) {
+        this.telemetryPublisher = telemetryPublisher;
+        return this;
+    }
+
+    /**
+     * (Optional) Latch the module's sensor readings once per {@link SwerveModule#refresh()} call instead of
+     * reading the hardware on every getter call.
+     * 
+     * @return the builder
+     * @see SwerveModuleFactory#withSensorSnapshots()
+     */
+    public MkSwerveModuleBuilder withSensorSnapshots() {
+        this.sensorSnapshots = true;
+        return this;
+    }
+
+    /**
+     * (Optional) Time every call into the module's motor controllers, so their latencies can be read from
+     * {@link SwerveModule#getDriveDiagnostics()} and {@link SwerveModule#getSteerDiagnostics()}.
+     * 
+     * @return the builder
+     * @see SwerveModuleFactory#withInstrumentation()
+     */
+    public MkSwerveModuleBuilder withInstrumentation() {
+        this.instrumentation = true;
+        return this;
+    }
+
+    /**
+     * (Optional) Log every command given to the module, the setpoints it sent to its motor controllers and every
+     * sensor reading to a binary flight log. Start the logger once every module has been built.
+     * 
+     * @param logger the logger to write to
+     * @return the builder
+     * @see SwerveModuleFactory#withLogger(ModuleLogger)
+     */
+    public MkSwerveModuleBuilder withLogger(ModuleLogger logger) {
+        this.logger = logger;
+        return this;
+    }
+
     /**
      * Specify a gear ratio to use with this swerve module.
      * <p>
@@ -211,6 +308,19 @@ public class MkSwerveModuleBuilder {
         return this.withSteerEncoderPort(encoderPort, "");
     }
 
+    /**
+     * (Optional) Never block the control loop reading the module's CANCoder. A failed read
+     * returns the last good angle and is retried in the background.
+     * 
+     * @param stalenessToleranceSeconds how long the last good angle is trusted, in seconds
+     * @return the builder
+     * @see CanCoderAbsoluteConfiguration#withNonBlockingReads(double)
+     */
+    public MkSwerveModuleBuilder withNonBlockingSteerEncoderReads(double stalenessToleranceSeconds) {
+        this.steerEncoderStalenessTolerance = stalenessToleranceSeconds;
+        return this;
+    }
+
     /**
      * Specify details about the module's absolute encoder. Tells the module
      * to get the steer angle via an encoder connected to an analog channel.
@@ -224,6 +334,21 @@ public class MkSwerveModuleBuilder {
         return this;
     }
 
+    /**
+     * Specify details about the module's absolute encoder. Tells the module
+     * to get the steer angle via a duty cycle encoder wired to the steer
+     * motor's Spark MAX, and to close the steer loop on it. Requires a NEO
+     * steer motor.
+     * 
+     * @param inverted whether the encoder counts up as the module turns clockwise
+     * @return the builder
+     */
+    public MkSwerveModuleBuilder withSteerEncoderSparkMaxAbsolute(boolean inverted) {
+        this.steerEncoderType = EncoderType.SparkMaxAbsolute;
+        this.steerEncoderInverted = inverted;
+        return this;
+    }
+
     /**
      * Specify the module's absolute encoder offset.
      * 
@@ -241,6 +366,129 @@ public class MkSwerveModuleBuilder {
      * @return the built swerve module
      */
     public SwerveModule build() {
+        SwerveModuleFactory<Integer, SteerConfiguration> factory = createFactory();
+        SteerConfiguration steerConfig = createSteerConfiguration();
+
+        SwerveModule module;
+        if (container == null || telemetryPublisher != null) {
+            module = factory.create(
+                    driveMotorPort, 
+                    driveCanbus, 
+                    steerConfig, 
+                    steerCanbus
+            );
+        } else {
+            module = factory.create(
+                    container, 
+                    driveMotorPort, 
+                    driveCanbus, 
+                    steerConfig, 
+                    steerCanbus
+            );
+        }
+
+        if (telemetryPublisher != null) {
+            telemetryPublisher.addModule(module, container);
+        }
+        return module;
+    }
+
+    /**
+     * Build several swerve modules at once, configuring their motors and encoders concurrently.
+     * <p>
+     * Every device is normally configured one after another, each blocking on its CAN transactions. This
+     * configures the drive and steer controllers of every module on a pool of
+     * {@link #DEFAULT_CONFIGURATION_THREADS} threads instead. Configuration errors are reported to the driver
+     * station together once every device is done, along with how long each device took to configure.
+     * 
+     * @param builders the configured builders, one per module
+     * @return the built swerve modules, in the same order as {@code builders}
+     */
+    public static SwerveModule[] buildAll(MkSwerveModuleBuilder... builders) {
+        DeviceConfigurationReport report = new DeviceConfigurationReport();
+        SwerveModule[] modules = buildAll(DEFAULT_CONFIGURATION_THREADS, report, builders);
+        report.publish();
+        return modules;
+    }
+
+    /**
+     * Build several swerve modules at once, configuring their motors and encoders concurrently.
+     * 
+     * @param threads  maximum number of devices to configure at the same time
+     * @param report   collects the configuration time and errors of every device; not published
+     * @param builders the configured builders, one per module
+     * @return the built swerve modules, in the same order as {@code builders}
+     */
+    public static SwerveModule[] buildAll(int threads, DeviceConfigurationReport report,
+                                          MkSwerveModuleBuilder... builders) {
+        if (threads < 1) {
+            throw new RuntimeException("Configuration threads should be greater than 0!");
+        }
+
+        // Validate everything before touching any hardware
+        List<SwerveModuleFactory<Integer, SteerConfiguration>> factories = new ArrayList<>();
+        List<SteerConfiguration> steerConfigs = new ArrayList<>();
+        for (MkSwerveModuleBuilder builder : builders) {
+            factories.add(builder.createFactory());
+            steerConfigs.add(builder.createSteerConfiguration());
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "Swerve configuration " + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<CompletableFuture<SwerveModule>> futures = new ArrayList<>();
+            for (int i = 0; i < builders.length; i++) {
+                MkSwerveModuleBuilder builder = builders[i];
+                futures.add(factories.get(i).createAsync(
+                        executor,
+                        report,
+                        "Drive motor " + builder.driveMotorPort,
+                        "Steer motor " + builder.steerMotorPort + " (" + builder.steerEncoderType +
+                                (builder.steerEncoderType != EncoderType.SparkMaxAbsolute ? " " + builder.steerEncoderPort : "") + ")",
+                        builder.telemetryPublisher == null ? builder.container : null,
+                        builder.driveMotorPort,
+                        builder.driveCanbus,
+                        steerConfigs.get(i),
+                        builder.steerCanbus
+                ));
+            }
+
+            SwerveModule[] modules = new SwerveModule[builders.length];
+            RuntimeException failure = null;
+            for (int i = 0; i < modules.length; i++) {
+                try {
+                    modules[i] = futures.get(i).join();
+                } catch (CompletionException e) {
+                    // Keep waiting so every device gets into the report, then fail with the first problem
+                    if (failure == null) {
+                        failure = e.getCause() instanceof RuntimeException ?
+                                (RuntimeException) e.getCause() : e;
+                    }
+                }
+            }
+
+            if (failure != null) {
+                report.publish();
+                throw failure;
+            }
+
+            for (int i = 0; i < modules.length; i++) {
+                if (builders[i].telemetryPublisher != null) {
+                    builders[i].telemetryPublisher.addModule(modules[i], builders[i].container);
+                }
+            }
+            return modules;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private SwerveModuleFactory<Integer, SteerConfiguration> createFactory() {
         if (mechConfig == null) {
             throw new RuntimeException("Mechanical Config should not be null!");
         }
@@ -261,7 +509,11 @@ public class MkSwerveModuleBuilder {
             throw new RuntimeException("Steer Motor Port should be greater than 0!");
         }
 
-        if (steerEncoderPort < 0) {
+        if (steerEncoderType == EncoderType.SparkMaxAbsolute) {
+            if (steerMotorType != MotorType.NEO) {
+                throw new RuntimeException("Spark MAX Absolute Encoder requires a NEO Steer Motor!");
+            }
+        } else if (steerEncoderPort < 0) {
             throw new RuntimeException("Steer Encoder Port should be greater than 0!");
         }
 
@@ -270,7 +522,19 @@ public class MkSwerveModuleBuilder {
                 driveFactory, 
                 steerFactory
         );
+        if (sensorSnapshots) {
+            factory = factory.withSensorSnapshots();
+        }
+        if (instrumentation) {
+            factory = factory.withInstrumentation();
+        }
+        if (logger != null) {
+            factory = factory.withLogger(logger);
+        }
+        return factory;
+    }
 
+    private SteerConfiguration createSteerConfiguration() {
         AbsoluteEncoderConfiguration<?> encoderConfig;
 
         if (steerEncoderType == EncoderType.Analog) {
@@ -279,11 +543,25 @@ public class MkSwerveModuleBuilder {
                 steerOffset
             );
         } else if (steerEncoderType == EncoderType.CANCoder) {
-            encoderConfig = new CanCoderAbsoluteConfiguration(
+            CanCoderAbsoluteConfiguration canCoderConfig = new CanCoderAbsoluteConfiguration(
                 steerEncoderPort,
                 steerOffset,
                 steerEncoderCanbus
             );
+            StatusFrameProfile statusFrameProfile = configuration.getStatusFrameProfile();
+            canCoderConfig.withReadingUpdatePeriod(statusFrameProfile.getSteerEncoderPeriodMS());
+            if (statusFrameProfile.isUnusedFramesDisabled()) {
+                canCoderConfig.withUnusedFramesDisabled();
+            }
+            if (!Double.isNaN(steerEncoderStalenessTolerance)) {
+                canCoderConfig.withNonBlockingReads(steerEncoderStalenessTolerance);
+            }
+            encoderConfig = canCoderConfig;
+        } else if (steerEncoderType == EncoderType.SparkMaxAbsolute) {
+            encoderConfig = new SparkMaxAbsoluteEncoderConfiguration(
+                steerOffset,
+                steerEncoderInverted
+            );
         } else {
             throw new RuntimeException("Steer Encoder Type should not be null!");
         }
@@ -304,21 +582,6 @@ public class MkSwerveModuleBuilder {
             throw new RuntimeException("Steer Motor Type should not be null!");
         }
 
-        if (container == null) {
-            return factory.create(
-                    driveMotorPort, 
-                    driveCanbus, 
-                    steerConfig, 
-                    steerCanbus
-            );
-        } else {
-            return factory.create(
-                    container, 
-                    driveMotorPort, 
-                    driveCanbus, 
-                    steerConfig, 
-                    steerCanbus
-            );
-        }
+        return steerConfig;
     }
 }
@@ -0,0 +1,149 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The records of one or more files written by {@link ModuleLogger}, read fully into memory.
+ */
+public class ModuleLog {
+    private static final RecordType[] RECORD_TYPES = RecordType.values();
+
+    private final List<String> devices;
+    private final int recordCount;
+    private final short[] recordDevices;
+    private final RecordType[] types;
+    private final double[] timestamps;
+    private final double[] values;
+
+    private ModuleLog(List<String> devices, int recordCount, short[] recordDevices, RecordType[] types,
+                      double[] timestamps, double[] values) {
+        this.devices = devices;
+        this.recordCount = recordCount;
+        this.recordDevices = recordDevices;
+        this.types = types;
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    /**
+     * Reads log files written by the same logger, in the order they were written.
+     *
+     * @throws IOException              if a file can't be read
+     * @throws IllegalArgumentException if a file isn't a log, or the files don't all have the same devices
+     */
+    public static ModuleLog read(Path... files) throws IOException {
+        List<String> devices = null;
+        int count = 0;
+        short[] recordDevices = new short[0];
+        RecordType[] types = new RecordType[0];
+        double[] timestamps = new double[0];
+        double[] values = new double[0];
+
+        for (Path file : files) {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+
+            byte[] magic = new byte[ModuleLogger.MAGIC.length];
+            if (buffer.remaining() < magic.length) {
+                throw new IllegalArgumentException(file + " is not a module log");
+            }
+            buffer.get(magic);
+            if (!Arrays.equals(magic, ModuleLogger.MAGIC) || buffer.getInt() != ModuleLogger.RECORD_SIZE) {
+                throw new IllegalArgumentException(file + " is not a module log");
+            }
+
+            long syncNanos = buffer.getLong();
+            long syncMicros = buffer.getLong();
+            int deviceCount = buffer.getInt();
+            List<String> fileDevices = new ArrayList<>(deviceCount);
+            for (int i = 0; i < deviceCount; i++) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                fileDevices.add(new String(name, StandardCharsets.UTF_8));
+            }
+            if (devices == null) {
+                devices = List.copyOf(fileDevices);
+            } else if (!devices.equals(fileDevices)) {
+                throw new IllegalArgumentException(file + " was written with different devices");
+            }
+
+            // A log cut off by a power loss can end part way through a record
+            int fileCount = buffer.remaining() / ModuleLogger.RECORD_SIZE;
+            recordDevices = Arrays.copyOf(recordDevices, count + fileCount);
+            types = Arrays.copyOf(types, count + fileCount);
+            timestamps = Arrays.copyOf(timestamps, count + fileCount);
+            values = Arrays.copyOf(values, 3 * (count + fileCount));
+
+            for (int i = 0; i < fileCount; i++) {
+                int position = buffer.position() + i * ModuleLogger.RECORD_SIZE;
+                int index = count + i;
+                int type = buffer.getShort(position + 2);
+                if (type < 0 || type >= RECORD_TYPES.length) {
+                    throw new IllegalArgumentException(file + " has an unknown record type " + type);
+                }
+
+                recordDevices[index] = buffer.getShort(position);
+                types[index] = RECORD_TYPES[type];
+                // Convert to FPGA time using the pair of clock readings in the header
+                timestamps[index] = syncMicros * 1.0e-6 + (buffer.getLong(position + 8) - syncNanos) * 1.0e-9;
+                values[3 * index] = buffer.getDouble(position + 16);
+                values[3 * index + 1] = buffer.getDouble(position + 24);
+                values[3 * index + 2] = buffer.getDouble(position + 32);
+            }
+            count += fileCount;
+        }
+
+        if (devices == null) {
+            throw new IllegalArgumentException("At least one log file is required");
+        }
+        return new ModuleLog(devices, count, recordDevices, types, timestamps, values);
+    }
+
+    /**
+     * Gets the name of every device, indexed by {@link #getDevice(int)}.
+     */
+    public List<String> getDevices() {
+        return devices;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the index of the device a record was made by.
+     */
+    public int getDevice(int record) {
+        return recordDevices[record];
+    }
+
+    public RecordType getType(int record) {
+        return types[record];
+    }
+
+    /**
+     * Gets the FPGA time a record was made at, in seconds.
+     */
+    public double getTimestamp(int record) {
+        return timestamps[record];
+    }
+
+    /**
+     * Gets one of a record's values.
+     *
+     * @param record the record index
+     * @param value  0, 1 or 2
+     */
+    public double getValue(int record, int value) {
+        return values[3 * record + value];
+    }
+}
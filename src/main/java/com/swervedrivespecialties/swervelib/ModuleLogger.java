@@ -0,0 +1,457 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.Timer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Logs every command given to a module, every setpoint it sends to its controllers and every sensor reading to
+ * rotating binary files, without doing any file I/O on the caller's thread. Modules built on {@link IODriveController}
+ * and {@link IOSteerController} also log every read and output that goes through their IO.
+ * <p>
+ * Records are written into preallocated direct buffers. Full buffers are handed to a background thread, which
+ * appends them to the current log file. When a file reaches its size limit a new one is started, and the oldest files
+ * are deleted so the directory never holds more than the configured number. Files are named
+ * {@code swervelib-NNNNNN.bin}, numbered on from the newest file already in the directory, so the limit also counts
+ * files left by earlier runs and sorting the names puts the files in the order they were written. If the writer falls
+ * behind and every buffer is full, records are dropped and counted instead of blocking the caller.
+ * <p>
+ * Each file starts with a header: the 8 byte magic {@code "SWLOG\0\0\1"}, the 32-bit record size, a 64-bit
+ * {@link System#nanoTime()} and the 64-bit FPGA time in microseconds (or the time of the clock set with
+ * {@link #withClock(java.util.function.DoubleSupplier)}) read at the same moment, the 32-bit number of
+ * devices, then each device's name as a 16-bit length followed by UTF-8 bytes. Records follow, each
+ * {@link #RECORD_SIZE} bytes: a 16-bit device index, a 16-bit {@link RecordType} ordinal, 4 bytes of padding, a 64-bit
+ * {@link System#nanoTime()} timestamp and three 64-bit double values. Everything is little-endian.
+ * {@link ModuleLog} reads the files back.
+ * <p>
+ * Modules are registered by {@link SwerveModuleFactory#withLogger(ModuleLogger)} when they are created, which must
+ * happen before {@link #start()}.
+ */
+public class ModuleLogger implements AutoCloseable {
+    public static final int RECORD_SIZE = 40;
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+    public static final long DEFAULT_MAX_FILE_BYTES = 32L * 1024 * 1024;
+    public static final int DEFAULT_MAX_FILES = 8;
+
+    static final byte[] MAGIC = {'S', 'W', 'L', 'O', 'G', 0, 0, 1};
+    private static final String FILE_PREFIX = "swervelib-";
+    private static final String FILE_SUFFIX = ".bin";
+    private static final String FILE_INDEX_FORMAT = "%06d";
+
+    /**
+     * What a record holds. Unused values are 0.
+     */
+    public enum RecordType {
+        /** The drive controller was given a voltage. */
+        SET_DRIVE_VOLTAGE,
+        /** The drive controller was given a velocity in m/s and a feedforward in volts. */
+        SET_DRIVE_VELOCITY,
+        /** The drive velocity was read, in m/s. */
+        DRIVE_VELOCITY,
+        /** The drive distance was read, in meters. */
+        DRIVE_DISTANCE,
+        /** The steer controller was given an angle, in radians. */
+        SET_STEER_ANGLE,
+        /** The steer angle was read, in radians. */
+        STEER_ANGLE,
+        /** {@link SwerveModule#set(double, double)} was called with a voltage and a steer angle in radians. */
+        MODULE_SET,
+        /**
+         * {@link SwerveModule#setVelocity(double, double, double)} was called with a velocity in m/s, a feedforward in
+         * volts and a steer angle in radians.
+         */
+        MODULE_SET_VELOCITY,
+        /** {@link SwerveModule#refresh()} was called. */
+        MODULE_REFRESH,
+        /** The drive IO's position was read, in meters. */
+        DRIVE_IO_POSITION,
+        /** The drive IO's velocity was read, in m/s. */
+        DRIVE_IO_VELOCITY,
+        /** The drive IO's supply voltage was read, in volts. */
+        DRIVE_IO_SUPPLY_VOLTAGE,
+        /** The drive IO was sent a voltage. */
+        DRIVE_IO_SET_VOLTAGE,
+        /** The drive IO was sent a velocity in m/s and a feedforward in volts. */
+        DRIVE_IO_SET_VELOCITY,
+        /** The steer IO's position was read, in radians. */
+        STEER_IO_POSITION,
+        /** The steer IO's velocity was read, in rad/s. */
+        STEER_IO_VELOCITY,
+        /** The steer IO was sent a position, in radians. */
+        STEER_IO_SET_POSITION,
+        /** The steer IO's position was reset to an angle, in radians. */
+        STEER_IO_RESET_POSITION,
+        /**
+         * The encoder IO was read, giving an angle in radians, 1 if the reading was valid or 0 if not, and the FPGA
+         * time it was read from the hardware in seconds.
+         */
+        ENCODER_IO_ANGLE
+    }
+
+    private final Path directory;
+    private final long maxFileBytes;
+    private final int maxFiles;
+
+    private final List<String> devices = new ArrayList<>();
+    private final Map<String, Integer> deviceCounts = new HashMap<>();
+
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private final BlockingQueue<ByteBuffer> fullBuffers;
+    private ByteBuffer currentBuffer;
+    private final AtomicLong droppedRecords = new AtomicLong();
+    // Buffers handed to the writer and buffers it has finished with, guarded by the lock
+    private long handedBuffers = 0;
+    private long writtenBuffers = 0;
+
+    private final Deque<Path> files = new ArrayDeque<>();
+    private FileChannel channel = null;
+    private long fileBytes = 0;
+    private long fileIndex = 0;
+
+    private DoubleSupplier clock = Timer::getFPGATimestamp;
+    private Thread thread = null;
+    private volatile boolean running = false;
+
+    /**
+     * Creates a new logger.
+     *
+     * @param directory    The directory to write log files to. Created if it doesn't exist.
+     * @param bufferSize   The size of each buffer in bytes. Rounded down to a whole number of records.
+     * @param bufferCount  The number of buffers. One is filled while the rest wait to be written.
+     * @param maxFileBytes The size a log file may grow to before a new one is started.
+     * @param maxFiles     The number of log files kept, including the one being written.
+     */
+    public ModuleLogger(Path directory, int bufferSize, int bufferCount, long maxFileBytes, int maxFiles) {
+        if (bufferSize < RECORD_SIZE || bufferCount < 2) {
+            throw new IllegalArgumentException("At least two buffers of at least one record are required");
+        }
+        if (maxFiles < 1) {
+            throw new IllegalArgumentException("At least one log file must be kept");
+        }
+
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+
+        int capacity = bufferSize - bufferSize % RECORD_SIZE;
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        this.fullBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount - 1; i++) {
+            freeBuffers.add(ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN));
+        }
+        this.currentBuffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public ModuleLogger(Path directory) {
+        this(directory, DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT, DEFAULT_MAX_FILE_BYTES, DEFAULT_MAX_FILES);
+    }
+
+    /**
+     * Sets the clock, in seconds, whose time is written to each file's header along with {@link System#nanoTime()}.
+     * Defaults to the FPGA timestamp. Supplying a manually advanced clock lets the logger run without the HAL.
+     * Must be called before {@link #start()}.
+     *
+     * @param clock the clock to read
+     * @return this logger
+     */
+    public synchronized ModuleLogger withClock(DoubleSupplier clock) {
+        if (clock == null) {
+            throw new RuntimeException("Clock should not be null!");
+        }
+        if (thread != null) {
+            throw new IllegalStateException("The clock can't be set after the logger is started");
+        }
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Registers a device, returning the index its records are written with. Devices are named by their kind and the
+     * order they were registered in, such as {@code "Drive 0"}, and the names are written to each log file's header.
+     *
+     * @param kind the kind of device, such as {@code "Drive"}
+     */
+    synchronized int registerDevice(String kind) {
+        if (thread != null) {
+            throw new IllegalStateException("Devices can't be registered after the logger is started");
+        }
+        int number = deviceCounts.merge(kind, 1, Integer::sum) - 1;
+        devices.add(kind + " " + number);
+        return devices.size() - 1;
+    }
+
+    /**
+     * Gets the name of every registered device, indexed by the device index written in its records.
+     */
+    public synchronized List<String> getDevices() {
+        return List.copyOf(devices);
+    }
+
+    /**
+     * Starts the background writer.
+     *
+     * @throws IOException if the log directory or first log file can't be created
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        findExistingFiles();
+        openNextFile();
+
+        running = true;
+        thread = new Thread(this::run, "ModuleLogger");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Writes a record. Safe to call from any thread; never blocks on I/O.
+     *
+     * @param device the device index from registration
+     * @param type   what the record holds
+     * @param value0 the first value
+     * @param value1 the second value
+     * @param value2 the third value
+     */
+    void log(int device, RecordType type, double value0, double value1, double value2) {
+        long timestamp = System.nanoTime();
+        synchronized (this) {
+            ByteBuffer buffer = currentBuffer;
+            if (buffer == null || !running) {
+                droppedRecords.incrementAndGet();
+                return;
+            }
+
+            int position = buffer.position();
+            buffer.putShort(position, (short) device);
+            buffer.putShort(position + 2, (short) type.ordinal());
+            buffer.putInt(position + 4, 0);
+            buffer.putLong(position + 8, timestamp);
+            buffer.putDouble(position + 16, value0);
+            buffer.putDouble(position + 24, value1);
+            buffer.putDouble(position + 32, value2);
+            buffer.position(position + RECORD_SIZE);
+
+            if (!buffer.hasRemaining()) {
+                swapBuffer();
+            }
+        }
+    }
+
+    // Must hold the lock
+    private void swapBuffer() {
+        fullBuffers.offer(currentBuffer);
+        handedBuffers++;
+        // If every other buffer is still waiting to be written, records are dropped until one comes back
+        currentBuffer = freeBuffers.poll();
+    }
+
+    /**
+     * Hands the partly filled buffer to the writer, so everything logged so far reaches the file soon.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (currentBuffer != null && currentBuffer.position() > 0) {
+                swapBuffer();
+            }
+        }
+    }
+
+    /**
+     * Hands the partly filled buffer to the writer and waits until every buffer handed to it so far has been written.
+     * Blocks on I/O, so it shouldn't be called from the control loop.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void flushAndWait() throws InterruptedException {
+        flush();
+        long target = handedBuffers;
+        while (writtenBuffers < target && running) {
+            wait();
+        }
+    }
+
+    /**
+     * Gets the number of records dropped because every buffer was waiting to be written, or because the logger wasn't
+     * running.
+     */
+    public long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    /**
+     * Stops the writer after writing everything logged so far, and closes the log file.
+     */
+    @Override
+    public void close() throws IOException {
+        Thread thread;
+        synchronized (this) {
+            thread = this.thread;
+            if (thread == null) {
+                return;
+            }
+            flush();
+            running = false;
+            // Release anyone in flushAndWait(), the join below waits for the writer instead
+            notifyAll();
+        }
+
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            this.thread = null;
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            ByteBuffer buffer;
+            try {
+                buffer = fullBuffers.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (buffer == null) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+
+            buffer.flip();
+            try {
+                write(buffer);
+            } catch (IOException e) {
+                droppedRecords.addAndGet(buffer.remaining() / RECORD_SIZE);
+            }
+            buffer.clear();
+
+            synchronized (this) {
+                if (currentBuffer == null) {
+                    currentBuffer = buffer;
+                } else {
+                    freeBuffers.offer(buffer);
+                }
+                writtenBuffers++;
+                notifyAll();
+            }
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (fileBytes >= maxFileBytes) {
+            openNextFile();
+        }
+        while (buffer.hasRemaining()) {
+            fileBytes += channel.write(buffer);
+        }
+    }
+
+    // Adds the log files already in the directory, oldest first, and numbers new files after the newest of them
+    private void findExistingFiles() throws IOException {
+        List<Path> existing = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                existing.add(file);
+            }
+        }
+        // Files without a number, such as ones from older versions, are treated as the oldest
+        existing.sort(Comparator.comparingLong(ModuleLogger::getFileIndex).thenComparing(Path::toString));
+
+        files.clear();
+        files.addAll(existing);
+        if (!existing.isEmpty()) {
+            fileIndex = Math.max(fileIndex, getFileIndex(existing.get(existing.size() - 1)) + 1);
+        }
+    }
+
+    private static long getFileIndex(Path file) {
+        String name = file.getFileName().toString();
+        String index = name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length());
+        try {
+            return Long.parseLong(index);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void openNextFile() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+
+        while (files.size() >= maxFiles) {
+            Files.deleteIfExists(files.removeFirst());
+        }
+
+        Path file = directory.resolve(FILE_PREFIX + String.format(FILE_INDEX_FORMAT, fileIndex++) + FILE_SUFFIX);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        files.addLast(file);
+
+        ByteBuffer header = createHeader();
+        fileBytes = 0;
+        while (header.hasRemaining()) {
+            fileBytes += channel.write(header);
+        }
+    }
+
+    private ByteBuffer createHeader() {
+        List<byte[]> names = new ArrayList<>();
+        int size = MAGIC.length + Integer.BYTES + 2 * Long.BYTES + Integer.BYTES;
+        synchronized (this) {
+            for (String device : devices) {
+                byte[] name = device.getBytes(StandardCharsets.UTF_8);
+                names.add(name);
+                size += Short.BYTES + name.length;
+            }
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        header.put(MAGIC);
+        header.putInt(RECORD_SIZE);
+        header.putLong(System.nanoTime());
+        header.putLong((long) (clock.getAsDouble() * 1.0e6));
+        header.putInt(names.size());
+        for (byte[] name : names) {
+            header.putShort((short) name.length);
+            header.put(name);
+        }
+        header.flip();
+        return header;
+    }
+}
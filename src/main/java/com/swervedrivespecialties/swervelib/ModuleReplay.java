@@ -0,0 +1,471 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * Replays a {@link ModuleLog} through modules built by a {@link SwerveModuleFactory}, and checks that they send the
+ * same outputs to their hardware as the logged modules did.
+ * <p>
+ * The modules are built on an {@link IODriveController} and an {@link IOSteerController} from
+ * {@link #getDriveControllerFactory()} and {@link #getSteerControllerFactory()}, over replay IO that reads back the
+ * logged {@link DriveIO}, {@link SteerIO} and {@link EncoderIO} inputs and captures the outputs it is sent instead of
+ * touching any hardware. Everything above the IO runs for real: the module's optimization and the steer controller's
+ * unwrapping and encoder resets. The log must come from modules whose controllers are built on those IO controllers,
+ * and that don't coalesce their writes.
+ * <p>
+ * The log is stepped through in order. Each logged {@link SwerveModule#set(double, double)},
+ * {@link SwerveModule#setVelocity(double, double, double)} or {@link SwerveModule#refresh()} call is made again on the
+ * replayed module, whose IO reads are served from the module's IO reads logged after the command and before its next
+ * one. Each logged IO output is then compared with the next one the replayed module produced. A read the log doesn't
+ * have, an output that was produced but not logged and one that was logged but not produced all count as
+ * mismatches.
+ * <p>
+ * Nothing waits for the logged timestamps, so replays run as fast as the module code does and always give the same
+ * result for the same log. The modules' clock is replaced with one that reads the timestamp of the record being
+ * replayed, so replays don't need the HAL.
+ */
+public class ModuleReplay {
+    private static final String MODULE_PREFIX = "Module ";
+
+    private final ModuleLog log;
+    // Module number of each logged device, or -1 if it isn't a module
+    private final int[] deviceModules;
+    private final int moduleCount;
+    // For each command record, the index of its module's next command record, or the record count if there is none
+    private final int[] nextCommands;
+
+    private final ReplayModule[] replayModules;
+    private boolean absoluteSteerFeedback = false;
+    private boolean continuousSteerInput = false;
+    // Timestamp of the record being replayed, in seconds
+    private double replayTime = Double.NaN;
+
+    public ModuleReplay(ModuleLog log) {
+        this.log = log;
+
+        int moduleCount = 0;
+        deviceModules = new int[log.getDevices().size()];
+        for (int i = 0; i < deviceModules.length; i++) {
+            String name = log.getDevices().get(i);
+            deviceModules[i] = name.startsWith(MODULE_PREFIX)
+                    ? Integer.parseInt(name.substring(MODULE_PREFIX.length()))
+                    : -1;
+            moduleCount = Math.max(moduleCount, deviceModules[i] + 1);
+        }
+        this.moduleCount = moduleCount;
+
+        nextCommands = new int[log.getRecordCount()];
+        int[] nextModuleCommands = new int[moduleCount];
+        Arrays.fill(nextModuleCommands, log.getRecordCount());
+        for (int record = log.getRecordCount() - 1; record >= 0; record--) {
+            int module = deviceModules[log.getDevice(record)];
+            if (module >= 0 && isCommand(log.getType(record))) {
+                nextCommands[record] = nextModuleCommands[module];
+                nextModuleCommands[module] = record;
+            }
+        }
+
+        replayModules = new ReplayModule[moduleCount];
+    }
+
+    private static boolean isCommand(RecordType type) {
+        return type == RecordType.MODULE_SET || type == RecordType.MODULE_SET_VELOCITY
+                || type == RecordType.MODULE_REFRESH;
+    }
+
+    /**
+     * Replays the steer motors as if their position loop's sensor were absolute, so it is never reset from the
+     * absolute encoder. Must match the logged modules' {@link SteerIO#hasAbsoluteFeedback()}.
+     *
+     * @return this replay
+     */
+    public ModuleReplay withAbsoluteSteerFeedback() {
+        absoluteSteerFeedback = true;
+        return this;
+    }
+
+    /**
+     * Replays the steer motors as if their position loop treated [0, 2pi) as continuous, so targets are sent without
+     * being unwrapped. Must match the logged modules' {@link SteerIO#isContinuousInput()}.
+     *
+     * @return this replay
+     */
+    public ModuleReplay withContinuousSteerInput() {
+        continuousSteerInput = true;
+        return this;
+    }
+
+    /**
+     * Gets the number of modules in the log.
+     */
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Gets a factory for drive controllers on replay IO. The configuration is the module number in the log.
+     */
+    public DriveControllerFactory<?, Integer> getDriveControllerFactory() {
+        return (module, canbus, mechConfiguration) -> {
+            ReplayModule replayModule = replayModules[module];
+            replayModule.driveController = new IODriveController(replayModule.driveIO);
+            return replayModule.driveController;
+        };
+    }
+
+    /**
+     * Gets a factory for steer controllers on replay IO. The configuration is the module number in the log.
+     */
+    public SteerControllerFactory<?, Integer> getSteerControllerFactory() {
+        return (module, canbus, mechConfiguration) -> {
+            ReplayModule replayModule = replayModules[module];
+            replayModule.steerController = new IOSteerController(replayModule.steerIO, replayModule.absoluteEncoder,
+                    replayModule.encoderIO);
+            return replayModule.steerController;
+        };
+    }
+
+    /**
+     * Replays the log through new modules.
+     *
+     * @param factory   Creates the modules. Must be built on this replay's controller factories, and may enable
+     *                  options such as sensor snapshots.
+     * @param tolerance The largest difference between a logged and replayed output that still counts as a match.
+     * @return how closely the replayed outputs matched the logged ones
+     */
+    public Result run(SwerveModuleFactory<Integer, Integer> factory, double tolerance) {
+        Result result = new Result(moduleCount);
+        for (int i = 0; i < moduleCount; i++) {
+            replayModules[i] = new ReplayModule(i, result);
+        }
+
+        replayTime = Double.NaN;
+
+        factory = factory.withClock(() -> replayTime);
+        SwerveModule[] modules = new SwerveModule[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            modules[i] = factory.create(i, i);
+            if (replayModules[i].driveController == null || replayModules[i].steerController == null) {
+                throw new IllegalArgumentException("Factory must be built on the replay controller factories");
+            }
+        }
+
+        for (int record = 0; record < log.getRecordCount(); record++) {
+            int module = deviceModules[log.getDevice(record)];
+            if (module < 0) {
+                continue;
+            }
+
+            replayTime = log.getTimestamp(record);
+            ReplayModule replayModule = replayModules[module];
+            RecordType type = log.getType(record);
+            double value0 = log.getValue(record, 0);
+            double value1 = log.getValue(record, 1);
+            switch (type) {
+                case MODULE_SET:
+                case MODULE_SET_VELOCITY:
+                case MODULE_REFRESH:
+                    replayModule.discardOutputs(record);
+                    replayModule.beginCommand(record);
+                    if (type == RecordType.MODULE_SET) {
+                        modules[module].set(value0, value1);
+                    } else if (type == RecordType.MODULE_SET_VELOCITY) {
+                        modules[module].setVelocity(value0, value1, log.getValue(record, 2));
+                    } else {
+                        modules[module].refresh();
+                    }
+                    replayModule.endCommand();
+                    if (type != RecordType.MODULE_REFRESH) {
+                        result.commands[module]++;
+                    }
+                    break;
+                case DRIVE_IO_SET_VOLTAGE:
+                case DRIVE_IO_SET_VELOCITY:
+                case STEER_IO_SET_POSITION:
+                case STEER_IO_RESET_POSITION:
+                    Output output = replayModule.outputs.poll();
+                    if (output == null || output.type != type) {
+                        result.mismatch(module, record);
+                    } else {
+                        result.compare(module, record, value0 - output.value0, tolerance);
+                        if (type == RecordType.DRIVE_IO_SET_VELOCITY) {
+                            result.compare(module, record, value1 - output.value1, tolerance);
+                        }
+                    }
+                    break;
+                default:
+                    // IO reads are served to the command they follow, and the module level records aren't needed
+                    break;
+            }
+        }
+
+        for (int i = 0; i < moduleCount; i++) {
+            replayModules[i].discardOutputs(log.getRecordCount() - 1);
+        }
+
+        return result;
+    }
+
+    /**
+     * How closely the outputs of a replay matched the logged ones.
+     */
+    public static class Result {
+        private final int[] commands;
+        private final int[] setpoints;
+        private final int[] mismatches;
+        private final double[] maxErrors;
+        private int firstMismatch = -1;
+
+        private Result(int moduleCount) {
+            commands = new int[moduleCount];
+            setpoints = new int[moduleCount];
+            mismatches = new int[moduleCount];
+            maxErrors = new double[moduleCount];
+        }
+
+        private void compare(int module, int record, double error, double tolerance) {
+            setpoints[module]++;
+            error = Math.abs(error);
+            maxErrors[module] = Math.max(maxErrors[module], error);
+            // NaN never matches
+            if (!(error <= tolerance)) {
+                mismatch(module, record);
+            }
+        }
+
+        private void mismatch(int module, int record) {
+            mismatches[module]++;
+            if (firstMismatch < 0) {
+                firstMismatch = record;
+            }
+        }
+
+        /**
+         * Gets the number of module commands replayed.
+         */
+        public int getCommands(int module) {
+            return commands[module];
+        }
+
+        /**
+         * Gets the number of output values compared.
+         */
+        public int getSetpoints(int module) {
+            return setpoints[module];
+        }
+
+        /**
+         * Gets the number of output values that differed by more than the tolerance, outputs that were produced but
+         * not logged or logged but not produced, and reads the log didn't have.
+         */
+        public int getMismatches(int module) {
+            return mismatches[module];
+        }
+
+        /**
+         * Gets the largest difference between a logged and replayed output value.
+         */
+        public double getMaxError(int module) {
+            return maxErrors[module];
+        }
+
+        /**
+         * Gets the index of the first record that didn't match, or -1 if every record matched.
+         */
+        public int getFirstMismatch() {
+            return firstMismatch;
+        }
+
+        public boolean isMatch() {
+            return firstMismatch < 0;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(isMatch() ? "Replay matched" : "Replay mismatched at record "
+                    + firstMismatch);
+            for (int i = 0; i < commands.length; i++) {
+                builder.append(String.format("%nModule %d: %d commands, %d/%d outputs mismatched, max error %.6g",
+                        i, commands[i], mismatches[i], setpoints[i], maxErrors[i]));
+            }
+            return builder.toString();
+        }
+    }
+
+    private static final class Output {
+        private final RecordType type;
+        private final double value0;
+        private final double value1;
+
+        private Output(RecordType type, double value0, double value1) {
+            this.type = type;
+            this.value0 = value0;
+            this.value1 = value1;
+        }
+    }
+
+    /**
+     * One module's replay IO, and where it is in the log.
+     */
+    private final class ReplayModule {
+        private final int module;
+        private final Result result;
+
+        // Where the next read of each type is searched for from, by record type ordinal
+        private final int[] readCursors = new int[RecordType.values().length];
+        // The command being replayed and the record its reads end before, or -1 between commands
+        private int command = -1;
+        private int commandEnd = -1;
+        private double encoderAngle = 0.0;
+
+        // Set by the factories, to check the modules were built on them
+        private IODriveController driveController;
+        private IOSteerController steerController;
+
+        // Outputs the module produced that haven't been compared yet
+        private final Deque<Output> outputs = new ArrayDeque<>();
+
+        private final DriveIO driveIO = new DriveIO() {
+            @Override
+            public double getPositionMeters() {
+                return read(RecordType.DRIVE_IO_POSITION);
+            }
+
+            @Override
+            public double getVelocityMetersPerSecond() {
+                return read(RecordType.DRIVE_IO_VELOCITY);
+            }
+
+            @Override
+            public double getSupplyVoltage() {
+                return read(RecordType.DRIVE_IO_SUPPLY_VOLTAGE);
+            }
+
+            @Override
+            public void setVoltage(double volts) {
+                outputs.add(new Output(RecordType.DRIVE_IO_SET_VOLTAGE, volts, 0.0));
+            }
+
+            @Override
+            public void setVelocity(double metersPerSecond, double feedforwardVolts) {
+                outputs.add(new Output(RecordType.DRIVE_IO_SET_VELOCITY, metersPerSecond, feedforwardVolts));
+            }
+
+            @Override
+            public MotorController getMotor() {
+                return null;
+            }
+        };
+
+        private final SteerIO steerIO = new SteerIO() {
+            @Override
+            public double getPositionRadians() {
+                return read(RecordType.STEER_IO_POSITION);
+            }
+
+            @Override
+            public double getVelocityRadiansPerSecond() {
+                return read(RecordType.STEER_IO_VELOCITY);
+            }
+
+            @Override
+            public void setPosition(double positionRadians) {
+                outputs.add(new Output(RecordType.STEER_IO_SET_POSITION, positionRadians, 0.0));
+            }
+
+            @Override
+            public void resetPosition(double positionRadians) {
+                outputs.add(new Output(RecordType.STEER_IO_RESET_POSITION, positionRadians, 0.0));
+            }
+
+            @Override
+            public boolean hasAbsoluteFeedback() {
+                return absoluteSteerFeedback;
+            }
+
+            @Override
+            public boolean isContinuousInput() {
+                return continuousSteerInput;
+            }
+
+            @Override
+            public MotorController getMotor() {
+                return null;
+            }
+        };
+
+        private final EncoderIO encoderIO = inputs -> {
+            int record = findRead(RecordType.ENCODER_IO_ANGLE);
+            if (record < 0) {
+                inputs.absoluteAngleRadians = Double.NaN;
+                inputs.valid = false;
+                inputs.timestamp = Double.NaN;
+                return;
+            }
+            encoderAngle = log.getValue(record, 0);
+            inputs.absoluteAngleRadians = encoderAngle;
+            inputs.valid = log.getValue(record, 1) != 0.0;
+            inputs.timestamp = log.getValue(record, 2);
+        };
+
+        private final AbsoluteEncoder absoluteEncoder = () -> encoderAngle;
+
+        private ReplayModule(int module, Result result) {
+            this.module = module;
+            this.result = result;
+        }
+
+        private void beginCommand(int record) {
+            command = record;
+            commandEnd = nextCommands[record];
+        }
+
+        private void endCommand() {
+            command = -1;
+            commandEnd = -1;
+        }
+
+        // Counts every output produced since the last one was compared as a mismatch
+        private void discardOutputs(int record) {
+            while (outputs.poll() != null) {
+                result.mismatch(module, record);
+            }
+        }
+
+        private double read(RecordType type) {
+            int record = findRead(type);
+            return record >= 0 ? log.getValue(record, 0) : Double.NaN;
+        }
+
+        /**
+         * Finds the next logged read of a type that belongs to the command being replayed.
+         *
+         * @return the read's record, or -1 if there isn't one
+         */
+        private int findRead(RecordType type) {
+            // The snapshot wrappers refresh once when they are created, before any command was logged
+            if (command < 0) {
+                return -1;
+            }
+
+            int record = Math.max(readCursors[type.ordinal()], command + 1);
+            while (record < commandEnd
+                    && (deviceModules[log.getDevice(record)] != module || log.getType(record) != type)) {
+                record++;
+            }
+            if (record >= commandEnd) {
+                readCursors[type.ordinal()] = commandEnd;
+                result.mismatch(module, command);
+                return -1;
+            }
+
+            readCursors[type.ordinal()] = record + 1;
+            return record;
+        }
+    }
+}
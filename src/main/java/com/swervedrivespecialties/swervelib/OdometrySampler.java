@@ -0,0 +1,211 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Timer;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Samples module positions on a background {@link Notifier} so odometry can be updated faster than the main loop.
+ * <p>
+ * Every period the sampler reads the drive distance and steer angle of each module, plus an optional gyro angle, and
+ * pushes them with an FPGA timestamp into a lock-free ring buffer. The main loop then drains every sample taken since
+ * the last cycle with {@link #poll(Sample)} and feeds them to odometry or a pose estimator in order.
+ * <p>
+ * The sampler reads the modules through their getters, so it should be used with modules that read their sensors on
+ * demand. Modules with sensor snapshots enabled only change when {@link SwerveModule#refresh()} is called.
+ */
+public class OdometrySampler implements AutoCloseable {
+    public static final double DEFAULT_FREQUENCY = 200.0;
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final int TIMESTAMP_INDEX = 0;
+    private static final int GYRO_INDEX = 1;
+    private static final int HEADER_WIDTH = 2;
+
+    private final SwerveModule[] modules;
+    private final DoubleSupplier gyroAngle;
+    private final double period;
+
+    private final DoubleRingBuffer buffer;
+    private final double[] writeRecord;
+    private final double[] readRecord;
+
+    private final Notifier notifier;
+    private boolean running = false;
+
+    /**
+     * Creates a new sampler.
+     *
+     * @param modules   The modules to sample.
+     * @param gyroAngle Supplies the robot's heading in radians, read in the same sample as the modules. May be null.
+     * @param frequency The sampling frequency in Hz. 100 to 250 Hz is recommended.
+     * @param capacity  The number of samples buffered between drains. Samples taken while the buffer is full are
+     *                  dropped.
+     */
+    public OdometrySampler(SwerveModule[] modules, DoubleSupplier gyroAngle, double frequency, int capacity) {
+        if (!(frequency > 0.0)) {
+            throw new IllegalArgumentException("Sampling frequency must be positive");
+        }
+
+        this.modules = modules.clone();
+        this.gyroAngle = gyroAngle;
+        this.period = 1.0 / frequency;
+
+        int recordWidth = HEADER_WIDTH + 2 * modules.length;
+        this.buffer = new DoubleRingBuffer(recordWidth, capacity);
+        this.writeRecord = new double[recordWidth];
+        this.readRecord = new double[recordWidth];
+
+        this.notifier = new Notifier(this::sample);
+        this.notifier.setName("OdometrySampler");
+    }
+
+    public OdometrySampler(SwerveModule[] modules, DoubleSupplier gyroAngle, double frequency) {
+        this(modules, gyroAngle, frequency, DEFAULT_CAPACITY);
+    }
+
+    public OdometrySampler(SwerveModule[] modules, DoubleSupplier gyroAngle) {
+        this(modules, gyroAngle, DEFAULT_FREQUENCY);
+    }
+
+    /**
+     * Starts sampling in the background.
+     */
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            notifier.startPeriodic(period);
+        }
+    }
+
+    /**
+     * Stops sampling. Samples already buffered can still be polled.
+     */
+    public synchronized void stop() {
+        if (running) {
+            running = false;
+            notifier.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        notifier.close();
+    }
+
+    private void sample() {
+        int moduleCount = modules.length;
+
+        writeRecord[TIMESTAMP_INDEX] = Timer.getFPGATimestamp();
+        writeRecord[GYRO_INDEX] = gyroAngle != null ? gyroAngle.getAsDouble() : Double.NaN;
+        for (int i = 0; i < moduleCount; i++) {
+            writeRecord[HEADER_WIDTH + i] = modules[i].getDriveDistance();
+            writeRecord[HEADER_WIDTH + moduleCount + i] = modules[i].getSteerAngle();
+        }
+
+        buffer.offer(writeRecord);
+    }
+
+    /**
+     * Creates a sample sized for this sampler's modules, to be reused with {@link #poll(Sample)}.
+     */
+    public Sample createSample() {
+        return new Sample(modules.length);
+    }
+
+    /**
+     * Removes the oldest buffered sample. Must only be called from one thread, typically the main robot loop.
+     *
+     * @param sample Filled with the removed sample.
+     * @return true if a sample was removed, false if there were none waiting
+     */
+    public boolean poll(Sample sample) {
+        if (!buffer.poll(readRecord)) {
+            return false;
+        }
+
+        int moduleCount = modules.length;
+        sample.timestamp = readRecord[TIMESTAMP_INDEX];
+        sample.gyroAngle = readRecord[GYRO_INDEX];
+        System.arraycopy(readRecord, HEADER_WIDTH, sample.distances, 0, moduleCount);
+        System.arraycopy(readRecord, HEADER_WIDTH + moduleCount, sample.angles, 0, moduleCount);
+        return true;
+    }
+
+    /**
+     * Gets the number of samples waiting to be polled.
+     */
+    public int getPendingSamples() {
+        return buffer.size();
+    }
+
+    /**
+     * Gets the number of samples dropped because they were not polled fast enough.
+     */
+    public long getDroppedSamples() {
+        return buffer.getDroppedRecords();
+    }
+
+    /**
+     * A single timestamped sample of every module's position.
+     */
+    public static class Sample {
+        private double timestamp = Double.NaN;
+        private double gyroAngle = Double.NaN;
+        private final double[] distances;
+        private final double[] angles;
+
+        private Sample(int moduleCount) {
+            this.distances = new double[moduleCount];
+            this.angles = new double[moduleCount];
+        }
+
+        /**
+         * Gets the FPGA timestamp, in seconds, the sample was taken at.
+         */
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Gets the gyro angle in radians, or NaN if the sampler has no gyro.
+         */
+        public double getGyroAngle() {
+            return gyroAngle;
+        }
+
+        /**
+         * Gets each module's drive distance in meters.
+         */
+        public double[] getDistances() {
+            return distances;
+        }
+
+        /**
+         * Gets each module's steer angle in radians from [0, 2pi).
+         */
+        public double[] getAngles() {
+            return angles;
+        }
+
+        /**
+         * Writes the sample into existing module position objects.
+         *
+         * @param positions filled with each module's position
+         * @return {@code positions}, for chaining
+         */
+        public SwerveModulePosition[] getPositions(SwerveModulePosition[] positions) {
+            for (int i = 0; i < distances.length; i++) {
+                positions[i].distanceMeters = distances[i];
+                if (positions[i].angle.getRadians() != angles[i]) {
+                    positions[i].angle = Rotation2d.fromRadians(angles[i]);
+                }
+            }
+            return positions;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.swervedrivespecialties.swervelib;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The fixed binary layout {@link TelemetryPublisher} packs every module's state into, and a decoder for it.
+ * <p>
+ * All values are little-endian. The header is a 32-bit layout version, a 32-bit module count and the FPGA timestamp
+ * the record was made at, as a 64-bit double. Each module follows as {@link #MODULE_FIELDS} 64-bit doubles, in the
+ * order of {@link #FIELD_NAMES}. Angles are in radians, velocities in m/s, distances in meters, voltages in volts and
+ * timestamps in seconds.
+ */
+public class PackedModuleStates {
+    /**
+     * The type string of the NetworkTables raw topic the states are published to.
+     */
+    public static final String TYPE_STRING = "swervelib.PackedModuleStates";
+    public static final int VERSION = 1;
+
+    public static final int TARGET_ANGLE = 0;
+    public static final int ANGLE = 1;
+    public static final int VELOCITY = 2;
+    public static final int DISTANCE = 3;
+    public static final int TARGET_VOLTAGE = 4;
+    public static final int TIMESTAMP = 5;
+    public static final int MODULE_FIELDS = 6;
+
+    /**
+     * Names of each module's fields, indexed by the field constants.
+     */
+    public static final String[] FIELD_NAMES = {
+            "targetAngle",
+            "angle",
+            "velocity",
+            "distance",
+            "targetVoltage",
+            "timestamp"
+    };
+
+    private static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + Double.BYTES;
+
+    private final int moduleCount;
+    private double timestamp = Double.NaN;
+    private final double[] values;
+
+    /**
+     * Creates an empty set of states, to be filled by {@link #decode(byte[])}.
+     *
+     * @param moduleCount the number of modules
+     */
+    public PackedModuleStates(int moduleCount) {
+        this.moduleCount = moduleCount;
+        this.values = new double[moduleCount * MODULE_FIELDS];
+    }
+
+    /**
+     * Gets the size of a packed record, in bytes.
+     *
+     * @param moduleCount the number of modules
+     */
+    public static int getSize(int moduleCount) {
+        return HEADER_BYTES + moduleCount * MODULE_FIELDS * Double.BYTES;
+    }
+
+    /**
+     * Gets the layout description set as the topic's {@code layout} property, as JSON.
+     */
+    public static String getLayoutJson(int moduleCount) {
+        StringBuilder builder = new StringBuilder("{\"version\":").append(VERSION)
+                .append(",\"byteOrder\":\"little\",\"header\":[\"version:int32\",\"moduleCount:int32\",\"timestamp:float64\"]")
+                .append(",\"moduleCount\":").append(moduleCount)
+                .append(",\"module\":[");
+        for (int i = 0; i < FIELD_NAMES.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append('"').append(FIELD_NAMES[i]).append(":float64\"");
+        }
+        return builder.append("]}").toString();
+    }
+
+    /**
+     * Packs a record.
+     *
+     * @param timestamp   the FPGA timestamp of the record, in seconds
+     * @param values      each module's fields, {@link #MODULE_FIELDS} per module, starting at {@code offset}
+     * @param offset      the index of the first module's first field in {@code values}
+     * @param moduleCount the number of modules
+     * @param buffer      written from its start. Must hold at least {@link #getSize(int)} bytes and be little-endian.
+     */
+    public static void encode(double timestamp, double[] values, int offset, int moduleCount, ByteBuffer buffer) {
+        buffer.putInt(0, VERSION);
+        buffer.putInt(Integer.BYTES, moduleCount);
+        buffer.putDouble(2 * Integer.BYTES, timestamp);
+        for (int i = 0; i < moduleCount * MODULE_FIELDS; i++) {
+            buffer.putDouble(HEADER_BYTES + i * Double.BYTES, values[offset + i]);
+        }
+    }
+
+    /**
+     * Unpacks a record into these states.
+     *
+     * @param data the packed record
+     * @throws IllegalArgumentException if the record has a different version or module count
+     */
+    public void decode(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (data.length < HEADER_BYTES || buffer.getInt(0) != VERSION) {
+            throw new IllegalArgumentException("Not a version " + VERSION + " packed module states record");
+        }
+        if (buffer.getInt(Integer.BYTES) != moduleCount || data.length < getSize(moduleCount)) {
+            throw new IllegalArgumentException("Record does not have " + moduleCount + " modules");
+        }
+
+        timestamp = buffer.getDouble(2 * Integer.BYTES);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getDouble(HEADER_BYTES + i * Double.BYTES);
+        }
+    }
+
+    /**
+     * Reads the module count of a packed record, for creating states to decode it into.
+     */
+    public static int getModuleCount(byte[] data) {
+        return ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).getInt(Integer.BYTES);
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Gets the FPGA timestamp the record was made at, in seconds.
+     */
+    public double getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Gets a field of a module.
+     *
+     * @param module the module index
+     * @param field  one of the field constants, such as {@link #ANGLE}
+     */
+    public double get(int module, int field) {
+        return values[module * MODULE_FIELDS + field];
+    }
+}
@@ -0,0 +1,80 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.List;
+
+/**
+ * Drive controller that serves its state getters from readings latched by {@link #refresh()}.
+ */
+final class SnapshotDriveController implements DriveController {
+    private final DriveController controller;
+
+    private double velocity;
+    private double distance;
+
+    private SnapshotDriveController(DriveController controller) {
+        this.controller = controller;
+        refresh();
+    }
+
+    static <DC> DriveControllerFactory<SnapshotDriveController, DC> wrap(DriveControllerFactory<?, DC> factory) {
+        return (driveConfiguration, canbus, mechConfiguration) -> new SnapshotDriveController(
+                factory.create(driveConfiguration, canbus, mechConfiguration)
+        );
+    }
+
+    /**
+     * Gets the wrapped controller.
+     */
+    DriveController getController() {
+        return controller;
+    }
+
+    @Override
+    public MotorController getDriveMotor() {
+        return controller.getDriveMotor();
+    }
+
+    @Override
+    public void setReferenceVoltage(double voltage) {
+        controller.setReferenceVoltage(voltage);
+    }
+
+    @Override
+    public void setReferenceVelocity(double metersPerSecond, double feedforwardVolts) {
+        controller.setReferenceVelocity(metersPerSecond, feedforwardVolts);
+    }
+
+    @Override
+    public double getStateVelocity() {
+        return velocity;
+    }
+
+    @Override
+    public double getStateDistance() {
+        return distance;
+    }
+
+    @Override
+    public void refresh() {
+        controller.refresh();
+        velocity = controller.getStateVelocity();
+        distance = controller.getStateDistance();
+    }
+
+    @Override
+    public LatencyDiagnostics getDiagnostics() {
+        return controller.getDiagnostics();
+    }
+
+    @Override
+    public WriteCoalescer getWriteCoalescer() {
+        return controller.getWriteCoalescer();
+    }
+
+    @Override
+    public List<StatusFrameTarget> getStatusFrameTargets() {
+        return controller.getStatusFrameTargets();
+    }
+}
@@ -0,0 +1,78 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.List;
+
+/**
+ * Steer controller that serves its state getters from readings latched by {@link #refresh()}.
+ */
+final class SnapshotSteerController implements SteerController {
+    private final SteerController controller;
+
+    private double angle;
+
+    private SnapshotSteerController(SteerController controller) {
+        this.controller = controller;
+        refresh();
+    }
+
+    static <SC> SteerControllerFactory<SnapshotSteerController, SC> wrap(SteerControllerFactory<?, SC> factory) {
+        return (steerConfiguration, canbus, mechConfiguration) -> new SnapshotSteerController(
+                factory.create(steerConfiguration, canbus, mechConfiguration)
+        );
+    }
+
+    /**
+     * Gets the wrapped controller.
+     */
+    SteerController getController() {
+        return controller;
+    }
+
+    @Override
+    public MotorController getSteerMotor() {
+        return controller.getSteerMotor();
+    }
+
+    @Override
+    public AbsoluteEncoder getSteerEncoder() {
+        return controller.getSteerEncoder();
+    }
+
+    @Override
+    public double getReferenceAngle() {
+        return controller.getReferenceAngle();
+    }
+
+    @Override
+    public void setReferenceAngle(double referenceAngleRadians) {
+        controller.setReferenceAngle(referenceAngleRadians);
+    }
+
+    @Override
+    public double getStateAngle() {
+        return angle;
+    }
+
+    @Override
+    public void refresh() {
+        controller.refresh();
+        angle = controller.getStateAngle();
+    }
+
+    @Override
+    public LatencyDiagnostics getDiagnostics() {
+        return controller.getDiagnostics();
+    }
+
+    @Override
+    public WriteCoalescer getWriteCoalescer() {
+        return controller.getWriteCoalescer();
+    }
+
+    @Override
+    public List<StatusFrameTarget> getStatusFrameTargets() {
+        return controller.getStatusFrameTargets();
+    }
+}
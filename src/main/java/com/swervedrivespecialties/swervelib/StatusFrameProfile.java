@@ -0,0 +1,277 @@
+package com.swervedrivespecialties.swervelib;
+
+import java.util.Objects;
+
+/**
+ * How often each device in a swerve module sends its CAN status frames.
+ * <p>
+ * Periods are set per device role rather than per vendor frame. Each backend maps them onto its own frames:
+ * <ul>
+ *     <li>Falcon 500: Status 1 (general) and Status 2 (selected sensor position and velocity, sent at the faster of
+ *     the two periods)</li>
+ *     <li>NEO: Status 0 (general), Status 1 (velocity) and Status 2 (position). A steer motor closing its loop on a
+ *     Spark MAX absolute encoder sends that encoder's position in Status 5 at the steer position period.</li>
+ *     <li>CANCoder: sensor data, at the steer encoder period</li>
+ * </ul>
+ * The general frames default to each motor controller's own period, 250 ms on a Talon FX and 100 ms on a Spark MAX,
+ * so a default profile leaves them where they would be without one. Slower general frames are opt-in through
+ * {@link #withDrivePeriods(int, int, int)} and {@link #withSteerPeriods(int, int, int)}.
+ * <p>
+ * Frames the library never reads can be slowed to each vendor's longest period with
+ * {@link #withUnusedFramesDisabled()}. {@link #estimateBusLoad(int, MotorType, MotorType, EncoderType)} gives a rough
+ * idea of how much of a 1 Mbit/s bus the modules will use.
+ */
+public class StatusFrameProfile {
+    /**
+     * Longest status frame period a Talon FX or CANCoder accepts, in milliseconds.
+     */
+    public static final int CTRE_MAX_PERIOD_MS = 255;
+    /**
+     * Longest status frame period a Spark MAX accepts, in milliseconds.
+     */
+    public static final int REV_MAX_PERIOD_MS = 65535;
+    /**
+     * Period of a Talon FX's general status frame when no profile changes it, in milliseconds.
+     */
+    public static final int TALON_FX_DEFAULT_GENERAL_PERIOD_MS = 250;
+    /**
+     * Period of a Spark MAX's general status frame when no profile changes it, in milliseconds.
+     */
+    public static final int SPARK_MAX_DEFAULT_GENERAL_PERIOD_MS = 100;
+
+    // Marks a general period that hasn't been set, so it follows the motor controller's default
+    private static final int MOTOR_DEFAULT_PERIOD = -1;
+
+    // An extended frame with 8 data bytes is 128 bits, plus an average amount of bit stuffing
+    private static final double BITS_PER_FRAME = 140.0;
+    private static final double BUS_BITRATE = 1_000_000.0;
+
+    // Frames per second a device sends in frames this class doesn't manage, when left at their defaults and when
+    // disabled. Taken from each vendor's documented default periods.
+    private static final double TALON_FX_OTHER_FRAMES_PER_SECOND = 8 * 1000.0 / 160.0 + 1000.0 / 50.0;
+    private static final double TALON_FX_OTHER_FRAMES_DISABLED_PER_SECOND = 9 * 1000.0 / CTRE_MAX_PERIOD_MS;
+    private static final double SPARK_MAX_OTHER_FRAMES_PER_SECOND = 1000.0 / 50.0 + 1000.0 / 20.0 + 2 * 1000.0 / 200.0;
+    private static final double CANCODER_OTHER_FRAMES_PER_SECOND = 1000.0 / 100.0;
+    private static final double CANCODER_OTHER_FRAMES_DISABLED_PER_SECOND = 1000.0 / CTRE_MAX_PERIOD_MS;
+    // Control frames sent to each motor controller: every 10 ms for the Talon FX, every robot loop for the Spark MAX
+    private static final double TALON_FX_CONTROL_FRAMES_PER_SECOND = 1000.0 / 10.0;
+    private static final double SPARK_MAX_CONTROL_FRAMES_PER_SECOND = 1000.0 / 20.0;
+
+    private int driveGeneralPeriodMS = MOTOR_DEFAULT_PERIOD;
+    private int driveVelocityPeriodMS = 20;
+    private int drivePositionPeriodMS = 20;
+    private int steerGeneralPeriodMS = MOTOR_DEFAULT_PERIOD;
+    private int steerVelocityPeriodMS = 20;
+    private int steerPositionPeriodMS = 20;
+    private int steerEncoderPeriodMS = 100;
+    private boolean unusedFramesDisabled = false;
+
+    /**
+     * Sets the drive motor's status frame periods.
+     *
+     * @param generalPeriodMS  period of the frame with the applied output and faults
+     * @param velocityPeriodMS period of the frame with the wheel velocity
+     * @param positionPeriodMS period of the frame with the distance driven
+     * @return this profile
+     */
+    public StatusFrameProfile withDrivePeriods(int generalPeriodMS, int velocityPeriodMS, int positionPeriodMS) {
+        this.driveGeneralPeriodMS = generalPeriodMS;
+        this.driveVelocityPeriodMS = velocityPeriodMS;
+        this.drivePositionPeriodMS = positionPeriodMS;
+        return this;
+    }
+
+    /**
+     * Sets the steer motor's status frame periods.
+     *
+     * @param generalPeriodMS  period of the frame with the applied output and faults
+     * @param velocityPeriodMS period of the frame with the steering velocity
+     * @param positionPeriodMS period of the frame with the steer angle
+     * @return this profile
+     */
+    public StatusFrameProfile withSteerPeriods(int generalPeriodMS, int velocityPeriodMS, int positionPeriodMS) {
+        this.steerGeneralPeriodMS = generalPeriodMS;
+        this.steerVelocityPeriodMS = velocityPeriodMS;
+        this.steerPositionPeriodMS = positionPeriodMS;
+        return this;
+    }
+
+    /**
+     * Sets how often a separate steer encoder, such as a CANCoder, sends its reading.
+     *
+     * @param periodMS the period in milliseconds
+     * @return this profile
+     */
+    public StatusFrameProfile withSteerEncoderPeriod(int periodMS) {
+        this.steerEncoderPeriodMS = periodMS;
+        return this;
+    }
+
+    /**
+     * Slows every status frame the library doesn't read to the vendor's longest period. This includes analog,
+     * alternate encoder, pulse width and closed loop diagnostics frames, along with supply voltage and temperature.
+     *
+     * @return this profile
+     */
+    public StatusFrameProfile withUnusedFramesDisabled() {
+        this.unusedFramesDisabled = true;
+        return this;
+    }
+
+    /**
+     * Gets the period of the drive motor's general frame.
+     *
+     * @param motorType the drive motor type, which decides the period if none was set
+     * @return the period in milliseconds
+     */
+    public int getDriveGeneralPeriodMS(MotorType motorType) {
+        return resolveGeneralPeriodMS(driveGeneralPeriodMS, motorType);
+    }
+
+    public int getDriveVelocityPeriodMS() {
+        return driveVelocityPeriodMS;
+    }
+
+    public int getDrivePositionPeriodMS() {
+        return drivePositionPeriodMS;
+    }
+
+    /**
+     * Gets the period of the steer motor's general frame.
+     *
+     * @param motorType the steer motor type, which decides the period if none was set
+     * @return the period in milliseconds
+     */
+    public int getSteerGeneralPeriodMS(MotorType motorType) {
+        return resolveGeneralPeriodMS(steerGeneralPeriodMS, motorType);
+    }
+
+    public int getSteerVelocityPeriodMS() {
+        return steerVelocityPeriodMS;
+    }
+
+    public int getSteerPositionPeriodMS() {
+        return steerPositionPeriodMS;
+    }
+
+    public int getSteerEncoderPeriodMS() {
+        return steerEncoderPeriodMS;
+    }
+
+    public boolean isUnusedFramesDisabled() {
+        return unusedFramesDisabled;
+    }
+
+    private static int resolveGeneralPeriodMS(int periodMS, MotorType motorType) {
+        if (periodMS != MOTOR_DEFAULT_PERIOD) {
+            return periodMS;
+        }
+        return motorType == MotorType.FALCON ? TALON_FX_DEFAULT_GENERAL_PERIOD_MS : SPARK_MAX_DEFAULT_GENERAL_PERIOD_MS;
+    }
+
+    /**
+     * Estimates the fraction of a 1 Mbit/s CAN bus used by a number of identical modules with this profile.
+     * <p>
+     * Every frame is assumed to carry 8 data bytes. Control frames are counted along with status frames, so
+     * the estimate is a little high.
+     *
+     * @param moduleCount  the number of modules on the bus
+     * @param driveMotor   the drive motor type
+     * @param steerMotor   the steer motor type
+     * @param steerEncoder the steer encoder type
+     * @return the estimated bus utilization, from 0 to 1
+     */
+    public double estimateBusLoad(int moduleCount, MotorType driveMotor, MotorType steerMotor, EncoderType steerEncoder) {
+        return moduleCount * estimateModuleFramesPerSecond(driveMotor, steerMotor, steerEncoder) * BITS_PER_FRAME /
+                BUS_BITRATE;
+    }
+
+    /**
+     * Estimates the number of CAN frames a single module sends and receives every second with this profile.
+     *
+     * @param driveMotor   the drive motor type
+     * @param steerMotor   the steer motor type
+     * @param steerEncoder the steer encoder type
+     * @return the estimated frames per second
+     */
+    public double estimateModuleFramesPerSecond(MotorType driveMotor, MotorType steerMotor, EncoderType steerEncoder) {
+        double framesPerSecond = estimateMotorFramesPerSecond(driveMotor, getDriveGeneralPeriodMS(driveMotor),
+                driveVelocityPeriodMS, drivePositionPeriodMS, false);
+        framesPerSecond += estimateMotorFramesPerSecond(steerMotor, getSteerGeneralPeriodMS(steerMotor),
+                steerVelocityPeriodMS, steerPositionPeriodMS, steerEncoder == EncoderType.SparkMaxAbsolute);
+
+        if (steerEncoder == EncoderType.CANCoder) {
+            framesPerSecond += 1000.0 / steerEncoderPeriodMS;
+            framesPerSecond += unusedFramesDisabled ? CANCODER_OTHER_FRAMES_DISABLED_PER_SECOND :
+                    CANCODER_OTHER_FRAMES_PER_SECOND;
+        }
+
+        return framesPerSecond;
+    }
+
+    private double estimateMotorFramesPerSecond(MotorType motor, int generalPeriodMS, int velocityPeriodMS,
+                                                int positionPeriodMS, boolean absoluteEncoder) {
+        double framesPerSecond = 1000.0 / generalPeriodMS;
+        if (motor == MotorType.FALCON) {
+            framesPerSecond += 1000.0 / Math.min(velocityPeriodMS, positionPeriodMS);
+            framesPerSecond += unusedFramesDisabled ? TALON_FX_OTHER_FRAMES_DISABLED_PER_SECOND :
+                    TALON_FX_OTHER_FRAMES_PER_SECOND;
+            framesPerSecond += TALON_FX_CONTROL_FRAMES_PER_SECOND;
+        } else {
+            framesPerSecond += 1000.0 / velocityPeriodMS + 1000.0 / positionPeriodMS;
+            if (absoluteEncoder) {
+                framesPerSecond += 1000.0 / positionPeriodMS;
+            }
+            // Disabled Spark MAX frames are sent rarely enough to ignore
+            if (!unusedFramesDisabled) {
+                framesPerSecond += SPARK_MAX_OTHER_FRAMES_PER_SECOND;
+            }
+            framesPerSecond += SPARK_MAX_CONTROL_FRAMES_PER_SECOND;
+        }
+
+        return framesPerSecond;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StatusFrameProfile that = (StatusFrameProfile) o;
+        return     that.driveGeneralPeriodMS == driveGeneralPeriodMS
+                && that.getDriveVelocityPeriodMS() == getDriveVelocityPeriodMS()
+                && that.getDrivePositionPeriodMS() == getDrivePositionPeriodMS()
+                && that.steerGeneralPeriodMS == steerGeneralPeriodMS
+                && that.getSteerVelocityPeriodMS() == getSteerVelocityPeriodMS()
+                && that.getSteerPositionPeriodMS() == getSteerPositionPeriodMS()
+                && that.getSteerEncoderPeriodMS() == getSteerEncoderPeriodMS()
+                && that.isUnusedFramesDisabled() == isUnusedFramesDisabled();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+                driveGeneralPeriodMS,
+                getDriveVelocityPeriodMS(),
+                getDrivePositionPeriodMS(),
+                steerGeneralPeriodMS,
+                getSteerVelocityPeriodMS(),
+                getSteerPositionPeriodMS(),
+                getSteerEncoderPeriodMS(),
+                isUnusedFramesDisabled()
+        );
+    }
+
+    @Override
+    public String toString() {
+        return "StatusFrameProfile{" +
+                "driveGeneralPeriodMS=" + driveGeneralPeriodMS +
+                ", driveVelocityPeriodMS=" + driveVelocityPeriodMS +
+                ", drivePositionPeriodMS=" + drivePositionPeriodMS +
+                ", steerGeneralPeriodMS=" + steerGeneralPeriodMS +
+                ", steerVelocityPeriodMS=" + steerVelocityPeriodMS +
+                ", steerPositionPeriodMS=" + steerPositionPeriodMS +
+                ", steerEncoderPeriodMS=" + steerEncoderPeriodMS +
+                ", unusedFramesDisabled=" + unusedFramesDisabled +
+                '}';
+    }
+}
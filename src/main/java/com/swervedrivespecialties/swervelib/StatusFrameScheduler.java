@@ -0,0 +1,159 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Retunes the status frame periods of swerve modules' motors and encoders while the robot runs.
+ * <p>
+ * A different {@link StatusFrameProfile} can be used while the robot is disabled, in autonomous and in teleop, or
+ * one profile can be forced with {@link #setProfile(StatusFrameProfile)}. Call {@link #periodic()} once per robot
+ * loop. When the profile changes, the affected devices are retuned a few at a time over the following loops. Each
+ * call is sent without waiting for the device to respond, so a transition never stalls the loop.
+ * <p>
+ * The devices are the {@link SwerveModule#getStatusFrameTargets() status frame targets} of the modules, which their
+ * vendor specific backends provide, so only the vendor libraries the modules use need to be present.
+ * <p>
+ * Frames a profile disables with {@link StatusFrameProfile#withUnusedFramesDisabled()} are given back their vendor
+ * default periods when switching to a profile that doesn't disable them.
+ */
+public class StatusFrameScheduler {
+    /**
+     * Number of devices {@link #periodic()} retunes per call by default.
+     */
+    public static final int DEFAULT_DEVICES_PER_CYCLE = 2;
+
+    /**
+     * The robot modes a profile can be assigned to. Test mode uses the teleop profile.
+     */
+    public enum Mode {
+        DISABLED,
+        AUTONOMOUS,
+        TELEOP
+    }
+
+    private final SwerveModule[] modules;
+    private final StatusFrameProfile[] modeProfiles = new StatusFrameProfile[Mode.values().length];
+
+    private int devicesPerCycle = DEFAULT_DEVICES_PER_CYCLE;
+    private StatusFrameProfile forcedProfile = null;
+    private StatusFrameProfile activeProfile;
+    private final Queue<Runnable> pendingDevices = new ArrayDeque<>();
+
+    /**
+     * Creates a scheduler for modules built from a module configuration. Every mode starts out using the
+     * configuration's profile, which the modules were created with.
+     *
+     * @param configuration the configuration the modules were built with
+     * @param modules       the modules to retune
+     */
+    public StatusFrameScheduler(MkModuleConfiguration configuration, SwerveModule... modules) {
+        this.modules = modules.clone();
+        this.activeProfile = configuration.getStatusFrameProfile();
+        for (Mode mode : Mode.values()) {
+            modeProfiles[mode.ordinal()] = activeProfile;
+        }
+    }
+
+    /**
+     * Sets the profile to use while the robot is in a mode.
+     *
+     * @param mode    the robot mode
+     * @param profile the profile to use in that mode
+     * @return this scheduler
+     */
+    public StatusFrameScheduler withProfile(Mode mode, StatusFrameProfile profile) {
+        modeProfiles[mode.ordinal()] = profile;
+        return this;
+    }
+
+    /**
+     * Sets how many devices are retuned per call to {@link #periodic()}.
+     *
+     * @param devicesPerCycle the number of devices, at least 1
+     * @return this scheduler
+     */
+    public StatusFrameScheduler withDevicesPerCycle(int devicesPerCycle) {
+        if (devicesPerCycle < 1) {
+            throw new IllegalArgumentException("At least one device must be retuned per cycle");
+        }
+        this.devicesPerCycle = devicesPerCycle;
+        return this;
+    }
+
+    /**
+     * Uses a profile regardless of the robot mode, until {@link #followRobotMode()} is called.
+     *
+     * @param profile the profile to use
+     */
+    public void setProfile(StatusFrameProfile profile) {
+        this.forcedProfile = profile;
+    }
+
+    /**
+     * Goes back to choosing the profile from the robot mode.
+     */
+    public void followRobotMode() {
+        this.forcedProfile = null;
+    }
+
+    /**
+     * Gets the profile the devices are being retuned to, or have been retuned to if no transition is in progress.
+     */
+    public StatusFrameProfile getActiveProfile() {
+        return activeProfile;
+    }
+
+    /**
+     * Gets whether devices are still waiting to be retuned to the active profile.
+     */
+    public boolean isTransitioning() {
+        return !pendingDevices.isEmpty();
+    }
+
+    /**
+     * Starts a transition if the wanted profile has changed, then retunes the next few devices of the transition in
+     * progress.
+     */
+    public void periodic() {
+        StatusFrameProfile profile = forcedProfile != null ? forcedProfile : modeProfiles[getMode().ordinal()];
+        if (!profile.equals(activeProfile)) {
+            activeProfile = profile;
+            // Devices still pending from an unfinished transition are retuned to the new profile instead
+            pendingDevices.clear();
+            pendingDevices.addAll(createDeviceUpdates(profile));
+        }
+
+        for (int i = 0; i < devicesPerCycle && !pendingDevices.isEmpty(); i++) {
+            pendingDevices.poll().run();
+        }
+    }
+
+    private static Mode getMode() {
+        if (DriverStation.isDisabled()) {
+            return Mode.DISABLED;
+        } else if (DriverStation.isAutonomous()) {
+            return Mode.AUTONOMOUS;
+        } else {
+            return Mode.TELEOP;
+        }
+    }
+
+    /**
+     * Creates one update for each device that retunes it to a profile.
+     */
+    private List<Runnable> createDeviceUpdates(StatusFrameProfile profile) {
+        List<Runnable> updates = new ArrayList<>();
+        for (SwerveModule module : modules) {
+            for (StatusFrameTarget target : module.getStatusFrameTargets()) {
+                updates.add(() -> target.configureStatusFrames(profile));
+            }
+        }
+
+        return updates;
+    }
+}
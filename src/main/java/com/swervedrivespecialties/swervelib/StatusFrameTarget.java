@@ -0,0 +1,17 @@
+package com.swervedrivespecialties.swervelib;
+
+/**
+ * A device whose status frame periods can be retuned while the robot runs.
+ * <p>
+ * Vendor specific backends implement this, so the {@link StatusFrameScheduler} never has to know which vendor
+ * library a module's devices come from.
+ */
+@FunctionalInterface
+public interface StatusFrameTarget {
+    /**
+     * Sets the device's status frame periods from a profile, without waiting for the device to respond.
+     *
+     * @param profile the profile to retune the device to
+     */
+    void configureStatusFrames(StatusFrameProfile profile);
+}
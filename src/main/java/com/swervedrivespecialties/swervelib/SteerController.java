@@ -2,6 +2,8 @@ package com.swervedrivespecialties.swervelib;
 
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 
+import java.util.List;
+
 public interface SteerController {
     MotorController getSteerMotor();
 
@@ -12,4 +14,40 @@ public interface SteerController {
     void setReferenceAngle(double referenceAngleRadians);
 
     double getStateAngle();
+
+    /**
+     * Latches the controller's sensor readings. Controllers that cache their readings serve the state getters from
+     * the values latched by the last call; controllers that read on demand ignore this.
+     */
+    default void refresh() {
+    }
+
+    /**
+     * Gets the latencies of the controller's calls.
+     *
+     * @return the latencies, or null if the controller isn't instrumented
+     * @see SwerveModuleFactory#withInstrumentation()
+     */
+    default LatencyDiagnostics getDiagnostics() {
+        return null;
+    }
+
+    /**
+     * Gets the cache that suppresses repeated setpoint writes, along with its counts of writes sent and saved.
+     *
+     * @return the cache, or null if every setpoint is sent
+     */
+    default WriteCoalescer getWriteCoalescer() {
+        return null;
+    }
+
+    /**
+     * Gets the controller's devices whose status frame periods can be retuned while the robot runs.
+     *
+     * @return the devices, or an empty list if the controller's status frames can't be retuned
+     * @see StatusFrameScheduler
+     */
+    default List<StatusFrameTarget> getStatusFrameTargets() {
+        return List.of();
+    }
 }
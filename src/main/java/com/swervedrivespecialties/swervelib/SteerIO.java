@@ -0,0 +1,79 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+/**
+ * The hardware a steer controller talks to, reduced to reading its sensors and sending it outputs.
+ * <p>
+ * Implementations do unit conversion and vendor calls only. Unwrapping targets, seeding the motor's encoder from the
+ * absolute encoder and keeping the reported angle in range are done by {@link IOSteerController}.
+ */
+public interface SteerIO {
+    /**
+     * The steer motor's sensor readings, refreshed in place by {@link #updateInputs(Inputs)}.
+     */
+    class Inputs {
+        /**
+         * The module angle measured by the position loop's sensor, in radians. May be outside [0, 2pi).
+         */
+        public double positionRadians = 0.0;
+        public double velocityRadiansPerSecond = 0.0;
+    }
+
+    /**
+     * Reads every sensor into {@code inputs}.
+     */
+    default void updateInputs(Inputs inputs) {
+        inputs.positionRadians = getPositionRadians();
+        inputs.velocityRadiansPerSecond = getVelocityRadiansPerSecond();
+    }
+
+    /**
+     * Reads only the position loop's sensor, in the same frame as {@link Inputs#positionRadians}.
+     */
+    double getPositionRadians();
+
+    /**
+     * Reads only the steer motor's velocity.
+     */
+    double getVelocityRadiansPerSecond();
+
+    /**
+     * Sends the position loop to an angle, in the same frame as {@link Inputs#positionRadians}.
+     */
+    void setPosition(double positionRadians);
+
+    /**
+     * Sets the position loop's sensor to an angle, to line it up with the absolute encoder. Only called when
+     * {@link #hasAbsoluteFeedback()} is false.
+     */
+    default void resetPosition(double positionRadians) {
+    }
+
+    /**
+     * Gets whether the position loop's sensor is absolute, so it never has to be reset from the absolute encoder.
+     */
+    default boolean hasAbsoluteFeedback() {
+        return false;
+    }
+
+    /**
+     * Gets whether the position loop treats [0, 2pi) as continuous itself, so targets can be sent without being
+     * unwrapped to the nearest revolution.
+     */
+    default boolean isContinuousInput() {
+        return false;
+    }
+
+    MotorController getMotor();
+
+    /**
+     * Gets the steer motor's status frame periods, to be retuned while the robot runs. With
+     * {@link #hasAbsoluteFeedback() absolute feedback} this covers the position loop's sensor too.
+     *
+     * @return the motor, or null if its status frames can't be retuned
+     */
+    default StatusFrameTarget getStatusFrameTarget() {
+        return null;
+    }
+}
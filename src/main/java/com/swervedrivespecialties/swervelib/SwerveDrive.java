@@ -0,0 +1,279 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A drivetrain made up of any number of swerve modules.
+ * <p>
+ * The drivetrain owns its modules, the kinematics describing where they are, and preallocated arrays for their
+ * state, so a robot loop only has to call {@link #readAll()} once at the start of a cycle and one of the write
+ * methods once at the end of it. The arrays returned by the getters are reused; their contents are only valid
+ * until the next {@link #readAll()} call.
+ */
+public class SwerveDrive {
+    private final SwerveModule[] modules;
+    private final SwerveDriveKinematics kinematics;
+    private final SwerveKinematics swerveKinematics;
+    private final double maxVelocity;
+    private final double maxVoltage;
+
+    private final double[] driveVelocities;
+    private final double[] driveDistances;
+    private final double[] steerAngles;
+    private final SwerveModulePosition[] positions;
+    private final SwerveModuleState[] states;
+
+    private final double[] speedSetpoints;
+    private final double[] voltageSetpoints;
+    private final double[] angleSetpoints;
+
+    /**
+     * Creates a new drivetrain.
+     *
+     * @param moduleLocations The location of each module relative to the center of the robot, in meters.
+     * @param modules         The modules, in the same order as {@code moduleLocations}.
+     * @param maxVelocity     The drive velocity, in m/s, the modules reach at {@code maxVoltage}.
+     * @param maxVoltage      The drive voltage to apply when a module is commanded to {@code maxVelocity}.
+     */
+    public SwerveDrive(Translation2d[] moduleLocations, SwerveModule[] modules, double maxVelocity, double maxVoltage) {
+        if (moduleLocations.length != modules.length) {
+            throw new IllegalArgumentException("Number of module locations (" + moduleLocations.length +
+                    ") does not match the number of modules (" + modules.length + ")");
+        }
+        if (modules.length < 2) {
+            throw new IllegalArgumentException("A swerve drive requires at least two modules");
+        }
+
+        this.modules = modules.clone();
+        this.kinematics = new SwerveDriveKinematics(moduleLocations);
+        this.swerveKinematics = new SwerveKinematics(moduleLocations);
+        this.maxVelocity = maxVelocity;
+        this.maxVoltage = maxVoltage;
+
+        this.driveVelocities = new double[modules.length];
+        this.driveDistances = new double[modules.length];
+        this.steerAngles = new double[modules.length];
+        this.positions = new SwerveModulePosition[modules.length];
+        this.states = new SwerveModuleState[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            positions[i] = new SwerveModulePosition();
+            states[i] = new SwerveModuleState();
+        }
+
+        this.speedSetpoints = new double[modules.length];
+        this.voltageSetpoints = new double[modules.length];
+        this.angleSetpoints = new double[modules.length];
+
+        readAll();
+        // Modules hold their current angle until they are first told to move
+        System.arraycopy(steerAngles, 0, angleSetpoints, 0, modules.length);
+    }
+
+    /**
+     * Reads every module's sensors.
+     * <p>
+     * Modules with sensor snapshots enabled are refreshed first, so every value read here (and by any other reader
+     * until the next call) comes from the same latched readings.
+     */
+    public void readAll() {
+        for (SwerveModule module : modules) {
+            module.refresh();
+        }
+
+        for (int i = 0; i < modules.length; i++) {
+            SwerveModule module = modules[i];
+            double angle = module.getSteerAngle();
+
+            driveVelocities[i] = module.getDriveVelocity();
+            driveDistances[i] = module.getDriveDistance();
+            steerAngles[i] = angle;
+
+            positions[i].distanceMeters = driveDistances[i];
+            states[i].speedMetersPerSecond = driveVelocities[i];
+            if (positions[i].angle.getRadians() != angle) {
+                Rotation2d rotation = Rotation2d.fromRadians(angle);
+                positions[i].angle = rotation;
+                states[i].angle = rotation;
+            }
+        }
+    }
+
+    /**
+     * Commands every module.
+     *
+     * @param voltages The drive voltage of each module.
+     * @param angles   The steer angle of each module, in radians.
+     */
+    public void writeAll(double[] voltages, double[] angles) {
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].set(voltages[i], angles[i]);
+        }
+    }
+
+    /**
+     * Commands the drivetrain to move at the specified robot relative speeds.
+     * <p>
+     * Module speeds are desaturated to the drivetrain's max velocity and converted to drive voltages proportionally.
+     * Nothing is allocated, and modules keep their last angle when the chassis is commanded to stop.
+     *
+     * @param chassisSpeeds The robot relative speeds.
+     */
+    public void drive(ChassisSpeeds chassisSpeeds) {
+        computeSetpoints(chassisSpeeds, speedSetpoints, angleSetpoints, voltageSetpoints);
+        writeAll(voltageSetpoints, angleSetpoints);
+    }
+
+    /**
+     * Commands the drivetrain to move at the specified robot relative speeds, closing each module's drive velocity
+     * loop on its motor controller.
+     * <p>
+     * Module speeds are desaturated to the drivetrain's max velocity. Each module's feedforward is its speed converted
+     * to a voltage proportionally, the same as {@link #drive(ChassisSpeeds)}, so the on-controller loop only has to
+     * correct the remaining error.
+     *
+     * @param chassisSpeeds The robot relative speeds.
+     * @see SwerveModule#setVelocity(double, double, double)
+     */
+    public void driveVelocity(ChassisSpeeds chassisSpeeds) {
+        computeSetpoints(chassisSpeeds, speedSetpoints, angleSetpoints, voltageSetpoints);
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].setVelocity(speedSetpoints[i], voltageSetpoints[i], angleSetpoints[i]);
+        }
+    }
+
+    /**
+     * Works out every module's setpoints for robot relative speeds without touching any hardware. This is the
+     * compute step of {@link #drive(ChassisSpeeds)}, {@link #driveVelocity(ChassisSpeeds)} and {@link DriveCycle}.
+     * <p>
+     * The speeds are desaturated to the max velocity and optimized against the steer angles read by the last
+     * {@link #readAll()} call, then converted to drive voltages proportionally.
+     *
+     * @param chassisSpeeds the robot relative speeds
+     * @param speeds        filled with each module's speed, in m/s
+     * @param angles        filled with each module's steer angle, in radians; kept where the chassis is stopped
+     * @param voltages      filled with each module's drive voltage
+     */
+    void computeSetpoints(ChassisSpeeds chassisSpeeds, double[] speeds, double[] angles, double[] voltages) {
+        swerveKinematics.toModuleStates(chassisSpeeds, speeds, angles);
+        SwerveKinematics.desaturate(speeds, maxVelocity);
+        // Modules reverse themselves anyway, but deciding it here keeps the setpoints what the modules will do
+        SwerveKinematics.optimize(speeds, angles, steerAngles);
+
+        for (int i = 0; i < modules.length; i++) {
+            voltages[i] = speeds[i] / maxVelocity * maxVoltage;
+        }
+    }
+
+    /**
+     * Stops every module's drive motor, holding the steer angles read by the last {@link #readAll()} call.
+     */
+    public void stop() {
+        for (int i = 0; i < modules.length; i++) {
+            voltageSetpoints[i] = 0.0;
+            angleSetpoints[i] = steerAngles[i];
+        }
+
+        writeAll(voltageSetpoints, angleSetpoints);
+    }
+
+    /**
+     * Creates a sampler that reads this drivetrain's module positions on a background thread. The sampler is not
+     * started.
+     *
+     * @param gyroAngle Supplies the robot's heading in radians, read in the same sample as the modules. May be null.
+     * @param frequency The sampling frequency in Hz.
+     * @return the new sampler
+     */
+    public OdometrySampler createOdometrySampler(DoubleSupplier gyroAngle, double frequency) {
+        return new OdometrySampler(modules, gyroAngle, frequency);
+    }
+
+    /**
+     * Creates a cycle that reads every module, computes their setpoints and then writes them, as separate phases.
+     *
+     * @return the new cycle
+     */
+    public DriveCycle createDriveCycle() {
+        return new DriveCycle(this);
+    }
+
+    /**
+     * Creates an executor that runs this drivetrain's control loop on a background thread. The executor is not
+     * started.
+     *
+     * @param frequency The control frequency in Hz.
+     * @return the new executor
+     */
+    public SwerveDriveExecutor createExecutor(double frequency) {
+        return new SwerveDriveExecutor(this, frequency);
+    }
+
+    public int getModuleCount() {
+        return modules.length;
+    }
+
+    public SwerveModule getModule(int index) {
+        return modules[index];
+    }
+
+    public SwerveDriveKinematics getKinematics() {
+        return kinematics;
+    }
+
+    /**
+     * Gets the allocation free kinematics used to command the modules.
+     */
+    public SwerveKinematics getSwerveKinematics() {
+        return swerveKinematics;
+    }
+
+    public double getMaxVelocity() {
+        return maxVelocity;
+    }
+
+    public double getMaxVoltage() {
+        return maxVoltage;
+    }
+
+    /**
+     * Gets each module's drive velocity, in m/s, as of the last {@link #readAll()} call.
+     */
+    public double[] getDriveVelocities() {
+        return driveVelocities;
+    }
+
+    /**
+     * Gets each module's drive distance, in meters, as of the last {@link #readAll()} call.
+     */
+    public double[] getDriveDistances() {
+        return driveDistances;
+    }
+
+    /**
+     * Gets each module's steer angle, in radians from [0, 2pi), as of the last {@link #readAll()} call.
+     */
+    public double[] getSteerAngles() {
+        return steerAngles;
+    }
+
+    /**
+     * Gets each module's position as of the last {@link #readAll()} call, suitable for passing to odometry.
+     */
+    public SwerveModulePosition[] getModulePositions() {
+        return positions;
+    }
+
+    /**
+     * Gets each module's state as of the last {@link #readAll()} call.
+     */
+    public SwerveModuleState[] getModuleStates() {
+        return states;
+    }
+}
@@ -0,0 +1,377 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.Threads;
+import edu.wpi.first.wpilibj.Timer;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Runs a drivetrain's control loop on its own {@link Notifier}, so the modules are commanded faster than the main
+ * robot loop and keep running through its pauses.
+ * <p>
+ * While the executor is running it owns the drivetrain: every cycle it runs a {@link DriveCycle} with the newest
+ * requested chassis speeds, and nothing else should read or command the modules. Speeds are requested from any
+ * thread with {@link #setChassisSpeeds(ChassisSpeeds)}, which drops them into a single slot mailbox without locking.
+ * Only the newest request is kept, and the control loop keeps running the last one it took until a newer one arrives
+ * or the command timeout passes, at which point the drivetrain is stopped.
+ * <p>
+ * After each cycle the module readings are published with a sequence lock. {@link #read(State)} copies them out
+ * without ever blocking the control loop, retrying only if it raced with a publish.
+ */
+public class SwerveDriveExecutor implements AutoCloseable {
+    public static final double DEFAULT_FREQUENCY = 200.0;
+    public static final double DEFAULT_COMMAND_TIMEOUT = 0.25;
+
+    private static final ChassisSpeeds STOPPED = new ChassisSpeeds();
+
+    private final SwerveDrive drive;
+    private final DriveCycle cycle;
+    private final int moduleCount;
+    private final double period;
+
+    private int realTimePriority = 0;
+    private double commandTimeout = DEFAULT_COMMAND_TIMEOUT;
+    private boolean closedLoopVelocity = false;
+    private DoubleSupplier clock = Timer::getFPGATimestamp;
+
+    private final AtomicReference<ChassisSpeeds> mailbox = new AtomicReference<>();
+    // Only touched by the control loop
+    private ChassisSpeeds chassisSpeeds = STOPPED;
+    private double lastRequestTime;
+    private boolean priorityRaised = false;
+
+    // Odd while a publish is in progress
+    private final AtomicLong sequence = new AtomicLong();
+    private double publishedTimestamp = Double.NaN;
+    private long publishedCycles = 0;
+    private final double[] publishedDistances;
+    private final double[] publishedVelocities;
+    private final double[] publishedAngles;
+
+    // Created by the first start(), so an executor that is never started needs no HAL
+    private Notifier notifier = null;
+    private boolean running = false;
+
+    /**
+     * Creates a new executor.
+     *
+     * @param drive     The drivetrain to control. The modules should have sensor snapshots enabled.
+     * @param frequency The control frequency in Hz. 100 to 250 Hz is recommended.
+     */
+    public SwerveDriveExecutor(SwerveDrive drive, double frequency) {
+        if (!(frequency > 0.0)) {
+            throw new IllegalArgumentException("Control frequency must be positive");
+        }
+
+        this.drive = drive;
+        this.cycle = drive.createDriveCycle();
+        this.moduleCount = drive.getModuleCount();
+        this.period = 1.0 / frequency;
+
+        this.publishedDistances = new double[moduleCount];
+        this.publishedVelocities = new double[moduleCount];
+        this.publishedAngles = new double[moduleCount];
+    }
+
+    public SwerveDriveExecutor(SwerveDrive drive) {
+        this(drive, DEFAULT_FREQUENCY);
+    }
+
+    /**
+     * Runs the control loop at a real-time priority. Must be called before {@link #start()}.
+     *
+     * @param priority The real-time priority, from 1 to 99. The main robot thread runs at 0, and the roboRIO's CAN
+     *                 driver threads run at around 30, so priorities above that can starve them.
+     * @return this executor
+     */
+    public synchronized SwerveDriveExecutor withRealTimePriority(int priority) {
+        if (priority < 1 || priority > 99) {
+            throw new IllegalArgumentException("Real-time priority must be from 1 to 99");
+        }
+        checkNotRunning();
+
+        this.realTimePriority = priority;
+        return this;
+    }
+
+    /**
+     * Sets how long the last requested speeds keep being run before the drivetrain is stopped. Must be called before
+     * {@link #start()}.
+     *
+     * @param seconds The timeout, or infinity to run the last request until a new one arrives.
+     * @return this executor
+     */
+    public synchronized SwerveDriveExecutor withCommandTimeout(double seconds) {
+        if (!(seconds > 0.0)) {
+            throw new IllegalArgumentException("Command timeout must be positive");
+        }
+        checkNotRunning();
+
+        this.commandTimeout = seconds;
+        return this;
+    }
+
+    /**
+     * Closes each module's drive velocity loop on its motor controller, as {@link DriveCycle#runVelocity(ChassisSpeeds)}
+     * does. Must be called before {@link #start()}.
+     *
+     * @return this executor
+     */
+    public synchronized SwerveDriveExecutor withClosedLoopVelocity() {
+        checkNotRunning();
+
+        this.closedLoopVelocity = true;
+        return this;
+    }
+
+    /**
+     * Sets the clock, in seconds, that times out requests and timestamps the published readings. Defaults to the FPGA
+     * timestamp. Supplying a manually advanced clock lets the executor run without the HAL. Must be called before
+     * {@link #start()}.
+     *
+     * @param clock the clock to read
+     * @return this executor
+     */
+    public synchronized SwerveDriveExecutor withClock(DoubleSupplier clock) {
+        if (clock == null) {
+            throw new RuntimeException("Clock should not be null!");
+        }
+        checkNotRunning();
+
+        this.clock = clock;
+        return this;
+    }
+
+    private void checkNotRunning() {
+        if (running) {
+            throw new IllegalStateException("The executor can't be configured while it is running");
+        }
+    }
+
+    /**
+     * Starts the control loop. The drivetrain holds still until speeds are requested.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        markRunning();
+        if (notifier == null) {
+            notifier = new Notifier(this::run);
+            notifier.setName("SwerveDriveExecutor");
+        }
+        notifier.startPeriodic(period);
+    }
+
+    /**
+     * Lets {@link #run()} run cycles without starting the notifier, so tests can step the control loop themselves.
+     */
+    synchronized void markRunning() {
+        mailbox.set(null);
+        chassisSpeeds = STOPPED;
+        lastRequestTime = clock.getAsDouble();
+        running = true;
+    }
+
+    /**
+     * Stops the control loop and the drive motors. Once this returns the control loop won't touch the modules again
+     * until the executor is restarted, so they can be commanded directly.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+
+        running = false;
+        if (notifier != null) {
+            notifier.stop();
+        }
+        drive.stop();
+    }
+
+    @Override
+    public synchronized void close() {
+        stop();
+        if (notifier != null) {
+            notifier.close();
+            notifier = null;
+        }
+    }
+
+    /**
+     * Requests the drivetrain move at robot relative speeds. Safe to call from any thread; never blocks.
+     *
+     * @param chassisSpeeds The speeds. Must not be modified after being passed in, as the control loop may still be
+     *                      reading them.
+     */
+    public void setChassisSpeeds(ChassisSpeeds chassisSpeeds) {
+        if (chassisSpeeds == null) {
+            throw new RuntimeException("Chassis speeds should not be null!");
+        }
+
+        mailbox.set(chassisSpeeds);
+    }
+
+    // Synchronized so stop() can't return while a cycle is still writing to the modules
+    synchronized void run() {
+        if (!running) {
+            return;
+        }
+
+        if (!priorityRaised) {
+            priorityRaised = true;
+            if (realTimePriority > 0) {
+                Threads.setCurrentThreadPriority(true, realTimePriority);
+            }
+        }
+
+        double now = clock.getAsDouble();
+        ChassisSpeeds request = mailbox.getAndSet(null);
+        if (request != null) {
+            chassisSpeeds = request;
+            lastRequestTime = now;
+        } else if (now - lastRequestTime > commandTimeout) {
+            chassisSpeeds = STOPPED;
+        }
+
+        if (closedLoopVelocity) {
+            cycle.runVelocity(chassisSpeeds);
+        } else {
+            cycle.run(chassisSpeeds);
+        }
+
+        publish(now);
+    }
+
+    private void publish(double timestamp) {
+        sequence.incrementAndGet();
+        // Keep the writes below from being reordered before the sequence is made odd
+        VarHandle.storeStoreFence();
+
+        publishedTimestamp = timestamp;
+        publishedCycles++;
+        System.arraycopy(drive.getDriveDistances(), 0, publishedDistances, 0, moduleCount);
+        System.arraycopy(drive.getDriveVelocities(), 0, publishedVelocities, 0, moduleCount);
+        System.arraycopy(drive.getSteerAngles(), 0, publishedAngles, 0, moduleCount);
+
+        sequence.incrementAndGet();
+    }
+
+    /**
+     * Creates a state sized for this executor's drivetrain, to be reused with {@link #read(State)}.
+     */
+    public State createState() {
+        return new State(moduleCount);
+    }
+
+    /**
+     * Copies the module readings from the newest control cycle. Safe to call from any thread, but each state should
+     * only be used by one thread at a time.
+     *
+     * @param state Filled with the readings.
+     * @return true if a cycle has run, false if nothing has been published yet
+     */
+    public boolean read(State state) {
+        while (true) {
+            long before = sequence.get();
+            if ((before & 1) == 0) {
+                state.timestamp = publishedTimestamp;
+                state.cycles = publishedCycles;
+                System.arraycopy(publishedDistances, 0, state.distances, 0, moduleCount);
+                System.arraycopy(publishedVelocities, 0, state.velocities, 0, moduleCount);
+                System.arraycopy(publishedAngles, 0, state.angles, 0, moduleCount);
+                // Keep the reads above from being reordered after the sequence is checked again
+                VarHandle.loadLoadFence();
+
+                if (sequence.get() == before) {
+                    return state.cycles > 0;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Gets the durations of every run of a phase of the control cycle. Only consistent while the executor is stopped.
+     */
+    public LatencyHistogram getHistogram(DriveCycle.Phase phase) {
+        return cycle.getHistogram(phase);
+    }
+
+    /**
+     * The module readings from one control cycle.
+     */
+    public static class State {
+        private double timestamp = Double.NaN;
+        private long cycles = 0;
+        private final double[] distances;
+        private final double[] velocities;
+        private final double[] angles;
+
+        private State(int moduleCount) {
+            this.distances = new double[moduleCount];
+            this.velocities = new double[moduleCount];
+            this.angles = new double[moduleCount];
+        }
+
+        /**
+         * Gets the timestamp, in seconds, the cycle started at. This is the FPGA timestamp unless another clock was set
+         * with {@link SwerveDriveExecutor#withClock(DoubleSupplier)}.
+         */
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Gets the number of cycles run when the readings were taken.
+         */
+        public long getCycles() {
+            return cycles;
+        }
+
+        /**
+         * Gets each module's drive distance in meters.
+         */
+        public double[] getDistances() {
+            return distances;
+        }
+
+        /**
+         * Gets each module's drive velocity in m/s.
+         */
+        public double[] getVelocities() {
+            return velocities;
+        }
+
+        /**
+         * Gets each module's steer angle in radians from [0, 2pi).
+         */
+        public double[] getAngles() {
+            return angles;
+        }
+
+        /**
+         * Writes the readings into existing module position objects.
+         *
+         * @param positions filled with each module's position
+         * @return {@code positions}, for chaining
+         */
+        public SwerveModulePosition[] getPositions(SwerveModulePosition[] positions) {
+            for (int i = 0; i < distances.length; i++) {
+                positions[i].distanceMeters = distances[i];
+                if (positions[i].angle.getRadians() != angles[i]) {
+                    positions[i].angle = Rotation2d.fromRadians(angles[i]);
+                }
+            }
+            return positions;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+
+/**
+ * Swerve drive kinematics for any number of modules, working entirely in caller supplied {@code double[]} buffers.
+ * <p>
+ * This gives the same results as WPILib's {@link edu.wpi.first.math.kinematics.SwerveDriveKinematics}, but the
+ * module geometry and the forward kinematics matrix are computed once up front and no method allocates. Speeds are in
+ * m/s, angular velocities in rad/s and module angles in radians from [0, 2pi), in the same order as the module
+ * locations.
+ */
+public class SwerveKinematics {
+    private static final double TWO_PI = 2.0 * Math.PI;
+    private static final double HALF_PI = Math.PI / 2.0;
+
+    private final int moduleCount;
+    private final double[] moduleX;
+    private final double[] moduleY;
+
+    // Least squares solution of the inverse kinematics, 3 rows of 2 * moduleCount columns. Each module's columns are
+    // its x and y velocity.
+    private final double[] forwardMatrix;
+
+    /**
+     * @param moduleLocations the location of each module relative to the center of the robot, in meters
+     */
+    public SwerveKinematics(Translation2d... moduleLocations) {
+        if (moduleLocations.length < 2) {
+            throw new IllegalArgumentException("A swerve drive requires at least two modules");
+        }
+
+        this.moduleCount = moduleLocations.length;
+        this.moduleX = new double[moduleCount];
+        this.moduleY = new double[moduleCount];
+        for (int i = 0; i < moduleCount; i++) {
+            moduleX[i] = moduleLocations[i].getX();
+            moduleY[i] = moduleLocations[i].getY();
+        }
+
+        this.forwardMatrix = createForwardMatrix(moduleX, moduleY);
+    }
+
+    private static double[] createForwardMatrix(double[] x, double[] y) {
+        int n = x.length;
+
+        // The inverse kinematics matrix A has rows [1, 0, -y] and [0, 1, x] for each module. Build A^T A, which is
+        // symmetric, and invert it by cofactors.
+        double sumX = 0.0;
+        double sumY = 0.0;
+        double sumSquares = 0.0;
+        for (int i = 0; i < n; i++) {
+            sumX += x[i];
+            sumY += y[i];
+            sumSquares += x[i] * x[i] + y[i] * y[i];
+        }
+        double a00 = n, a01 = 0.0, a02 = -sumY;
+        double a11 = n, a12 = sumX;
+        double a22 = sumSquares;
+
+        double c00 = a11 * a22 - a12 * a12;
+        double c01 = a02 * a12 - a01 * a22;
+        double c02 = a01 * a12 - a02 * a11;
+        double c11 = a00 * a22 - a02 * a02;
+        double c12 = a01 * a02 - a00 * a12;
+        double c22 = a00 * a11 - a01 * a01;
+        double determinant = a00 * c00 + a01 * c01 + a02 * c02;
+        if (Math.abs(determinant) < 1e-12) {
+            throw new IllegalArgumentException("Module locations must not all be the same point");
+        }
+        double[][] inverse = {
+                {c00 / determinant, c01 / determinant, c02 / determinant},
+                {c01 / determinant, c11 / determinant, c12 / determinant},
+                {c02 / determinant, c12 / determinant, c22 / determinant}
+        };
+
+        // (A^T A)^-1 A^T
+        double[] matrix = new double[3 * 2 * n];
+        for (int row = 0; row < 3; row++) {
+            for (int i = 0; i < n; i++) {
+                matrix[row * 2 * n + 2 * i] = inverse[row][0] + inverse[row][2] * -y[i];
+                matrix[row * 2 * n + 2 * i + 1] = inverse[row][1] + inverse[row][2] * x[i];
+            }
+        }
+        return matrix;
+    }
+
+    public int getModuleCount() {
+        return moduleCount;
+    }
+
+    /**
+     * Converts robot relative chassis speeds to module speeds and angles.
+     * <p>
+     * When the chassis is commanded to stop, every speed is set to 0 and the angles are left as they were, so the
+     * modules hold their heading instead of snapping to 0.
+     *
+     * @param vx     forward velocity in m/s
+     * @param vy     leftward velocity in m/s
+     * @param omega  counter-clockwise angular velocity in rad/s
+     * @param speeds filled with each module's speed
+     * @param angles filled with each module's angle
+     */
+    public void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] angles) {
+        if (vx == 0.0 && vy == 0.0 && omega == 0.0) {
+            for (int i = 0; i < moduleCount; i++) {
+                speeds[i] = 0.0;
+            }
+            return;
+        }
+
+        for (int i = 0; i < moduleCount; i++) {
+            double moduleVx = vx - omega * moduleY[i];
+            double moduleVy = vy + omega * moduleX[i];
+
+            speeds[i] = Math.hypot(moduleVx, moduleVy);
+            double angle = Math.atan2(moduleVy, moduleVx);
+            angles[i] = angle < 0.0 ? angle + TWO_PI : angle;
+        }
+    }
+
+    /**
+     * Converts robot relative chassis speeds to module speeds and angles.
+     *
+     * @see #toModuleStates(double, double, double, double[], double[])
+     */
+    public void toModuleStates(ChassisSpeeds chassisSpeeds, double[] speeds, double[] angles) {
+        toModuleStates(chassisSpeeds.vxMetersPerSecond, chassisSpeeds.vyMetersPerSecond,
+                chassisSpeeds.omegaRadiansPerSecond, speeds, angles);
+    }
+
+    /**
+     * Converts module speeds and angles to the robot relative chassis speeds that best fit them.
+     *
+     * @param speeds        each module's speed
+     * @param angles        each module's angle
+     * @param chassisSpeeds filled with the forward velocity, leftward velocity and angular velocity, in that order
+     */
+    public void toChassisSpeeds(double[] speeds, double[] angles, double[] chassisSpeeds) {
+        double vx = 0.0;
+        double vy = 0.0;
+        double omega = 0.0;
+
+        int columns = 2 * moduleCount;
+        for (int i = 0; i < moduleCount; i++) {
+            double moduleVx = speeds[i] * Math.cos(angles[i]);
+            double moduleVy = speeds[i] * Math.sin(angles[i]);
+
+            int column = 2 * i;
+            vx += forwardMatrix[column] * moduleVx + forwardMatrix[column + 1] * moduleVy;
+            vy += forwardMatrix[columns + column] * moduleVx + forwardMatrix[columns + column + 1] * moduleVy;
+            omega += forwardMatrix[2 * columns + column] * moduleVx + forwardMatrix[2 * columns + column + 1] * moduleVy;
+        }
+
+        chassisSpeeds[0] = vx;
+        chassisSpeeds[1] = vy;
+        chassisSpeeds[2] = omega;
+    }
+
+    /**
+     * Scales every module speed down by the same factor so none is faster than the max speed, keeping the direction
+     * of motion the same.
+     *
+     * @param speeds   the module speeds, scaled in place
+     * @param maxSpeed the fastest any module can go, in m/s
+     */
+    public static void desaturate(double[] speeds, double maxSpeed) {
+        double fastest = 0.0;
+        for (double speed : speeds) {
+            fastest = Math.max(fastest, Math.abs(speed));
+        }
+
+        if (fastest > maxSpeed) {
+            double scale = maxSpeed / fastest;
+            for (int i = 0; i < speeds.length; i++) {
+                speeds[i] *= scale;
+            }
+        }
+    }
+
+    /**
+     * Reverses any module that would have to turn more than 90 degrees, so it turns less and drives backwards
+     * instead.
+     * <p>
+     * {@link SwerveModule#set(double, double)} already does this for each module, so this is only needed when the
+     * targets are used for something else, such as logging what the modules will actually do.
+     *
+     * @param speeds        the module speeds, negated in place where reversed
+     * @param angles        the module angles, turned in place where reversed, kept in [0, 2pi)
+     * @param currentAngles each module's current angle
+     */
+    public static void optimize(double[] speeds, double[] angles, double[] currentAngles) {
+        for (int i = 0; i < speeds.length; i++) {
+            double difference = angles[i] - currentAngles[i];
+            difference -= TWO_PI * Math.floor((difference + Math.PI) / TWO_PI);
+
+            if (difference > HALF_PI || difference < -HALF_PI) {
+                speeds[i] = -speeds[i];
+                double angle = angles[i] + Math.PI;
+                angles[i] = angle >= TWO_PI ? angle - TWO_PI : angle;
+            }
+        }
+    }
+}
@@ -5,6 +5,8 @@ import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 
+import java.util.List;
+
 public interface SwerveModule {
     MotorController getDriveMotor();
 
@@ -33,6 +35,26 @@ public interface SwerveModule {
      */
     double getSteerAngle();
 
+    /**
+     * Get the steer angle the module was last commanded to, after choosing between the requested angle and its
+     * opposite
+     * 
+     * @return target steer angle in radians from [0, 2pi), or NaN if not known
+     */
+    default double getTargetSteerAngle() {
+        return Double.NaN;
+    }
+
+    /**
+     * Get the drive voltage the module was last commanded to. With a closed drive velocity loop this is the
+     * feedforward voltage.
+     * 
+     * @return target drive voltage, or NaN if not known
+     */
+    default double getTargetDriveVoltage() {
+        return Double.NaN;
+    }
+
     default SwerveModuleState getState() {
         return new SwerveModuleState(getDriveVelocity(), Rotation2d.fromRadians(getSteerAngle()));
     }
@@ -41,5 +63,167 @@ public interface SwerveModule {
         return new SwerveModulePosition(getDriveDistance(), Rotation2d.fromRadians(getSteerAngle()));
     }
 
+    /**
+     * Writes the module state into an existing object instead of allocating a new one.
+     * <p>
+     * The state's {@link Rotation2d} is immutable, so a new one is only allocated when the steer angle has changed
+     * since the state was last filled.
+     *
+     * @param state the state to fill in
+     * @return {@code state}, for chaining
+     */
+    default SwerveModuleState getState(SwerveModuleState state) {
+        state.speedMetersPerSecond = getDriveVelocity();
+        state.angle = updateRotation(state.angle, getSteerAngle());
+        return state;
+    }
+
+    /**
+     * Writes the module position into an existing object instead of allocating a new one.
+     * <p>
+     * The position's {@link Rotation2d} is immutable, so a new one is only allocated when the steer angle has changed
+     * since the position was last filled.
+     *
+     * @param position the position to fill in
+     * @return {@code position}, for chaining
+     */
+    default SwerveModulePosition getPosition(SwerveModulePosition position) {
+        position.distanceMeters = getDriveDistance();
+        position.angle = updateRotation(position.angle, getSteerAngle());
+        return position;
+    }
+
+    /**
+     * Writes the drive velocities and steer angles of several modules into primitive arrays.
+     *
+     * @param modules    the modules to read
+     * @param velocities filled with each module's drive velocity in m/s
+     * @param angles     filled with each module's steer angle in radians from [0, 2pi)
+     */
+    static void getStates(SwerveModule[] modules, double[] velocities, double[] angles) {
+        for (int i = 0; i < modules.length; i++) {
+            velocities[i] = modules[i].getDriveVelocity();
+            angles[i] = modules[i].getSteerAngle();
+        }
+    }
+
+    /**
+     * Writes the drive distances and steer angles of several modules into primitive arrays.
+     *
+     * @param modules   the modules to read
+     * @param distances filled with each module's drive distance in meters
+     * @param angles    filled with each module's steer angle in radians from [0, 2pi)
+     */
+    static void getPositions(SwerveModule[] modules, double[] distances, double[] angles) {
+        for (int i = 0; i < modules.length; i++) {
+            distances[i] = modules[i].getDriveDistance();
+            angles[i] = modules[i].getSteerAngle();
+        }
+    }
+
+    /**
+     * Writes the positions of several modules into existing position objects.
+     *
+     * @param modules   the modules to read
+     * @param positions filled with each module's position
+     * @see #getPosition(SwerveModulePosition)
+     */
+    static void getPositions(SwerveModule[] modules, SwerveModulePosition[] positions) {
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].getPosition(positions[i]);
+        }
+    }
+
     void set(double driveVoltage, double steerAngle);
+
+    /**
+     * Sets the module's drive velocity and steer angle, closing the drive velocity loop on the motor controller.
+     * <p>
+     * Like {@link #set(double, double)}, the module may steer to the opposite angle and drive backwards instead.
+     * Modules whose drive controller has no velocity loop only apply the feedforward voltage.
+     *
+     * @param driveVelocity    the target drive velocity in m/s
+     * @param feedforwardVolts drive voltage added to the velocity loop's output
+     * @param steerAngle       the target steer angle in radians
+     * @see DriveController#setReferenceVelocity(double, double)
+     */
+    default void setVelocity(double driveVelocity, double feedforwardVolts, double steerAngle) {
+        set(feedforwardVolts, steerAngle);
+    }
+
+    /**
+     * Latches the module's sensor readings.
+     * <p>
+     * Modules created with sensor snapshots enabled (see {@link SwerveModuleFactory#withSensorSnapshots()}) serve
+     * every getter, including {@link #getState()} and {@link #getPosition()}, from the readings latched by the last
+     * call, so all readers within a robot cycle see the same consistent values. Call this once at the start of each
+     * cycle. Modules that read their sensors on demand ignore this.
+     */
+    default void refresh() {
+    }
+
+    /**
+     * Gets the time the module's sensor readings were last latched by {@link #refresh()}.
+     *
+     * @return FPGA timestamp in seconds, or NaN if the module reads its sensors on demand
+     */
+    default double getTimestamp() {
+        return Double.NaN;
+    }
+
+    /**
+     * Gets the latencies of the module's drive controller calls.
+     *
+     * @return the latencies, or null if the module wasn't created with instrumentation
+     * @see SwerveModuleFactory#withInstrumentation()
+     */
+    default LatencyDiagnostics getDriveDiagnostics() {
+        return null;
+    }
+
+    /**
+     * Gets the latencies of the module's steer controller calls.
+     *
+     * @return the latencies, or null if the module wasn't created with instrumentation
+     * @see SwerveModuleFactory#withInstrumentation()
+     */
+    default LatencyDiagnostics getSteerDiagnostics() {
+        return null;
+    }
+
+    /**
+     * Gets the cache that suppresses repeated drive setpoint writes.
+     *
+     * @return the cache, or null if the drive controller sends every setpoint
+     */
+    default WriteCoalescer getDriveWriteCoalescer() {
+        return null;
+    }
+
+    /**
+     * Gets the cache that suppresses repeated steer setpoint writes.
+     *
+     * @return the cache, or null if the steer controller sends every setpoint
+     */
+    default WriteCoalescer getSteerWriteCoalescer() {
+        return null;
+    }
+
+    /**
+     * Gets the module's devices whose status frame periods can be retuned while the robot runs.
+     *
+     * @return the devices, or an empty list if the module's status frames can't be retuned
+     * @see StatusFrameScheduler
+     */
+    default List<StatusFrameTarget> getStatusFrameTargets() {
+        return List.of();
+    }
+
+    private static Rotation2d updateRotation(Rotation2d rotation, double angleRadians) {
+        if (rotation != null && rotation.getRadians() == angleRadians) {
+            return rotation;
+        }
+
+        return Rotation2d.fromRadians(angleRadians);
+    }
 }
@@ -1,21 +1,172 @@
 package com.swervedrivespecialties.swervelib;
 
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.DoubleSupplier;
+
 public class SwerveModuleFactory<DC, SC> {
     private final MechanicalConfiguration mechConfiguration;
+    private final DriveControllerFactory<?, DC> baseDriveControllerFactory;
+    private final SteerControllerFactory<?, SC> baseSteerControllerFactory;
     private final DriveControllerFactory<?, DC> driveControllerFactory;
     private final SteerControllerFactory<?, SC> steerControllerFactory;
+    private final boolean sensorSnapshots;
+    private final boolean instrumentation;
+    private final ModuleLogger logger;
+    private final DoubleSupplier clock;
 
     public SwerveModuleFactory(MechanicalConfiguration mechConfiguration,
                                DriveControllerFactory<?, DC> driveControllerFactory,
                                SteerControllerFactory<?, SC> steerControllerFactory) {
+        this(mechConfiguration, driveControllerFactory, steerControllerFactory, false, false, null,
+                Timer::getFPGATimestamp);
+    }
+
+    private SwerveModuleFactory(MechanicalConfiguration mechConfiguration,
+                                DriveControllerFactory<?, DC> driveControllerFactory,
+                                SteerControllerFactory<?, SC> steerControllerFactory,
+                                boolean sensorSnapshots,
+                                boolean instrumentation,
+                                ModuleLogger logger,
+                                DoubleSupplier clock) {
         this.mechConfiguration = mechConfiguration;
+        this.baseDriveControllerFactory = driveControllerFactory;
+        this.baseSteerControllerFactory = steerControllerFactory;
+        this.sensorSnapshots = sensorSnapshots;
+        this.instrumentation = instrumentation;
+        this.logger = logger;
+        this.clock = clock;
+
+        // Instrumentation goes closest to the hardware so snapshots time the reads they latch
+        if (instrumentation) {
+            driveControllerFactory = InstrumentedDriveController.wrap(driveControllerFactory);
+            steerControllerFactory = InstrumentedSteerController.wrap(steerControllerFactory);
+        }
+        if (sensorSnapshots) {
+            driveControllerFactory = SnapshotDriveController.wrap(driveControllerFactory);
+            steerControllerFactory = SnapshotSteerController.wrap(steerControllerFactory);
+        }
         this.driveControllerFactory = driveControllerFactory;
         this.steerControllerFactory = steerControllerFactory;
     }
 
+    /**
+     * Gets a factory whose modules latch their sensor readings once per {@link SwerveModule#refresh()} call and serve
+     * every getter, including the dashboard entries, from those latched values.
+     * <p>
+     * Vendor specific dashboard entries (such as the absolute encoder angle) are not added to modules created by
+     * the returned factory, since they would read the hardware outside of {@link SwerveModule#refresh()}.
+     *
+     * @return a new factory with sensor snapshots enabled
+     */
+    public SwerveModuleFactory<DC, SC> withSensorSnapshots() {
+        if (sensorSnapshots) {
+            return this;
+        }
+
+        return new SwerveModuleFactory<>(
+                mechConfiguration,
+                baseDriveControllerFactory,
+                baseSteerControllerFactory,
+                true,
+                instrumentation,
+                logger,
+                clock
+        );
+    }
+
+    /**
+     * Gets a factory whose modules time every call into their drive and steer controllers, which is where the vendor
+     * library calls happen. The durations are recorded into the histograms returned by
+     * {@link SwerveModule#getDriveDiagnostics()} and {@link SwerveModule#getSteerDiagnostics()}.
+     * <p>
+     * Each call costs two extra {@link System#nanoTime()} reads and never allocates.
+     *
+     * @return a new factory with instrumentation enabled
+     */
+    public SwerveModuleFactory<DC, SC> withInstrumentation() {
+        if (instrumentation) {
+            return this;
+        }
+
+        return new SwerveModuleFactory<>(
+                mechConfiguration,
+                baseDriveControllerFactory,
+                baseSteerControllerFactory,
+                sensorSnapshots,
+                true,
+                logger,
+                clock
+        );
+    }
+
+    /**
+     * Gets a factory whose modules log to {@code logger}. Every {@link SwerveModule#set(double, double)} and
+     * {@link SwerveModule#setVelocity(double, double, double)} call is logged, followed by the setpoints the module
+     * sent to its controllers after optimizing it. Every sensor reading is logged too. With sensor snapshots enabled
+     * that is the values latched by each {@link SwerveModule#refresh()}, otherwise it is every getter call.
+     * <p>
+     * Controllers built on {@link IODriveController} and {@link IOSteerController} also log every read and output
+     * that goes through their IO, which is what {@link ModuleReplay} checks a replay against.
+     * <p>
+     * Each module is registered with the logger when it is created, as {@code "Module n"} in creation order, so the
+     * logger must be started after every module has been created. Records made before then are dropped.
+     *
+     * @param logger the logger to write to
+     * @return a new factory with logging enabled
+     */
+    public SwerveModuleFactory<DC, SC> withLogger(ModuleLogger logger) {
+        if (logger == null) {
+            throw new RuntimeException("Logger should not be null!");
+        }
+        if (this.logger == logger) {
+            return this;
+        }
+
+        return new SwerveModuleFactory<>(
+                mechConfiguration,
+                baseDriveControllerFactory,
+                baseSteerControllerFactory,
+                sensorSnapshots,
+                instrumentation,
+                logger,
+                clock
+        );
+    }
+
+    /**
+     * Gets a factory whose modules timestamp their latched readings with {@code clock}, in seconds. Defaults to the
+     * FPGA timestamp. Supplying a manually advanced clock lets modules run without the HAL, such as in tests or when
+     * replaying a log.
+     *
+     * @param clock the clock to read
+     * @return a new factory using the clock
+     * @see SwerveModule#getTimestamp()
+     */
+    public SwerveModuleFactory<DC, SC> withClock(DoubleSupplier clock) {
+        if (clock == null) {
+            throw new RuntimeException("Clock should not be null!");
+        }
+
+        return new SwerveModuleFactory<>(
+                mechConfiguration,
+                baseDriveControllerFactory,
+                baseSteerControllerFactory,
+                sensorSnapshots,
+                instrumentation,
+                logger,
+                clock
+        );
+    }
+
     public SwerveModule create(DC driveConfiguration, String driveCanbus, SC steerConfiguration, String steerCanbus) {
         var driveController = driveControllerFactory.create(
                 driveConfiguration, 
@@ -28,7 +179,7 @@ public class SwerveModuleFactory<DC, SC> {
                 mechConfiguration
         );
 
-        return new ModuleImplementation(driveController, steerController);
+        return new ModuleImplementation(driveController, steerController, sensorSnapshots, logger, registerModule(), clock);
     }
 
     public SwerveModule create(DC driveConfiguration, SC steerConfiguration) {
@@ -41,7 +192,7 @@ public class SwerveModuleFactory<DC, SC> {
                 mechConfiguration
         );
 
-        return new ModuleImplementation(driveController, steerController);
+        return new ModuleImplementation(driveController, steerController, sensorSnapshots, logger, registerModule(), clock);
     }
 
     public SwerveModule create(ShuffleboardLayout container, DC driveConfiguration, String driveCanbus, SC steerConfiguration, String steerCanbus) {
@@ -58,7 +209,7 @@ public class SwerveModuleFactory<DC, SC> {
                 mechConfiguration
         );
 
-        return new ModuleImplementation(driveController, steerContainer);
+        return new ModuleImplementation(driveController, steerContainer, sensorSnapshots, logger, registerModule(), clock);
     }
 
     public SwerveModule create(ShuffleboardLayout container, DC driveConfiguration, SC steerConfiguration) {
@@ -73,16 +224,120 @@ public class SwerveModuleFactory<DC, SC> {
                 mechConfiguration
         );
 
-        return new ModuleImplementation(driveController, steerContainer);
+        return new ModuleImplementation(driveController, steerContainer, sensorSnapshots, logger, registerModule(), clock);
+    }
+
+    /**
+     * Creates a module, configuring its drive and steer controllers concurrently on {@code executor}.
+     * <p>
+     * Each controller is configured inside {@link DeviceConfigurationReport#record(String, java.util.function.Supplier)}
+     * so its configuration time and errors end up in {@code report}. Dashboard entries are added once both controllers
+     * exist, by whichever thread finishes last.
+     *
+     * @param executor  runs the blocking controller configuration
+     * @param report    collects configuration times and errors
+     * @param driveName name of the drive controller in the report
+     * @param steerName name of the steer controller in the report
+     * @param container container for the module's dashboard entries, or null for none
+     * @return the module, completed once both controllers are configured
+     */
+    public CompletableFuture<SwerveModule> createAsync(Executor executor, DeviceConfigurationReport report,
+                                                      String driveName, String steerName,
+                                                      ShuffleboardLayout container,
+                                                      DC driveConfiguration, String driveCanbus,
+                                                      SC steerConfiguration, String steerCanbus) {
+        // Register now rather than when the controllers finish, so modules are numbered in the order they're requested
+        int device = registerModule();
+        var driveController = CompletableFuture.supplyAsync(() -> report.record(driveName,
+                () -> driveControllerFactory.create(driveConfiguration, driveCanbus, mechConfiguration)), executor);
+        var steerController = CompletableFuture.supplyAsync(() -> report.record(steerName,
+                () -> steerControllerFactory.create(steerConfiguration, steerCanbus, mechConfiguration)), executor);
+
+        return driveController.thenCombine(steerController, (drive, steer) -> {
+            if (container != null) {
+                // Only this module's entries are added to its container, but keep them from interleaving with any
+                // other thread touching the same layout
+                synchronized (container) {
+                    addDriveDashboardEntries(driveControllerFactory, container, drive);
+                    addSteerDashboardEntries(steerControllerFactory, container, steer);
+                }
+            }
+
+            return new ModuleImplementation(drive, steer, sensorSnapshots, logger, device, clock);
+        });
+    }
+
+    private int registerModule() {
+        return logger != null ? logger.registerDevice("Module") : -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C extends DriveController> void addDriveDashboardEntries(
+            DriveControllerFactory<C, ?> factory, ShuffleboardContainer container, DriveController controller) {
+        factory.addDashboardEntries(container, (C) controller);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <C extends SteerController> void addSteerDashboardEntries(
+            SteerControllerFactory<C, ?> factory, ShuffleboardContainer container, SteerController controller) {
+        factory.addDashboardEntries(container, (C) controller);
     }
 
     private static class ModuleImplementation implements SwerveModule {
+        private static final double TWO_PI = 2.0 * Math.PI;
+        private static final double HALF_PI = Math.PI / 2.0;
+
         private final DriveController driveController;
         private final SteerController steerController;
+        private final boolean sensorSnapshots;
+        private final ModuleLogger logger;
+        private final int device;
+        private final DoubleSupplier clock;
 
-        private ModuleImplementation(DriveController driveController, SteerController steerController) {
+        private double timestamp = Double.NaN;
+        private double targetDriveVoltage = Double.NaN;
+
+        private ModuleImplementation(DriveController driveController, SteerController steerController,
+                                     boolean sensorSnapshots, ModuleLogger logger, int device,
+                                     DoubleSupplier clock) {
             this.driveController = driveController;
             this.steerController = steerController;
+            this.sensorSnapshots = sensorSnapshots;
+            this.logger = logger;
+            this.device = device;
+            this.clock = clock;
+
+            if (logger != null) {
+                DriveController baseDriveController = baseController(driveController);
+                if (baseDriveController instanceof IODriveController) {
+                    ((IODriveController) baseDriveController).logTo(logger, device);
+                }
+                SteerController baseSteerController = baseController(steerController);
+                if (baseSteerController instanceof IOSteerController) {
+                    ((IOSteerController) baseSteerController).logTo(logger, device);
+                }
+            }
+        }
+
+        // The controllers the backends built, under any snapshot and instrumentation wrappers
+        private static DriveController baseController(DriveController controller) {
+            if (controller instanceof SnapshotDriveController) {
+                controller = ((SnapshotDriveController) controller).getController();
+            }
+            if (controller instanceof InstrumentedDriveController) {
+                controller = ((InstrumentedDriveController) controller).getController();
+            }
+            return controller;
+        }
+
+        private static SteerController baseController(SteerController controller) {
+            if (controller instanceof SnapshotSteerController) {
+                controller = ((SnapshotSteerController) controller).getController();
+            }
+            if (controller instanceof InstrumentedSteerController) {
+                controller = ((InstrumentedSteerController) controller).getController();
+            }
+            return controller;
         }
 
         @Override
@@ -102,51 +357,163 @@ public class SwerveModuleFactory<DC, SC> {
 
         @Override
         public double getDriveVelocity() {
-            return driveController.getStateVelocity();
+            double velocity = driveController.getStateVelocity();
+            if (logger != null && !sensorSnapshots) {
+                logger.log(device, RecordType.DRIVE_VELOCITY, velocity, 0.0, 0.0);
+            }
+            return velocity;
         }
 
         @Override
         public double getDriveDistance() {
-            return driveController.getStateDistance();
+            double distance = driveController.getStateDistance();
+            if (logger != null && !sensorSnapshots) {
+                logger.log(device, RecordType.DRIVE_DISTANCE, distance, 0.0, 0.0);
+            }
+            return distance;
         }
 
         @Override
         public double getSteerAngle() {
-            return steerController.getStateAngle();
+            double angle = steerController.getStateAngle();
+            if (logger != null && !sensorSnapshots) {
+                logger.log(device, RecordType.STEER_ANGLE, angle, 0.0, 0.0);
+            }
+            return angle;
+        }
+
+        @Override
+        public double getTargetSteerAngle() {
+            return steerController.getReferenceAngle();
+        }
+
+        @Override
+        public double getTargetDriveVoltage() {
+            return targetDriveVoltage;
         }
 
         @Override
         public void set(double driveVoltage, double steerAngle) {
-            steerAngle %= (2.0 * Math.PI);
+            set(false, driveVoltage, 0.0, steerAngle);
+        }
+
+        @Override
+        public void setVelocity(double driveVelocity, double feedforwardVolts, double steerAngle) {
+            set(true, driveVelocity, feedforwardVolts, steerAngle);
+        }
+
+        private void set(boolean closedLoop, double driveReference, double driveFeedforward, double steerAngle) {
+            // Logged before anything is read, so a replay can tell which IO reads belong to this command
+            if (logger != null) {
+                if (closedLoop) {
+                    logger.log(device, RecordType.MODULE_SET_VELOCITY, driveReference, driveFeedforward, steerAngle);
+                } else {
+                    logger.log(device, RecordType.MODULE_SET, driveReference, steerAngle, 0.0);
+                }
+            }
+
+            // Read the steer angle once so the wrap and flip decisions below are made against the same sample
+            double currentAngle = getSteerAngle();
+
+            steerAngle %= TWO_PI;
             if (steerAngle < 0.0) {
-                steerAngle += 2.0 * Math.PI;
+                steerAngle += TWO_PI;
             }
 
-            double difference = steerAngle - getSteerAngle();
+            double difference = steerAngle - currentAngle;
             // Change the target angle so the difference is in the range [-pi, pi) instead of [0, 2pi)
             if (difference >= Math.PI) {
-                steerAngle -= 2.0 * Math.PI;
+                steerAngle -= TWO_PI;
+                difference -= TWO_PI;
             } else if (difference < -Math.PI) {
-                steerAngle += 2.0 * Math.PI;
+                steerAngle += TWO_PI;
+                difference += TWO_PI;
             }
-            difference = steerAngle - getSteerAngle(); // Recalculate difference
 
             // If the difference is greater than 90 deg or less than -90 deg the drive can be inverted so the total
             // movement of the module is less than 90 deg
-            if (difference > Math.PI / 2.0 || difference < -Math.PI / 2.0) {
+            if (difference > HALF_PI || difference < -HALF_PI) {
                 // Only need to add 180 deg here because the target angle will be put back into the range [0, 2pi)
                 steerAngle += Math.PI;
-                driveVoltage *= -1.0;
+                driveReference = -driveReference;
+                driveFeedforward = -driveFeedforward;
             }
 
             // Put the target angle back into the range [0, 2pi)
-            steerAngle %= (2.0 * Math.PI);
+            steerAngle %= TWO_PI;
             if (steerAngle < 0.0) {
-                steerAngle += 2.0 * Math.PI;
+                steerAngle += TWO_PI;
             }
 
-            driveController.setReferenceVoltage(driveVoltage);
+            if (closedLoop) {
+                driveController.setReferenceVelocity(driveReference, driveFeedforward);
+                targetDriveVoltage = driveFeedforward;
+            } else {
+                driveController.setReferenceVoltage(driveReference);
+                targetDriveVoltage = driveReference;
+            }
             steerController.setReferenceAngle(steerAngle);
+
+            if (logger != null) {
+                if (closedLoop) {
+                    logger.log(device, RecordType.SET_DRIVE_VELOCITY, driveReference, driveFeedforward, 0.0);
+                } else {
+                    logger.log(device, RecordType.SET_DRIVE_VOLTAGE, driveReference, 0.0, 0.0);
+                }
+                logger.log(device, RecordType.SET_STEER_ANGLE, steerAngle, 0.0, 0.0);
+            }
+        }
+
+        @Override
+        public LatencyDiagnostics getDriveDiagnostics() {
+            return driveController.getDiagnostics();
+        }
+
+        @Override
+        public LatencyDiagnostics getSteerDiagnostics() {
+            return steerController.getDiagnostics();
+        }
+
+        @Override
+        public WriteCoalescer getDriveWriteCoalescer() {
+            return driveController.getWriteCoalescer();
+        }
+
+        @Override
+        public WriteCoalescer getSteerWriteCoalescer() {
+            return steerController.getWriteCoalescer();
+        }
+
+        @Override
+        public List<StatusFrameTarget> getStatusFrameTargets() {
+            List<StatusFrameTarget> targets = new ArrayList<>(driveController.getStatusFrameTargets());
+            targets.addAll(steerController.getStatusFrameTargets());
+            return targets;
+        }
+
+        @Override
+        public void refresh() {
+            if (!sensorSnapshots) {
+                return;
+            }
+
+            if (logger != null) {
+                logger.log(device, RecordType.MODULE_REFRESH, 0.0, 0.0, 0.0);
+            }
+            driveController.refresh();
+            steerController.refresh();
+            timestamp = clock.getAsDouble();
+
+            if (logger != null) {
+                logger.log(device, RecordType.DRIVE_VELOCITY, driveController.getStateVelocity(), 0.0, 0.0);
+                logger.log(device, RecordType.DRIVE_DISTANCE, driveController.getStateDistance(), 0.0, 0.0);
+                logger.log(device, RecordType.STEER_ANGLE, steerController.getStateAngle(), 0.0, 0.0);
+            }
+        }
+
+        @Override
+        public double getTimestamp() {
+            return timestamp;
         }
     }
 }
@@ -0,0 +1,277 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.RawPublisher;
+import edu.wpi.first.networktables.RawTopic;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes module state to the dashboard from a low priority background thread, so dashboards never read hardware
+ * or hold up the control loop.
+ * <p>
+ * The control loop calls {@link #record()} once per cycle, after the modules have been read. That copies each
+ * module's latest state into a lock-free ring buffer without reading any hardware that the getters wouldn't already
+ * read. The publisher thread wakes up at its own rate, skips to the newest record and writes it to NetworkTables.
+ * Records are dropped rather than blocking the loop if the publisher falls behind.
+ * <p>
+ * The publisher can also pack every record into a single raw NetworkTables topic with
+ * {@link #withPackedTopic(String)}, laid out as described by {@link PackedModuleStates}. Every record made by the
+ * loop is published, not just the newest, so each value in the topic is one consistent snapshot of all modules.
+ * <p>
+ * Modules are added with {@link #addModule(SwerveModule, ShuffleboardContainer)} before {@link #start()}.
+ * {@link MkSwerveModuleBuilder#withTelemetryPublisher(TelemetryPublisher)} does this in place of the dashboard
+ * entries {@link MkSwerveModuleBuilder#withLayout(edu.wpi.first.wpilibj.shuffleboard.ShuffleboardLayout)} would add.
+ */
+public class TelemetryPublisher implements AutoCloseable {
+    public static final double DEFAULT_FREQUENCY = 10.0;
+    /**
+     * The fastest rate, in Hz, {@link #record()} can be called at without dropping records when the capacity is
+     * sized by {@link #TelemetryPublisher(double)}. Covers a {@link SwerveDriveExecutor} at its default frequency.
+     */
+    public static final double DEFAULT_MAX_RECORD_FREQUENCY = 250.0;
+
+    private static final int TIMESTAMP_INDEX = 0;
+    private static final int HEADER_WIDTH = 1;
+    private static final int MODULE_WIDTH = PackedModuleStates.MODULE_FIELDS;
+    private static final int TARGET_ANGLE_OFFSET = PackedModuleStates.TARGET_ANGLE;
+    private static final int ANGLE_OFFSET = PackedModuleStates.ANGLE;
+    private static final int VELOCITY_OFFSET = PackedModuleStates.VELOCITY;
+    private static final int DISTANCE_OFFSET = PackedModuleStates.DISTANCE;
+    private static final int TARGET_VOLTAGE_OFFSET = PackedModuleStates.TARGET_VOLTAGE;
+    private static final int MODULE_TIMESTAMP_OFFSET = PackedModuleStates.TIMESTAMP;
+    // Shuffleboard entries are only added for the fields before the target voltage
+    private static final int ENTRY_COUNT = 4;
+
+    private final double period;
+    private final int capacity;
+
+    private final List<SwerveModule> moduleList = new ArrayList<>();
+    private final List<GenericEntry[]> entryList = new ArrayList<>();
+    private SwerveModule[] modules = new SwerveModule[0];
+    private GenericEntry[][] entries = new GenericEntry[0][];
+
+    private volatile DoubleRingBuffer buffer = null;
+    private double[] writeRecord;
+    private double[] readRecord;
+
+    private String packedTopicName = null;
+    private RawPublisher packedPublisher = null;
+    private byte[] packedRecord;
+    private ByteBuffer packedBuffer;
+
+    private Thread thread = null;
+    private volatile boolean running = false;
+
+    /**
+     * Creates a new publisher.
+     *
+     * @param frequency How often the dashboard is updated, in Hz.
+     * @param capacity  The number of records buffered between updates. Records made while the buffer is full are
+     *                  dropped, so this must be more than the record rate divided by {@code frequency}.
+     */
+    public TelemetryPublisher(double frequency, int capacity) {
+        if (!(frequency > 0.0)) {
+            throw new IllegalArgumentException("Publishing frequency must be positive");
+        }
+
+        this.period = 1.0 / frequency;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Creates a new publisher buffering enough records to keep up with {@link #DEFAULT_MAX_RECORD_FREQUENCY}.
+     *
+     * @param frequency How often the dashboard is updated, in Hz.
+     */
+    public TelemetryPublisher(double frequency) {
+        // Two periods' worth, since the publisher thread runs at low priority and may wake up late
+        this(frequency, (int) Math.ceil(2.0 * DEFAULT_MAX_RECORD_FREQUENCY / frequency));
+    }
+
+    public TelemetryPublisher() {
+        this(DEFAULT_FREQUENCY);
+    }
+
+    /**
+     * Also publishes every record packed into a single raw topic. Must be called before {@link #start()}.
+     * <p>
+     * The topic's type string is {@link PackedModuleStates#TYPE_STRING} and its {@code layout} property describes
+     * the fields, so tools can tell what the bytes hold. Use {@link PackedModuleStates#decode(byte[])} to read it back.
+     *
+     * @param topicName The full name of the topic, such as {@code "/SwerveDrive/ModuleStates"}.
+     * @return this publisher
+     */
+    public synchronized TelemetryPublisher withPackedTopic(String topicName) {
+        if (thread != null) {
+            throw new IllegalStateException("The packed topic can't be set after the publisher is started");
+        }
+
+        this.packedTopicName = topicName;
+        return this;
+    }
+
+    /**
+     * Adds a module to publish. Must be called before {@link #start()}.
+     *
+     * @param module    The module.
+     * @param container The container to add the module's dashboard entries to, or null to only record the module.
+     */
+    public synchronized void addModule(SwerveModule module, ShuffleboardContainer container) {
+        if (thread != null) {
+            throw new IllegalStateException("Modules can't be added after the publisher is started");
+        }
+
+        GenericEntry[] moduleEntries = null;
+        if (container != null) {
+            moduleEntries = new GenericEntry[ENTRY_COUNT];
+            moduleEntries[TARGET_ANGLE_OFFSET] = container.add("Target Angle", 0.0).getEntry();
+            moduleEntries[ANGLE_OFFSET] = container.add("Current Angle", 0.0).getEntry();
+            moduleEntries[VELOCITY_OFFSET] = container.add("Current Velocity", 0.0).getEntry();
+            moduleEntries[DISTANCE_OFFSET] = container.add("Current Distance", 0.0).getEntry();
+        }
+
+        moduleList.add(module);
+        entryList.add(moduleEntries);
+    }
+
+    /**
+     * Starts publishing in the background.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+
+        modules = moduleList.toArray(new SwerveModule[0]);
+        entries = entryList.toArray(new GenericEntry[0][]);
+        int recordWidth = HEADER_WIDTH + MODULE_WIDTH * modules.length;
+        writeRecord = new double[recordWidth];
+        readRecord = new double[recordWidth];
+        buffer = new DoubleRingBuffer(recordWidth, capacity);
+
+        if (packedTopicName != null && packedPublisher == null) {
+            RawTopic topic = NetworkTableInstance.getDefault().getRawTopic(packedTopicName);
+            topic.setProperty("layout", PackedModuleStates.getLayoutJson(modules.length));
+            // Every record is a separate snapshot, so don't let NetworkTables coalesce them
+            packedPublisher = topic.publish(PackedModuleStates.TYPE_STRING, PubSubOption.sendAll(true));
+            packedRecord = new byte[PackedModuleStates.getSize(modules.length)];
+            packedBuffer = ByteBuffer.wrap(packedRecord).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        running = true;
+        thread = new Thread(this::run, "TelemetryPublisher");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        thread.start();
+    }
+
+    /**
+     * Stops publishing, waiting for the publisher thread to finish.
+     */
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    @Override
+    public synchronized void close() {
+        stop();
+        if (packedPublisher != null) {
+            packedPublisher.close();
+            packedPublisher = null;
+        }
+    }
+
+    /**
+     * Records the current state of every module. Must only be called from one thread, typically the main robot loop,
+     * and does nothing before the publisher is started.
+     */
+    public void record() {
+        DoubleRingBuffer buffer = this.buffer;
+        if (buffer == null) {
+            return;
+        }
+
+        writeRecord[TIMESTAMP_INDEX] = Timer.getFPGATimestamp();
+        for (int i = 0; i < modules.length; i++) {
+            SwerveModule module = modules[i];
+            int offset = HEADER_WIDTH + MODULE_WIDTH * i;
+            writeRecord[offset + TARGET_ANGLE_OFFSET] = module.getTargetSteerAngle();
+            writeRecord[offset + ANGLE_OFFSET] = module.getSteerAngle();
+            writeRecord[offset + VELOCITY_OFFSET] = module.getDriveVelocity();
+            writeRecord[offset + DISTANCE_OFFSET] = module.getDriveDistance();
+            writeRecord[offset + TARGET_VOLTAGE_OFFSET] = module.getTargetDriveVoltage();
+            writeRecord[offset + MODULE_TIMESTAMP_OFFSET] = module.getTimestamp();
+        }
+
+        buffer.offer(writeRecord);
+    }
+
+    /**
+     * Gets the number of records dropped because the publisher fell behind.
+     */
+    public long getDroppedRecords() {
+        DoubleRingBuffer buffer = this.buffer;
+        return buffer != null ? buffer.getDroppedRecords() : 0;
+    }
+
+    private void run() {
+        long periodMillis = Math.max(1L, Math.round(period * 1000.0));
+        while (running) {
+            boolean updated = false;
+            while (buffer.poll(readRecord)) {
+                updated = true;
+                if (packedPublisher != null) {
+                    PackedModuleStates.encode(readRecord[TIMESTAMP_INDEX], readRecord, HEADER_WIDTH, modules.length,
+                            packedBuffer);
+                    // Stamp the value with when it was recorded rather than when it was published. NetworkTables
+                    // time on the robot is the FPGA time in microseconds.
+                    packedPublisher.set(packedRecord, (long) (readRecord[TIMESTAMP_INDEX] * 1.0e6));
+                }
+            }
+            // Only the newest record is worth showing on the dashboard
+            if (updated) {
+                publish(readRecord);
+            }
+
+            try {
+                Thread.sleep(periodMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void publish(double[] record) {
+        for (int i = 0; i < entries.length; i++) {
+            GenericEntry[] moduleEntries = entries[i];
+            if (moduleEntries == null) {
+                continue;
+            }
+
+            int offset = HEADER_WIDTH + MODULE_WIDTH * i;
+            moduleEntries[TARGET_ANGLE_OFFSET].setDouble(Math.toDegrees(record[offset + TARGET_ANGLE_OFFSET]));
+            moduleEntries[ANGLE_OFFSET].setDouble(Math.toDegrees(record[offset + ANGLE_OFFSET]));
+            moduleEntries[VELOCITY_OFFSET].setDouble(record[offset + VELOCITY_OFFSET]);
+            moduleEntries[DISTANCE_OFFSET].setDouble(record[offset + DISTANCE_OFFSET]);
+        }
+    }
+}
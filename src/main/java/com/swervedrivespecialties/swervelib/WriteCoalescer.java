@@ -0,0 +1,116 @@
+package com.swervedrivespecialties.swervelib;
+
+/**
+ * Suppresses setpoint writes that would send a motor controller the same setpoint it already has.
+ * <p>
+ * A write is sent if its setpoint differs from the last one sent by more than the epsilon, if it is a different kind
+ * of setpoint (such as a velocity after a voltage), or if the keep-alive period has passed since the last write. The
+ * keep-alive refresh makes sure a controller that missed or dropped a frame is corrected soon after. Every other write
+ * is suppressed and counted, so {@link #getSuppressedWrites()} is the number of CAN frames saved.
+ * <p>
+ * Each coalescer belongs to one controller and is only meant to be used from the thread that commands it. The
+ * counters can be read from other threads, but may lag slightly behind.
+ *
+ * @see IODriveController
+ * @see IOSteerController
+ */
+public class WriteCoalescer {
+    private final double epsilon;
+    private final long keepAlivePeriodNanos;
+
+    private int lastKind = -1;
+    private double lastValue0 = Double.NaN;
+    private double lastValue1 = Double.NaN;
+    private long lastWriteNanos = 0;
+
+    private long writes = 0;
+    private long suppressedWrites = 0;
+
+    /**
+     * @param epsilon         The largest change in a setpoint that is still suppressed, in the setpoint's units.
+     * @param keepAlivePeriod The longest time, in seconds, a setpoint is suppressed for before it is sent again.
+     */
+    public WriteCoalescer(double epsilon, double keepAlivePeriod) {
+        if (!(epsilon >= 0.0)) {
+            throw new IllegalArgumentException("Write coalescing epsilon must not be negative");
+        }
+        if (!(keepAlivePeriod > 0.0)) {
+            throw new IllegalArgumentException("Write coalescing keep-alive period must be positive");
+        }
+
+        this.epsilon = epsilon;
+        this.keepAlivePeriodNanos = Math.round(keepAlivePeriod * 1.0e9);
+    }
+
+    /**
+     * Decides whether a setpoint should be sent, and records it as sent if so.
+     *
+     * @param kind   Identifies the kind of setpoint. Changing kind always writes.
+     * @param value0 The setpoint's first value.
+     * @param value1 The setpoint's second value, or 0 if it only has one.
+     * @return true if the setpoint should be sent to the controller
+     */
+    boolean shouldWrite(int kind, double value0, double value1) {
+        long now = System.nanoTime();
+        // NaN never compares as within epsilon, so the first write always goes out
+        if (kind == lastKind
+                && Math.abs(value0 - lastValue0) <= epsilon
+                && Math.abs(value1 - lastValue1) <= epsilon
+                && now - lastWriteNanos < keepAlivePeriodNanos) {
+            suppressedWrites++;
+            return false;
+        }
+
+        lastKind = kind;
+        lastValue0 = value0;
+        lastValue1 = value1;
+        lastWriteNanos = now;
+        writes++;
+        return true;
+    }
+
+    /**
+     * Makes the next setpoint be sent whatever it is, for when the controller's setpoint may have been changed
+     * elsewhere.
+     */
+    public void invalidate() {
+        lastKind = -1;
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    /**
+     * Gets the keep-alive period in seconds.
+     */
+    public double getKeepAlivePeriod() {
+        return keepAlivePeriodNanos * 1.0e-9;
+    }
+
+    /**
+     * Gets the number of setpoints sent to the controller.
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * Gets the number of setpoints that weren't sent because the controller already had them.
+     */
+    public long getSuppressedWrites() {
+        return suppressedWrites;
+    }
+
+    public void resetCounters() {
+        writes = 0;
+        suppressedWrites = 0;
+    }
+
+    @Override
+    public String toString() {
+        long total = writes + suppressedWrites;
+        return String.format("%d writes, %d suppressed (%.1f%%)", writes, suppressedWrites,
+                total > 0 ? 100.0 * suppressedWrites / total : 0.0);
+    }
+}
@@ -9,11 +9,21 @@ public class CanCoderAbsoluteConfiguration implements AbsoluteEncoderConfigurati
     private final double offset;
     private final String canbus;
     private final SensorInitializationStrategy initStrategy;
-    private final int readingUpdatePeriodMS = 100;
+    private int readingUpdatePeriodMS = 100;
     /**
      * Number of tries for getting correct position.
      */
-    private final int attempts = 3; // TODO: Allow changing number of tries for getting correct position
+    private int attempts = 3;
+    /**
+     * Time to wait between tries, in milliseconds.
+     */
+    private int retryBackoffMS = 10;
+    /**
+     * How long a reading stays valid, in seconds, when newer readings fail in non-blocking mode.
+     */
+    private double stalenessToleranceSeconds = 0.5;
+    private boolean nonBlocking = false;
+    private boolean unusedFramesDisabled = false;
 
     public CanCoderAbsoluteConfiguration(int id, double offset, String canbus, SensorInitializationStrategy initStrategy) {
         this.id = id;
@@ -30,6 +40,57 @@ public class CanCoderAbsoluteConfiguration implements AbsoluteEncoderConfigurati
         this(id, offset, "");
     }
 
+    /**
+     * Sets how often the CANCoder sends its reading.
+     *
+     * @param readingUpdatePeriodMS the sensor data frame period in milliseconds
+     * @return this configuration
+     */
+    public CanCoderAbsoluteConfiguration withReadingUpdatePeriod(int readingUpdatePeriodMS) {
+        this.readingUpdatePeriodMS = readingUpdatePeriodMS;
+        return this;
+    }
+
+    /**
+     * Slows the CANCoder's supply voltage and faults frame, which the library never reads, to its longest period.
+     *
+     * @return this configuration
+     */
+    public CanCoderAbsoluteConfiguration withUnusedFramesDisabled() {
+        this.unusedFramesDisabled = true;
+        return this;
+    }
+
+    /**
+     * Sets how many times a failed read is retried, and how long to wait between retries.
+     *
+     * @param attempts       number of retries after the first failed read
+     * @param retryBackoffMS time between retries in milliseconds
+     * @return this configuration
+     */
+    public CanCoderAbsoluteConfiguration withRetries(int attempts, int retryBackoffMS) {
+        this.attempts = attempts;
+        this.retryBackoffMS = retryBackoffMS;
+        return this;
+    }
+
+    /**
+     * Stops reads from ever blocking the caller.
+     * <p>
+     * By default a failed read is retried on the caller's thread, sleeping between attempts. In non-blocking mode a
+     * failed read instead returns the last good angle immediately and the retries happen on a background thread.
+     * {@link AbsoluteEncoder#isValid()} reports whether the returned angle is still within the staleness tolerance.
+     *
+     * @param stalenessToleranceSeconds how long, in seconds, the last good angle may be returned while still being
+     *                                  reported as valid
+     * @return this configuration
+     */
+    public CanCoderAbsoluteConfiguration withNonBlockingReads(double stalenessToleranceSeconds) {
+        this.nonBlocking = true;
+        this.stalenessToleranceSeconds = stalenessToleranceSeconds;
+        return this;
+    }
+
     public int getId() {
         return id;
     }
@@ -46,10 +107,26 @@ public class CanCoderAbsoluteConfiguration implements AbsoluteEncoderConfigurati
         return readingUpdatePeriodMS;
     }
 
+    public boolean isUnusedFramesDisabled() {
+        return unusedFramesDisabled;
+    }
+
     public int getAttempts() {
         return attempts;
     }
 
+    public int getRetryBackoffMS() {
+        return retryBackoffMS;
+    }
+
+    public double getStalenessToleranceSeconds() {
+        return stalenessToleranceSeconds;
+    }
+
+    public boolean isNonBlocking() {
+        return nonBlocking;
+    }
+
     public SensorInitializationStrategy getInitStrategy() {
         return initStrategy;
     }
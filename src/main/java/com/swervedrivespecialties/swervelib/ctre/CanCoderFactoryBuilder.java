@@ -3,10 +3,16 @@ package com.swervedrivespecialties.swervelib.ctre;
 import com.ctre.phoenix.ErrorCode;
 import com.ctre.phoenix.sensors.AbsoluteSensorRange;
 import com.ctre.phoenix.sensors.CANCoderConfiguration;
-import com.ctre.phoenix.sensors.CANCoderStatusFrame;
 import com.ctre.phoenix.sensors.WPI_CANCoder;
 import com.swervedrivespecialties.swervelib.AbsoluteEncoder;
 import com.swervedrivespecialties.swervelib.AbsoluteEncoderFactory;
+import com.swervedrivespecialties.swervelib.StatusFrameTarget;
+import edu.wpi.first.wpilibj.Timer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CanCoderFactoryBuilder {
     private Direction direction = Direction.COUNTER_CLOCKWISE;
@@ -27,20 +33,40 @@ public class CanCoderFactoryBuilder {
             WPI_CANCoder encoder = new WPI_CANCoder(configuration.getId(), configuration.getCanbus());
             CtreUtils.checkCtreError(encoder.configAllSettings(config, 250), "Failed to configure CANCoder");
 
-            CtreUtils.checkCtreError(encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, configuration.getReadingUpdatePeriodMS(), 250), "Failed to configure CANCoder update rate");
+            CtreUtils.configureStatusFrames(encoder, configuration.getReadingUpdatePeriodMS(), configuration.isUnusedFramesDisabled(), 250);
 
-            return new EncoderImplementation(encoder, configuration.getAttempts());
+            if (configuration.isNonBlocking()) {
+                return new NonBlockingEncoderImplementation(encoder, configuration.getAttempts(),
+                        configuration.getRetryBackoffMS(), configuration.getStalenessToleranceSeconds());
+            }
+            return new EncoderImplementation(encoder, configuration.getAttempts(), configuration.getRetryBackoffMS());
         };
     }
 
+    private static double wrapAngle(double angle) {
+        angle %= 2.0 * Math.PI;
+        if (angle < 0.0) {
+            angle += 2.0 * Math.PI;
+        }
+
+        return angle;
+    }
+
+    private static StatusFrameTarget statusFrameTarget(WPI_CANCoder encoder) {
+        return profile -> CtreUtils.configureStatusFrames(encoder, profile.getSteerEncoderPeriodMS(),
+                profile.isUnusedFramesDisabled(), CtreUtils.NON_BLOCKING_TIMEOUT_MS);
+    }
+
     private static class EncoderImplementation implements AbsoluteEncoder {
         private final int attempts; 
+        private final int retryBackoffMS;
 
         private final WPI_CANCoder encoder;
 
-        private EncoderImplementation(WPI_CANCoder encoder, int attempts) {
+        private EncoderImplementation(WPI_CANCoder encoder, int attempts, int retryBackoffMS) {
             this.encoder = encoder;
             this.attempts = attempts;
+            this.retryBackoffMS = retryBackoffMS;
         }
 
         @Override
@@ -52,7 +78,7 @@ public class CanCoderFactoryBuilder {
             for (int i = 0; i < attempts; i++) {
                 if (code == ErrorCode.OK) break;
                 try {
-                    Thread.sleep(10);
+                    Thread.sleep(retryBackoffMS);
                 } catch (InterruptedException e) { }
                 angle = Math.toRadians(encoder.getPosition());
                 code = encoder.getLastError();
@@ -60,12 +86,112 @@ public class CanCoderFactoryBuilder {
 
             CtreUtils.checkCtreError(code, "Failed to retrieve CANcoder "+encoder.getDeviceID()+" absolute position after "+attempts+" tries");
 
-            angle %= 2.0 * Math.PI;
-            if (angle < 0.0) {
-                angle += 2.0 * Math.PI;
+            return wrapAngle(angle);
+        }
+
+        @Override
+        public StatusFrameTarget getStatusFrameTarget() {
+            return statusFrameTarget(encoder);
+        }
+
+        @Override
+        public Object getInternal() {
+            return this.encoder;
+        }
+    }
+
+    /**
+     * Encoder that never blocks the caller. A failed read returns the last good angle and is retried on a shared
+     * background thread. While a retry is pending the caller is served the last good angle without touching the
+     * device, since the CANCoder's last error is shared by every thread reading it.
+     */
+    private static class NonBlockingEncoderImplementation implements AbsoluteEncoder {
+        private static final ScheduledExecutorService RETRY_EXECUTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "CANCoder retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private final WPI_CANCoder encoder;
+        private final int attempts;
+        private final int retryBackoffMS;
+        private final double stalenessToleranceSeconds;
+
+        private final AtomicBoolean retryPending = new AtomicBoolean(false);
+
+        // Written by the caller while no retry is pending and by the retry thread while one is, never both at once.
+        // The timestamp is written last so a reader that sees a new timestamp also sees the angle that goes with it.
+        private volatile double lastAngle = 0.0;
+        private volatile double lastTimestamp = Double.NaN;
+
+        private NonBlockingEncoderImplementation(WPI_CANCoder encoder, int attempts, int retryBackoffMS,
+                                                 double stalenessToleranceSeconds) {
+            this.encoder = encoder;
+            this.attempts = attempts;
+            this.retryBackoffMS = retryBackoffMS;
+            this.stalenessToleranceSeconds = stalenessToleranceSeconds;
+
+            // Blocking is fine while the robot is starting up, and it gives the first caller a good reading
+            if (!tryRead()) {
+                for (int i = 0; i < attempts && !tryRead(); i++) {
+                    try {
+                        Thread.sleep(retryBackoffMS);
+                    } catch (InterruptedException e) { }
+                }
+            }
+        }
+
+        private boolean tryRead() {
+            double angle = Math.toRadians(encoder.getPosition());
+            if (encoder.getLastError() != ErrorCode.OK) {
+                return false;
             }
 
-            return angle;
+            lastAngle = wrapAngle(angle);
+            lastTimestamp = Timer.getFPGATimestamp();
+            return true;
+        }
+
+        private void retry(int attempt) {
+            if (tryRead()) {
+                retryPending.set(false);
+            } else if (attempt < attempts) {
+                RETRY_EXECUTOR.schedule(() -> retry(attempt + 1), retryBackoffMS, TimeUnit.MILLISECONDS);
+            } else {
+                retryPending.set(false);
+                CtreUtils.checkCtreError(encoder.getLastError(), "Failed to retrieve CANcoder "+encoder.getDeviceID()+" absolute position after "+attempts+" tries");
+            }
+        }
+
+        @Override
+        public double getAbsoluteAngle() {
+            // The retry thread owns the device until it clears the flag
+            if (retryPending.get()) {
+                return lastAngle;
+            }
+
+            if (!tryRead()) {
+                retryPending.set(true);
+                RETRY_EXECUTOR.schedule(() -> retry(1), retryBackoffMS, TimeUnit.MILLISECONDS);
+            }
+
+            return lastAngle;
+        }
+
+        @Override
+        public boolean isValid() {
+            double timestamp = lastTimestamp;
+            return Timer.getFPGATimestamp() - timestamp <= stalenessToleranceSeconds;
+        }
+
+        @Override
+        public double getTimestamp() {
+            return lastTimestamp;
+        }
+
+        @Override
+        public StatusFrameTarget getStatusFrameTarget() {
+            return statusFrameTarget(encoder);
         }
 
         @Override
@@ -1,15 +1,118 @@
 package com.swervedrivespecialties.swervelib.ctre;
 
 import com.ctre.phoenix.ErrorCode;
-import edu.wpi.first.wpilibj.DriverStation;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
+import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+import com.ctre.phoenix.sensors.WPI_CANCoder;
+import com.swervedrivespecialties.swervelib.DeviceConfigurationReport;
+import com.swervedrivespecialties.swervelib.StatusFrameProfile;
 import edu.wpi.first.wpilibj.RobotBase;
 
 public final class CtreUtils {
+    // Frames with nothing the library reads: quadrature, analog, pulse width, motion profile targets, the second
+    // feedback sensor, closed loop diagnostics and the integrated sensor when another sensor is selected
+    private static final StatusFrameEnhanced[] TALON_FX_UNUSED_FRAMES = {
+            StatusFrameEnhanced.Status_3_Quadrature,
+            StatusFrameEnhanced.Status_4_AinTempVbat,
+            StatusFrameEnhanced.Status_8_PulseWidth,
+            StatusFrameEnhanced.Status_10_Targets,
+            StatusFrameEnhanced.Status_11_UartGadgeteer,
+            StatusFrameEnhanced.Status_12_Feedback1,
+            StatusFrameEnhanced.Status_13_Base_PIDF0,
+            StatusFrameEnhanced.Status_14_Turn_PIDF1,
+            StatusFrameEnhanced.Status_21_FeedbackIntegrated,
+            StatusFrameEnhanced.Status_Brushless_Current
+    };
+    // The periods the unused frames have after a power cycle, from CTRE's documentation
+    private static final int[] TALON_FX_UNUSED_FRAME_DEFAULT_PERIODS_MS = {
+            160, 160, 160, 160, 250, 160, 160, 160, 160, 50
+    };
+    private static final int CANCODER_VBAT_AND_FAULTS_DEFAULT_PERIOD_MS = 100;
+
+    // Status frames retuned while the robot runs aren't acknowledged, the calls are queued and sent by Phoenix
+    static final int NON_BLOCKING_TIMEOUT_MS = 0;
+
     private CtreUtils() {}
 
     public static void checkCtreError(ErrorCode errorCode, String message) {
         if (RobotBase.isReal() && errorCode != ErrorCode.OK) {
-            DriverStation.reportError(String.format("%s: %s", message, errorCode.toString()), false);
+            DeviceConfigurationReport.reportError(String.format("%s: %s", message, errorCode.toString()));
+        }
+    }
+
+    /**
+     * Gets a fingerprint of a Talon FX configuration, to be stored in the configuration's {@code customParam0} slot
+     * so it is saved on the device along with the rest of the configuration.
+     *
+     * @param configuration the configuration, before {@code customParam0} is set
+     * @return the fingerprint, never 0
+     */
+    public static int configurationFingerprint(TalonFXConfiguration configuration) {
+        int fingerprint = configuration.toString().hashCode();
+        // Factory default devices have 0 in their custom parameter slots
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+
+    /**
+     * Gets whether a Talon FX was last configured with a configuration that has the given fingerprint.
+     *
+     * @param motor       the motor to check
+     * @param fingerprint the fingerprint of the configuration the motor should have
+     * @param timeoutMs   how long to wait for the motor to respond
+     * @return true if the motor reported a matching fingerprint
+     */
+    public static boolean hasConfigurationFingerprint(WPI_TalonFX motor, int fingerprint, int timeoutMs) {
+        int storedFingerprint = motor.configGetCustomParam(0, timeoutMs);
+        return motor.getLastError() == ErrorCode.OK && storedFingerprint == fingerprint;
+    }
+
+    /**
+     * Sets a Talon FX's status frame periods.
+     *
+     * @param motor                the motor to configure
+     * @param generalPeriodMS      period of the general status frame
+     * @param feedbackPeriodMS     period of the selected sensor position and velocity frame
+     * @param unusedFramesDisabled whether to slow every other frame to the longest period, rather than give them back
+     *                             their default periods
+     * @param timeoutMs            how long to wait for the motor to respond to each call
+     * @see StatusFrameProfile
+     */
+    public static void configureStatusFrames(WPI_TalonFX motor, int generalPeriodMS, int feedbackPeriodMS,
+                                             boolean unusedFramesDisabled, int timeoutMs) {
+        checkCtreError(motor.setStatusFramePeriod(StatusFrameEnhanced.Status_1_General, generalPeriodMS, timeoutMs),
+                "Failed to configure Falcon status frame period");
+        checkCtreError(motor.setStatusFramePeriod(StatusFrameEnhanced.Status_2_Feedback0, feedbackPeriodMS, timeoutMs),
+                "Failed to configure Falcon feedback frame period");
+
+        // Periods aren't saved on the device but last until it is power cycled, so a frame an earlier call disabled
+        // has to be restored explicitly
+        for (int i = 0; i < TALON_FX_UNUSED_FRAMES.length; i++) {
+            int periodMS = unusedFramesDisabled ? StatusFrameProfile.CTRE_MAX_PERIOD_MS :
+                    TALON_FX_UNUSED_FRAME_DEFAULT_PERIODS_MS[i];
+            checkCtreError(motor.setStatusFramePeriod(TALON_FX_UNUSED_FRAMES[i], periodMS, timeoutMs),
+                    "Failed to configure Falcon status frame " + TALON_FX_UNUSED_FRAMES[i]);
         }
     }
+
+    /**
+     * Sets a CANCoder's status frame periods.
+     *
+     * @param encoder              the encoder to configure
+     * @param sensorDataPeriodMS   period of the frame with the encoder's position
+     * @param unusedFramesDisabled whether to slow the supply voltage and faults frame to the longest period, rather
+     *                             than give it back its default period
+     * @param timeoutMs            how long to wait for the encoder to respond to each call
+     * @see StatusFrameProfile
+     */
+    public static void configureStatusFrames(WPI_CANCoder encoder, int sensorDataPeriodMS, boolean unusedFramesDisabled,
+                                             int timeoutMs) {
+        checkCtreError(encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, sensorDataPeriodMS, timeoutMs),
+                "Failed to configure CANCoder update rate");
+        int vbatAndFaultsPeriodMS = unusedFramesDisabled ? StatusFrameProfile.CTRE_MAX_PERIOD_MS :
+                CANCODER_VBAT_AND_FAULTS_DEFAULT_PERIOD_MS;
+        checkCtreError(encoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, vbatAndFaultsPeriodMS,
+                timeoutMs), "Failed to configure CANCoder status frame");
+    }
 }
@@ -5,19 +5,33 @@ import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
 import com.swervedrivespecialties.swervelib.DriveController;
 import com.swervedrivespecialties.swervelib.DriveControllerFactory;
+import com.swervedrivespecialties.swervelib.DriveIO;
+import com.swervedrivespecialties.swervelib.IODriveController;
 import com.swervedrivespecialties.swervelib.MechanicalConfiguration;
+import com.swervedrivespecialties.swervelib.MotorType;
+import com.swervedrivespecialties.swervelib.StatusFrameProfile;
+import com.swervedrivespecialties.swervelib.StatusFrameTarget;
 
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 
 public final class Falcon500DriveControllerFactoryBuilder {
     private static final double TICKS_PER_ROTATION = 2048.0;
+    // The Talon FX runs its closed loop every millisecond
+    private static final double CLOSED_LOOP_PERIOD = 0.001;
 
     private static final int CAN_TIMEOUT_MS = 250;
-    private static final int STATUS_FRAME_GENERAL_PERIOD_MS = 250;
 
     private double nominalVoltage = Double.NaN;
     private double currentLimit = Double.NaN;
 
+    // Velocity PID configuration, in volts per m/s of error
+    private double proportionalConstant = Double.NaN;
+    private double integralConstant = Double.NaN;
+    private double derivativeConstant = Double.NaN;
+
+    private boolean configurationFingerprinting = false;
+    private StatusFrameProfile statusFrameProfile = new StatusFrameProfile();
+
     public Falcon500DriveControllerFactoryBuilder withVoltageCompensation(double nominalVoltage) {
         this.nominalVoltage = nominalVoltage;
         return this;
@@ -27,7 +41,7 @@ public final class Falcon500DriveControllerFactoryBuilder {
         return Double.isFinite(nominalVoltage);
     }
 
-    public DriveControllerFactory<ControllerImplementation, Integer> build() {
+    public DriveControllerFactory<IODriveController, Integer> build() {
         return new FactoryImplementation();
     }
 
@@ -40,9 +54,53 @@ public final class Falcon500DriveControllerFactoryBuilder {
         return Double.isFinite(currentLimit);
     }
 
-    private class FactoryImplementation implements DriveControllerFactory<ControllerImplementation, Integer> {
+    /**
+     * Sets the gains of the on-controller velocity loop used by
+     * {@link DriveController#setReferenceVelocity(double, double)}.
+     *
+     * @param proportional volts per m/s of velocity error
+     * @param integral     volts per meter of accumulated velocity error
+     * @param derivative   volts per m/s^2 of velocity error rate
+     */
+    public Falcon500DriveControllerFactoryBuilder withPidConstants(double proportional, double integral, double derivative) {
+        this.proportionalConstant = proportional;
+        this.integralConstant = integral;
+        this.derivativeConstant = derivative;
+        return this;
+    }
+
+    public boolean hasPidConstants() {
+        return Double.isFinite(proportionalConstant) && Double.isFinite(integralConstant) && Double.isFinite(derivativeConstant);
+    }
+
+    /**
+     * Skips pushing the full configuration to motors that already have it.
+     * <p>
+     * A fingerprint of the configuration is saved in the motor's first custom parameter slot. On the next boot the
+     * slot is read back and, if it matches, the persisted settings are left alone. Settings the motor forgets on
+     * power loss are still applied every time.
+     */
+    public Falcon500DriveControllerFactoryBuilder withConfigurationFingerprinting() {
+        this.configurationFingerprinting = true;
+        return this;
+    }
+
+    public boolean hasConfigurationFingerprinting() {
+        return configurationFingerprinting;
+    }
+
+    /**
+     * Sets how often the motor sends its CAN status frames. The {@link StatusFrameProfile#withDrivePeriods drive}
+     * periods are used.
+     */
+    public Falcon500DriveControllerFactoryBuilder withStatusFrameProfile(StatusFrameProfile statusFrameProfile) {
+        this.statusFrameProfile = statusFrameProfile;
+        return this;
+    }
+
+    private class FactoryImplementation implements DriveControllerFactory<IODriveController, Integer> {
         @Override
-        public ControllerImplementation create(Integer id, String canbus, MechanicalConfiguration mechConfiguration) {
+        public IODriveController create(Integer id, String canbus, MechanicalConfiguration mechConfiguration) {
             TalonFXConfiguration motorConfiguration = new TalonFXConfiguration();
 
             double sensorPositionCoefficient = Math.PI * mechConfiguration.getWheelDiameter() * mechConfiguration.getDriveReduction() / TICKS_PER_ROTATION;
@@ -51,13 +109,30 @@ public final class Falcon500DriveControllerFactoryBuilder {
                 motorConfiguration.voltageCompSaturation = nominalVoltage;
             }
 
+            if (hasPidConstants()) {
+                // Convert from volts and m/s to the Talon's units of 1023 full output and ticks per 100 ms
+                double outputPerVolt = 1023.0 / (hasVoltageCompensation() ? nominalVoltage : 12.0);
+                double metersPerSecondPerUnit = sensorPositionCoefficient * 10.0;
+                motorConfiguration.slot0.kP = proportionalConstant * outputPerVolt * metersPerSecondPerUnit;
+                motorConfiguration.slot0.kI = integralConstant * outputPerVolt * metersPerSecondPerUnit * CLOSED_LOOP_PERIOD;
+                motorConfiguration.slot0.kD = derivativeConstant * outputPerVolt * metersPerSecondPerUnit / CLOSED_LOOP_PERIOD;
+            }
+
             if (hasCurrentLimit()) {
                 motorConfiguration.supplyCurrLimit.currentLimit = currentLimit;
                 motorConfiguration.supplyCurrLimit.enable = true;
             }
 
             WPI_TalonFX motor = new WPI_TalonFX(id, canbus);
-            CtreUtils.checkCtreError(motor.configAllSettings(motorConfiguration), "Failed to configure Falcon 500");
+            boolean configured = false;
+            if (hasConfigurationFingerprinting()) {
+                int fingerprint = CtreUtils.configurationFingerprint(motorConfiguration);
+                configured = CtreUtils.hasConfigurationFingerprint(motor, fingerprint, CAN_TIMEOUT_MS);
+                motorConfiguration.customParam0 = fingerprint;
+            }
+            if (!configured) {
+                CtreUtils.checkCtreError(motor.configAllSettings(motorConfiguration), "Failed to configure Falcon 500");
+            }
 
             if (hasVoltageCompensation()) {
                 // Enable voltage compensation
@@ -70,48 +145,66 @@ public final class Falcon500DriveControllerFactoryBuilder {
             motor.setSensorPhase(true);
 
             // Reduce CAN status frame rates
-            CtreUtils.checkCtreError(
-                    motor.setStatusFramePeriod(
-                            StatusFrameEnhanced.Status_1_General,
-                            STATUS_FRAME_GENERAL_PERIOD_MS,
-                            CAN_TIMEOUT_MS
-                    ),
-                    "Failed to configure Falcon status frame period"
-            );
-
-            return new ControllerImplementation(motor, sensorPositionCoefficient);
+            CtreUtils.configureStatusFrames(motor,
+                    statusFrameProfile.getDriveGeneralPeriodMS(MotorType.FALCON),
+                    Math.min(statusFrameProfile.getDriveVelocityPeriodMS(), statusFrameProfile.getDrivePositionPeriodMS()),
+                    statusFrameProfile.isUnusedFramesDisabled(),
+                    CAN_TIMEOUT_MS);
+
+            return new IODriveController(new IOImplementation(motor, sensorPositionCoefficient));
         }
     }
 
-    private class ControllerImplementation implements DriveController {
+    private class IOImplementation implements DriveIO, StatusFrameTarget {
         private final WPI_TalonFX motor;
         private final double sensorPositionCoefficient;
         private final double nominalVoltage = hasVoltageCompensation() ? Falcon500DriveControllerFactoryBuilder.this.nominalVoltage : 12.0;
 
-        private ControllerImplementation(WPI_TalonFX motor, double sensorPositionCoefficient) {
+        private IOImplementation(WPI_TalonFX motor, double sensorPositionCoefficient) {
             this.motor = motor;
             this.sensorPositionCoefficient = sensorPositionCoefficient;
         }
 
         @Override
-        public MotorController getDriveMotor() {
+        public MotorController getMotor() {
             return this.motor;
         }
 
         @Override
-        public void setReferenceVoltage(double voltage) {
+        public void setVoltage(double voltage) {
             motor.set(TalonFXControlMode.PercentOutput, voltage / nominalVoltage);
         }
 
         @Override
-        public double getStateVelocity() {
-            // Multiply to 10 to convert from m/100ms to m/s
-            return motor.getSelectedSensorVelocity() * sensorPositionCoefficient * 10.0;
+        public void setVelocity(double metersPerSecond, double feedforwardVolts) {
+            // Divide by 10 to convert from m/s to m/100ms
+            motor.set(TalonFXControlMode.Velocity, metersPerSecond / sensorPositionCoefficient / 10.0,
+                    DemandType.ArbitraryFeedForward, feedforwardVolts / nominalVoltage);
+        }
+
+        @Override
+        public StatusFrameTarget getStatusFrameTarget() {
+            return this;
         }
 
         @Override
-        public double getStateDistance() {
+        public void configureStatusFrames(StatusFrameProfile profile) {
+            CtreUtils.configureStatusFrames(motor,
+                    profile.getDriveGeneralPeriodMS(MotorType.FALCON),
+                    Math.min(profile.getDriveVelocityPeriodMS(), profile.getDrivePositionPeriodMS()),
+                    profile.isUnusedFramesDisabled(),
+                    CtreUtils.NON_BLOCKING_TIMEOUT_MS);
+        }
+
+        @Override
+        public double getPositionMeters() {
             return motor.getSelectedSensorPosition() * sensorPositionCoefficient;
         }
+
+        @Override
+        public double getVelocityMetersPerSecond() {
+            // Multiply to 10 to convert from m/100ms to m/s
+            return motor.getSelectedSensorVelocity() * sensorPositionCoefficient * 10.0;
+        }
     }
 }
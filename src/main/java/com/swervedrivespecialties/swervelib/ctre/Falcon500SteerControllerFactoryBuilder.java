@@ -3,6 +3,8 @@ package com.swervedrivespecialties.swervelib.ctre;
 import com.ctre.phoenix.motorcontrol.*;
 import com.ctre.phoenix.motorcontrol.can.TalonFXConfiguration;
 import com.ctre.phoenix.motorcontrol.can.WPI_TalonFX;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+import com.ctre.phoenix.sensors.WPI_CANCoder;
 import com.swervedrivespecialties.swervelib.*;
 
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
@@ -12,9 +14,11 @@ import static com.swervedrivespecialties.swervelib.ctre.CtreUtils.checkCtreError
 
 public final class Falcon500SteerControllerFactoryBuilder {
     private static final int CAN_TIMEOUT_MS = 250;
-    private static final int STATUS_FRAME_GENERAL_PERIOD_MS = 250;
 
     private static final double TICKS_PER_ROTATION = 2048.0;
+    private static final double CANCODER_TICKS_PER_ROTATION = 4096.0;
+    // A remote sensor is only as fresh as its last frame, so it needs to be sent much faster than for monitoring
+    private static final int REMOTE_SENSOR_DATA_PERIOD_MS = 10;
 
     // PID configuration
     private double proportionalConstant = Double.NaN;
@@ -28,6 +32,9 @@ public final class Falcon500SteerControllerFactoryBuilder {
 
     private double nominalVoltage = Double.NaN;
     private double currentLimit = Double.NaN;
+    private boolean configurationFingerprinting = false;
+    private boolean remoteCanCoderFeedback = false;
+    private StatusFrameProfile statusFrameProfile = new StatusFrameProfile();
 
     public Falcon500SteerControllerFactoryBuilder withPidConstants(double proportional, double integral, double derivative) {
         this.proportionalConstant = proportional;
@@ -69,33 +76,91 @@ public final class Falcon500SteerControllerFactoryBuilder {
         return Double.isFinite(currentLimit);
     }
 
-    public SteerControllerFactory<ControllerImplementation, SteerConfiguration> build() {
+    /**
+     * Closes the position loop directly on the module's CANCoder instead of the motor's integrated sensor.
+     * <p>
+     * The CANCoder is used as the Talon FX's first remote sensor, so the steer angle never has to be seeded or
+     * periodically reset from the roboRIO. The CANCoder must be on the same CAN bus as the motor and boot to its
+     * absolute position. PID gains keep the meaning they have with the integrated sensor; they are scaled to the
+     * CANCoder's coarser resolution.
+     */
+    public Falcon500SteerControllerFactoryBuilder withRemoteCanCoderFeedback() {
+        this.remoteCanCoderFeedback = true;
+        return this;
+    }
+
+    public boolean hasRemoteCanCoderFeedback() {
+        return remoteCanCoderFeedback;
+    }
+
+    /**
+     * Skips pushing the full configuration to motors that already have it.
+     * <p>
+     * A fingerprint of the configuration is saved in the motor's first custom parameter slot. On the next boot the
+     * slot is read back and, if it matches, the persisted settings are left alone. Settings the motor forgets on
+     * power loss are still applied every time.
+     */
+    public Falcon500SteerControllerFactoryBuilder withConfigurationFingerprinting() {
+        this.configurationFingerprinting = true;
+        return this;
+    }
+
+    public boolean hasConfigurationFingerprinting() {
+        return configurationFingerprinting;
+    }
+
+    /**
+     * Sets how often the motor sends its CAN status frames. The {@link StatusFrameProfile#withSteerPeriods steer}
+     * periods are used. With {@link #withRemoteCanCoderFeedback() remote feedback} the CANCoder's sensor data
+     * is also sent at least every 10 ms, however slow the profile's encoder period is.
+     */
+    public Falcon500SteerControllerFactoryBuilder withStatusFrameProfile(StatusFrameProfile statusFrameProfile) {
+        this.statusFrameProfile = statusFrameProfile;
+        return this;
+    }
+
+    public SteerControllerFactory<IOSteerController, SteerConfiguration> build() {
         return new FactoryImplementation();
     }
 
-    private class FactoryImplementation implements SteerControllerFactory<ControllerImplementation, SteerConfiguration> {
+    private class FactoryImplementation implements SteerControllerFactory<IOSteerController, SteerConfiguration> {
 
         private FactoryImplementation() {
         }
 
         @Override
-        public void addDashboardEntries(ShuffleboardContainer container, ControllerImplementation controller) {
+        public void addDashboardEntries(ShuffleboardContainer container, IOSteerController controller) {
             SteerControllerFactory.super.addDashboardEntries(container, controller);
-            container.addNumber("Absolute Encoder Angle", () -> Math.toDegrees(controller.absoluteEncoder.getAbsoluteAngle()));
+            container.addNumber("Absolute Encoder Angle", () -> Math.toDegrees(controller.getSteerEncoder().getAbsoluteAngle()));
         }
 
         @Override
-        public ControllerImplementation create(SteerConfiguration steerConfiguration, String canbus, MechanicalConfiguration mechConfiguration) {
+        public IOSteerController create(SteerConfiguration steerConfiguration, String canbus, MechanicalConfiguration mechConfiguration) {
             AbsoluteEncoder absoluteEncoder = steerConfiguration.getEncoderConfiguration().create();
 
-            final double sensorPositionCoefficient = 2.0 * Math.PI / TICKS_PER_ROTATION * mechConfiguration.getSteerReduction();
+            WPI_CANCoder canCoder = null;
+            if (hasRemoteCanCoderFeedback()) {
+                if (!(absoluteEncoder.getInternal() instanceof WPI_CANCoder)) {
+                    throw new RuntimeException("Remote CANCoder feedback requires a CANCoder steer encoder!");
+                }
+                canCoder = (WPI_CANCoder) absoluteEncoder.getInternal();
+            }
+
+            final double integratedSensorPositionCoefficient = 2.0 * Math.PI / TICKS_PER_ROTATION * mechConfiguration.getSteerReduction();
+            // The CANCoder is on the module's steering axis, so there is no reduction between it and the wheel
+            final double sensorPositionCoefficient = canCoder != null ? 2.0 * Math.PI / CANCODER_TICKS_PER_ROTATION : integratedSensorPositionCoefficient;
             final double sensorVelocityCoefficient = sensorPositionCoefficient * 10.0;
+            final double gainScale = sensorPositionCoefficient / integratedSensorPositionCoefficient;
 
             TalonFXConfiguration motorConfiguration = new TalonFXConfiguration();
             if (hasPidConstants()) {
-                motorConfiguration.slot0.kP = proportionalConstant;
-                motorConfiguration.slot0.kI = integralConstant;
-                motorConfiguration.slot0.kD = derivativeConstant;
+                motorConfiguration.slot0.kP = proportionalConstant * gainScale;
+                motorConfiguration.slot0.kI = integralConstant * gainScale;
+                motorConfiguration.slot0.kD = derivativeConstant * gainScale;
+            }
+            if (canCoder != null) {
+                motorConfiguration.remoteFilter0.remoteSensorDeviceID = canCoder.getDeviceID();
+                motorConfiguration.remoteFilter0.remoteSensorSource = RemoteSensorSource.CANCoder;
             }
             if (hasMotionMagic()) {
                 if (hasVoltageCompensation()) {
@@ -116,123 +181,117 @@ public final class Falcon500SteerControllerFactoryBuilder {
             }
 
             WPI_TalonFX motor = new WPI_TalonFX(steerConfiguration.getMotorPort(), canbus);
-            checkCtreError(motor.configAllSettings(motorConfiguration, CAN_TIMEOUT_MS), "Failed to configure Falcon 500 settings");
+            boolean configured = false;
+            if (hasConfigurationFingerprinting()) {
+                int fingerprint = CtreUtils.configurationFingerprint(motorConfiguration);
+                configured = CtreUtils.hasConfigurationFingerprint(motor, fingerprint, CAN_TIMEOUT_MS);
+                motorConfiguration.customParam0 = fingerprint;
+            }
+            if (!configured) {
+                checkCtreError(motor.configAllSettings(motorConfiguration, CAN_TIMEOUT_MS), "Failed to configure Falcon 500 settings");
+            }
 
             if (hasVoltageCompensation()) {
                 motor.enableVoltageCompensation(true);
             }
-            checkCtreError(motor.configSelectedFeedbackSensor(TalonFXFeedbackDevice.IntegratedSensor, 0, CAN_TIMEOUT_MS), "Failed to set Falcon 500 feedback sensor");
-            motor.setSensorPhase(true);
+            if (!configured) {
+                checkCtreError(motor.configSelectedFeedbackSensor(canCoder != null ? TalonFXFeedbackDevice.RemoteSensor0 : TalonFXFeedbackDevice.IntegratedSensor, 0, CAN_TIMEOUT_MS), "Failed to set Falcon 500 feedback sensor");
+            }
+            // The CANCoder already counts up as the module turns counter-clockwise, the same as the module angle
+            motor.setSensorPhase(canCoder == null);
             motor.setInverted(mechConfiguration.isSteerInverted() ? TalonFXInvertType.CounterClockwise : TalonFXInvertType.Clockwise);
             motor.setNeutralMode(NeutralMode.Brake);
 
-            checkCtreError(motor.setSelectedSensorPosition(absoluteEncoder.getAbsoluteAngle() / sensorPositionCoefficient, 0, CAN_TIMEOUT_MS), "Failed to set Falcon 500 encoder position");
+            if (canCoder != null) {
+                checkCtreError(canCoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, Math.min(REMOTE_SENSOR_DATA_PERIOD_MS, statusFrameProfile.getSteerEncoderPeriodMS()), CAN_TIMEOUT_MS), "Failed to configure CANCoder update rate");
+            } else {
+                checkCtreError(motor.setSelectedSensorPosition(absoluteEncoder.getAbsoluteAngle() / sensorPositionCoefficient, 0, CAN_TIMEOUT_MS), "Failed to set Falcon 500 encoder position");
+            }
 
             // Reduce CAN status frame rates
-            CtreUtils.checkCtreError(
-                    motor.setStatusFramePeriod(
-                            StatusFrameEnhanced.Status_1_General,
-                            STATUS_FRAME_GENERAL_PERIOD_MS,
-                            CAN_TIMEOUT_MS
-                    ),
-                    "Failed to configure Falcon status frame period"
-            );
-
-            return new ControllerImplementation(motor,
+            CtreUtils.configureStatusFrames(motor,
+                    statusFrameProfile.getSteerGeneralPeriodMS(MotorType.FALCON),
+                    Math.min(statusFrameProfile.getSteerVelocityPeriodMS(), statusFrameProfile.getSteerPositionPeriodMS()),
+                    statusFrameProfile.isUnusedFramesDisabled(),
+                    CAN_TIMEOUT_MS);
+
+            return new IOSteerController(new IOImplementation(motor,
+                    canCoder,
                     sensorPositionCoefficient,
                     sensorVelocityCoefficient,
-                    hasMotionMagic() ? TalonFXControlMode.MotionMagic : TalonFXControlMode.Position,
-                    absoluteEncoder);
+                    hasMotionMagic() ? TalonFXControlMode.MotionMagic : TalonFXControlMode.Position), absoluteEncoder);
         }
     }
 
-    private static class ControllerImplementation implements SteerController {
-        private static final int ENCODER_RESET_ITERATIONS = 500;
-        private static final double ENCODER_RESET_MAX_ANGULAR_VELOCITY = Math.toRadians(0.5);
-
+    private static class IOImplementation implements SteerIO, StatusFrameTarget {
         private final WPI_TalonFX motor;
+        // The CANCoder the motor closes its loop on, if it isn't the motor's own sensor
+        private final WPI_CANCoder remoteCanCoder;
         private final double motorEncoderPositionCoefficient;
         private final double motorEncoderVelocityCoefficient;
         private final TalonFXControlMode motorControlMode;
-        private final AbsoluteEncoder absoluteEncoder;
-
-        private double referenceAngleRadians = 0.0;
-
-        private double resetIteration = 0;
 
-        private ControllerImplementation(WPI_TalonFX motor,
-                                         double motorEncoderPositionCoefficient,
-                                         double motorEncoderVelocityCoefficient,
-                                         TalonFXControlMode motorControlMode,
-                                         AbsoluteEncoder absoluteEncoder) {
+        private IOImplementation(WPI_TalonFX motor,
+                                 WPI_CANCoder remoteCanCoder,
+                                 double motorEncoderPositionCoefficient,
+                                 double motorEncoderVelocityCoefficient,
+                                 TalonFXControlMode motorControlMode) {
             this.motor = motor;
+            this.remoteCanCoder = remoteCanCoder;
             this.motorEncoderPositionCoefficient = motorEncoderPositionCoefficient;
             this.motorEncoderVelocityCoefficient = motorEncoderVelocityCoefficient;
             this.motorControlMode = motorControlMode;
-            this.absoluteEncoder = absoluteEncoder;
         }
 
         @Override
-        public MotorController getSteerMotor() {
+        public MotorController getMotor() {
             return this.motor;
         }
 
         @Override
-        public AbsoluteEncoder getSteerEncoder() {
-            return this.absoluteEncoder;
+        public double getPositionRadians() {
+            return motor.getSelectedSensorPosition() * motorEncoderPositionCoefficient;
         }
 
         @Override
-        public double getReferenceAngle() {
-            return referenceAngleRadians;
+        public double getVelocityRadiansPerSecond() {
+            return motor.getSelectedSensorVelocity() * motorEncoderVelocityCoefficient;
         }
 
         @Override
-        public void setReferenceAngle(double referenceAngleRadians) {
-            double currentAngleRadians = motor.getSelectedSensorPosition() * motorEncoderPositionCoefficient;
-
-            // Reset the NEO's encoder periodically when the module is not rotating.
-            // Sometimes (~5% of the time) when we initialize, the absolute encoder isn't fully set up, and we don't
-            // end up getting a good reading. If we reset periodically this won't matter anymore.
-            if (motor.getSelectedSensorVelocity() * motorEncoderVelocityCoefficient < ENCODER_RESET_MAX_ANGULAR_VELOCITY) {
-                if (++resetIteration >= ENCODER_RESET_ITERATIONS) {
-                    resetIteration = 0;
-                    double absoluteAngle = absoluteEncoder.getAbsoluteAngle();
-                    motor.setSelectedSensorPosition(absoluteAngle / motorEncoderPositionCoefficient);
-                    currentAngleRadians = absoluteAngle;
-                }
-            } else {
-                resetIteration = 0;
-            }
-
-            double currentAngleRadiansMod = currentAngleRadians % (2.0 * Math.PI);
-            if (currentAngleRadiansMod < 0.0) {
-                currentAngleRadiansMod += 2.0 * Math.PI;
-            }
-
-            // The reference angle has the range [0, 2pi) but the Falcon's encoder can go above that
-            double adjustedReferenceAngleRadians = referenceAngleRadians + currentAngleRadians - currentAngleRadiansMod;
-            if (referenceAngleRadians - currentAngleRadiansMod > Math.PI) {
-                adjustedReferenceAngleRadians -= 2.0 * Math.PI;
-            } else if (referenceAngleRadians - currentAngleRadiansMod < -Math.PI) {
-                adjustedReferenceAngleRadians += 2.0 * Math.PI;
-            }
+        public void setPosition(double positionRadians) {
+            motor.set(motorControlMode, positionRadians / motorEncoderPositionCoefficient);
+        }
 
-            motor.set(motorControlMode, adjustedReferenceAngleRadians / motorEncoderPositionCoefficient);
+        @Override
+        public void resetPosition(double positionRadians) {
+            motor.setSelectedSensorPosition(positionRadians / motorEncoderPositionCoefficient);
+        }
 
+        @Override
+        public boolean hasAbsoluteFeedback() {
+            // The CANCoder is absolute, so a remote feedback sensor never needs resetting
+            return remoteCanCoder != null;
+        }
 
-            this.referenceAngleRadians = referenceAngleRadians;
+        @Override
+        public StatusFrameTarget getStatusFrameTarget() {
+            return this;
         }
 
         @Override
-        public double getStateAngle() {
-            double motorAngleRadians = motor.getSelectedSensorPosition() * motorEncoderPositionCoefficient;
-            motorAngleRadians %= 2.0 * Math.PI;
-            if (motorAngleRadians < 0.0) {
-                motorAngleRadians += 2.0 * Math.PI;
+        public void configureStatusFrames(StatusFrameProfile profile) {
+            CtreUtils.configureStatusFrames(motor,
+                    profile.getSteerGeneralPeriodMS(MotorType.FALCON),
+                    Math.min(profile.getSteerVelocityPeriodMS(), profile.getSteerPositionPeriodMS()),
+                    profile.isUnusedFramesDisabled(),
+                    CtreUtils.NON_BLOCKING_TIMEOUT_MS);
+            if (remoteCanCoder != null) {
+                CtreUtils.configureStatusFrames(remoteCanCoder,
+                        Math.min(REMOTE_SENSOR_DATA_PERIOD_MS, profile.getSteerEncoderPeriodMS()),
+                        profile.isUnusedFramesDisabled(),
+                        CtreUtils.NON_BLOCKING_TIMEOUT_MS);
             }
-
-            return motorAngleRadians;
         }
     }
 }
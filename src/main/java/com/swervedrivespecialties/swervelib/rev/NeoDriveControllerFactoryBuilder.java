@@ -3,18 +3,41 @@ package com.swervedrivespecialties.swervelib.rev;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel;
 import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
 import com.swervedrivespecialties.swervelib.DriveController;
 import com.swervedrivespecialties.swervelib.DriveControllerFactory;
+import com.swervedrivespecialties.swervelib.DriveIO;
+import com.swervedrivespecialties.swervelib.IODriveController;
 import com.swervedrivespecialties.swervelib.MechanicalConfiguration;
+import com.swervedrivespecialties.swervelib.MotorType;
+import com.swervedrivespecialties.swervelib.StatusFrameProfile;
+import com.swervedrivespecialties.swervelib.StatusFrameTarget;
+import com.swervedrivespecialties.swervelib.SwerveModule;
+import com.swervedrivespecialties.swervelib.WriteCoalescer;
 
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 
-import static com.swervedrivespecialties.swervelib.rev.RevUtils.checkNeoError;
+import static com.swervedrivespecialties.swervelib.rev.RevUtils.*;
 
 public final class NeoDriveControllerFactoryBuilder {
+    // The Spark MAX runs its closed loop every millisecond
+    private static final double CLOSED_LOOP_PERIOD = 0.001;
+    private static final CANSparkMax.IdleMode IDLE_MODE = CANSparkMax.IdleMode.kBrake;
+
     private double nominalVoltage = Double.NaN;
     private double currentLimit = Double.NaN;
 
+    // Velocity PID configuration, in volts per m/s of error
+    private double pidProportional = Double.NaN;
+    private double pidIntegral = Double.NaN;
+    private double pidDerivative = Double.NaN;
+
+    private boolean configurationFingerprinting = false;
+    private StatusFrameProfile statusFrameProfile = new StatusFrameProfile();
+    private double writeCoalescingEpsilon = Double.NaN;
+    private double writeCoalescingKeepAlivePeriod = Double.NaN;
+
     public NeoDriveControllerFactoryBuilder withVoltageCompensation(double nominalVoltage) {
         this.nominalVoltage = nominalVoltage;
         return this;
@@ -33,68 +56,203 @@ public final class NeoDriveControllerFactoryBuilder {
         return Double.isFinite(currentLimit);
     }
 
-    public DriveControllerFactory<ControllerImplementation, Integer> build() {
+    /**
+     * Sets the gains of the on-controller velocity loop used by
+     * {@link DriveController#setReferenceVelocity(double, double)}.
+     *
+     * @param proportional volts per m/s of velocity error
+     * @param integral     volts per meter of accumulated velocity error
+     * @param derivative   volts per m/s^2 of velocity error rate
+     */
+    public NeoDriveControllerFactoryBuilder withPidConstants(double proportional, double integral, double derivative) {
+        this.pidProportional = proportional;
+        this.pidIntegral = integral;
+        this.pidDerivative = derivative;
+        return this;
+    }
+
+    public boolean hasPidConstants() {
+        return Double.isFinite(pidProportional) && Double.isFinite(pidIntegral) && Double.isFinite(pidDerivative);
+    }
+
+    /**
+     * Skips pushing the full configuration to motors that already have it.
+     * <p>
+     * The first time a motor is configured its settings are saved to its flash and a fingerprint of them is kept in
+     * the roboRIO's preferences. On later boots a matching fingerprint leaves the saved settings alone. Settings the
+     * motor forgets on power loss are still applied every time.
+     */
+    public NeoDriveControllerFactoryBuilder withConfigurationFingerprinting() {
+        this.configurationFingerprinting = true;
+        return this;
+    }
+
+    public boolean hasConfigurationFingerprinting() {
+        return configurationFingerprinting;
+    }
+
+    /**
+     * Sets how often the motor sends its CAN status frames. The {@link StatusFrameProfile#withDrivePeriods drive}
+     * periods are used.
+     */
+    public NeoDriveControllerFactoryBuilder withStatusFrameProfile(StatusFrameProfile statusFrameProfile) {
+        this.statusFrameProfile = statusFrameProfile;
+        return this;
+    }
+
+    /**
+     * Stops sending the motor drive setpoints it already has. A setpoint within {@code epsilon} of the last one sent
+     * is suppressed, unless {@code keepAlivePeriod} has passed since then. The counts of setpoints sent and suppressed
+     * are available from {@link SwerveModule#getDriveWriteCoalescer()}. Voltage setpoints are also resent when the
+     * battery voltage changes by more than {@code epsilon}, since the Spark MAX is sent a fraction of it.
+     *
+     * @param epsilon         the largest setpoint change that is suppressed, in volts, or in m/s and volts for
+     *                        velocity setpoints
+     * @param keepAlivePeriod the longest time in seconds between setpoints being sent
+     */
+    public NeoDriveControllerFactoryBuilder withWriteCoalescing(double epsilon, double keepAlivePeriod) {
+        this.writeCoalescingEpsilon = epsilon;
+        this.writeCoalescingKeepAlivePeriod = keepAlivePeriod;
+        return this;
+    }
+
+    public boolean hasWriteCoalescing() {
+        return Double.isFinite(writeCoalescingEpsilon) && Double.isFinite(writeCoalescingKeepAlivePeriod);
+    }
+
+    public DriveControllerFactory<IODriveController, Integer> build() {
         return new FactoryImplementation();
     }
 
-    private class FactoryImplementation implements DriveControllerFactory<ControllerImplementation, Integer> {
+    private class FactoryImplementation implements DriveControllerFactory<IODriveController, Integer> {
         @Override
-        public ControllerImplementation create(Integer id, String _canbus, MechanicalConfiguration mechConfiguration) {
+        public IODriveController create(Integer id, String _canbus, MechanicalConfiguration mechConfiguration) {
             CANSparkMax motor = new CANSparkMax(id, CANSparkMaxLowLevel.MotorType.kBrushless);
             motor.setInverted(mechConfiguration.isDriveInverted());
 
-            // Setup voltage compensation
-            if (hasVoltageCompensation()) {
-                checkNeoError(motor.enableVoltageCompensation(nominalVoltage), "Failed to enable voltage compensation");
+            RelativeEncoder encoder = motor.getEncoder();
+            double positionConversionFactor = Math.PI * mechConfiguration.getWheelDiameter() * mechConfiguration.getDriveReduction();
+            double velocityConversionFactor = positionConversionFactor / 60.0;
+
+            // The Spark MAX's loop outputs a fraction of the nominal voltage, or of the bus voltage
+            double outputPerVolt = 1.0 / (hasVoltageCompensation() ? nominalVoltage : 12.0);
+            double proportional = pidProportional * outputPerVolt;
+            double integral = pidIntegral * outputPerVolt * CLOSED_LOOP_PERIOD;
+            double derivative = pidDerivative * outputPerVolt / CLOSED_LOOP_PERIOD;
+
+            boolean configured = false;
+            int fingerprint = 0;
+            if (hasConfigurationFingerprinting()) {
+                // Every setting skipped below when the fingerprint matches, as it is sent to the motor
+                fingerprint = configurationFingerprint(IDLE_MODE, nominalVoltage, currentLimit,
+                        positionConversionFactor, velocityConversionFactor, proportional, integral, derivative,
+                        hasPidConstants() ? "integrated" : "none");
+                // Read back a setting too, in case the controller was swapped
+                configured = hasConfigurationFingerprint(motor, fingerprint) &&
+                        (float) encoder.getPositionConversionFactor() == (float) positionConversionFactor;
             }
 
-            if (hasCurrentLimit()) {
-                checkNeoError(motor.setSmartCurrentLimit((int) currentLimit), "Failed to set current limit for NEO");
+            if (!configured) {
+                // Setup voltage compensation
+                if (hasVoltageCompensation()) {
+                    checkNeoError(motor.enableVoltageCompensation(nominalVoltage), "Failed to enable voltage compensation");
+                }
+
+                if (hasCurrentLimit()) {
+                    checkNeoError(motor.setSmartCurrentLimit((int) currentLimit), "Failed to set current limit for NEO");
+                }
             }
 
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, 100), "Failed to set periodic status frame 0 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, 20), "Failed to set periodic status frame 1 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, 20), "Failed to set periodic status frame 2 rate");
-            // Set neutral mode to brake
-            motor.setIdleMode(CANSparkMax.IdleMode.kBrake);
+            configureStatusFrames(motor,
+                    statusFrameProfile.getDriveGeneralPeriodMS(MotorType.NEO),
+                    statusFrameProfile.getDriveVelocityPeriodMS(),
+                    statusFrameProfile.getDrivePositionPeriodMS(),
+                    0,
+                    statusFrameProfile.isUnusedFramesDisabled());
 
-            // Setup encoder
-            RelativeEncoder encoder = motor.getEncoder();
-            double positionConversionFactor = Math.PI * mechConfiguration.getWheelDiameter() * mechConfiguration.getDriveReduction();
-            encoder.setPositionConversionFactor(positionConversionFactor);
-            encoder.setVelocityConversionFactor(positionConversionFactor / 60.0);
+            if (!configured) {
+                // Set neutral mode to brake
+                motor.setIdleMode(IDLE_MODE);
+
+                // Setup encoder
+                encoder.setPositionConversionFactor(positionConversionFactor);
+                encoder.setVelocityConversionFactor(velocityConversionFactor);
 
-            return new ControllerImplementation(motor, encoder);
+                if (hasPidConstants()) {
+                    SparkMaxPIDController controller = motor.getPIDController();
+                    checkNeoError(controller.setP(proportional), "Failed to set NEO PID proportional constant");
+                    checkNeoError(controller.setI(integral), "Failed to set NEO PID integral constant");
+                    checkNeoError(controller.setD(derivative), "Failed to set NEO PID derivative constant");
+                    checkNeoError(controller.setFeedbackDevice(encoder), "Failed to set NEO PID feedback device");
+                }
+
+                if (hasConfigurationFingerprinting()) {
+                    saveConfigurationFingerprint(motor, fingerprint);
+                }
+            }
+
+            return new IODriveController(new IOImplementation(motor, encoder), hasWriteCoalescing()
+                    ? new WriteCoalescer(writeCoalescingEpsilon, writeCoalescingKeepAlivePeriod)
+                    : null);
         }
     }
 
-    private static class ControllerImplementation implements DriveController {
+    private static class IOImplementation implements DriveIO, StatusFrameTarget {
         private final CANSparkMax motor;
         private final RelativeEncoder encoder;
+        private final SparkMaxPIDController controller;
 
-        private ControllerImplementation(CANSparkMax motor, RelativeEncoder encoder) {
+        private IOImplementation(CANSparkMax motor, RelativeEncoder encoder) {
             this.motor = motor;
             this.encoder = encoder;
+            this.controller = motor.getPIDController();
         }
 
         @Override
-        public MotorController getDriveMotor() {
+        public MotorController getMotor() {
             return this.motor;
         }
 
         @Override
-        public void setReferenceVoltage(double voltage) {
+        public void setVoltage(double voltage) {
             motor.setVoltage(voltage);
         }
 
         @Override
-        public double getStateVelocity() {
-            return encoder.getVelocity();
+        public double getSupplyVoltage() {
+            // setVoltage() sends the voltage as a fraction of the battery voltage
+            return RobotController.getBatteryVoltage();
         }
 
         @Override
-        public double getStateDistance() {
+        public void setVelocity(double metersPerSecond, double feedforwardVolts) {
+            controller.setReference(metersPerSecond, CANSparkMax.ControlType.kVelocity, 0,
+                    feedforwardVolts, SparkMaxPIDController.ArbFFUnits.kVoltage);
+        }
+
+        @Override
+        public StatusFrameTarget getStatusFrameTarget() {
+            return this;
+        }
+
+        @Override
+        public void configureStatusFrames(StatusFrameProfile profile) {
+            RevUtils.configureStatusFrames(motor,
+                    profile.getDriveGeneralPeriodMS(MotorType.NEO),
+                    profile.getDriveVelocityPeriodMS(),
+                    profile.getDrivePositionPeriodMS(),
+                    0,
+                    profile.isUnusedFramesDisabled());
+        }
+
+        @Override
+        public double getPositionMeters() {
             return encoder.getPosition();
         }
+
+        @Override
+        public double getVelocityMetersPerSecond() {
+            return encoder.getVelocity();
+        }
     }
 }
@@ -4,14 +4,20 @@ import com.revrobotics.CANSparkMax;
 import com.revrobotics.SparkMaxPIDController;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.CANSparkMaxLowLevel;
+import com.revrobotics.SparkMaxAbsoluteEncoder;
 import com.swervedrivespecialties.swervelib.*;
 
 import edu.wpi.first.wpilibj.motorcontrol.MotorController;
 import edu.wpi.first.wpilibj.shuffleboard.ShuffleboardContainer;
 
-import static com.swervedrivespecialties.swervelib.rev.RevUtils.checkNeoError;
+import static com.swervedrivespecialties.swervelib.rev.RevUtils.*;
 
 public final class NeoSteerControllerFactoryBuilder {
+    private static final CANSparkMax.IdleMode IDLE_MODE = CANSparkMax.IdleMode.kBrake;
+    // The absolute encoder is on the steering axis, so one rotation is one rotation of the wheel
+    private static final double ABSOLUTE_POSITION_CONVERSION_FACTOR = 2.0 * Math.PI;
+    private static final double ABSOLUTE_VELOCITY_CONVERSION_FACTOR = 2.0 * Math.PI / 60.0;
+
     // PID configuration
     private double pidProportional = Double.NaN;
     private double pidIntegral = Double.NaN;
@@ -19,6 +25,10 @@ public final class NeoSteerControllerFactoryBuilder {
 
     private double nominalVoltage = Double.NaN;
     private double currentLimit = Double.NaN;
+    private boolean configurationFingerprinting = false;
+    private StatusFrameProfile statusFrameProfile = new StatusFrameProfile();
+    private double writeCoalescingEpsilon = Double.NaN;
+    private double writeCoalescingKeepAlivePeriod = Double.NaN;
 
     public NeoSteerControllerFactoryBuilder withPidConstants(double proportional, double integral, double derivative) {
         this.pidProportional = proportional;
@@ -49,6 +59,49 @@ public final class NeoSteerControllerFactoryBuilder {
         return Double.isFinite(currentLimit);
     }
 
+    /**
+     * Skips pushing the full configuration to motors that already have it.
+     * <p>
+     * The first time a motor is configured its settings are saved to its flash and a fingerprint of them is kept in
+     * the roboRIO's preferences. On later boots a matching fingerprint leaves the saved settings alone. Settings the
+     * motor forgets on power loss are still applied every time.
+     */
+    public NeoSteerControllerFactoryBuilder withConfigurationFingerprinting() {
+        this.configurationFingerprinting = true;
+        return this;
+    }
+
+    public boolean hasConfigurationFingerprinting() {
+        return configurationFingerprinting;
+    }
+
+    /**
+     * Sets how often the motor sends its CAN status frames. The {@link StatusFrameProfile#withSteerPeriods steer}
+     * periods are used.
+     */
+    public NeoSteerControllerFactoryBuilder withStatusFrameProfile(StatusFrameProfile statusFrameProfile) {
+        this.statusFrameProfile = statusFrameProfile;
+        return this;
+    }
+
+    /**
+     * Stops sending the motor steer setpoints it already has. A setpoint within {@code epsilon} of the last one sent
+     * is suppressed, unless {@code keepAlivePeriod} has passed since then. The counts of setpoints sent and suppressed
+     * are available from {@link SwerveModule#getSteerWriteCoalescer()}.
+     *
+     * @param epsilon         the largest setpoint change that is suppressed, in radians
+     * @param keepAlivePeriod the longest time in seconds between setpoints being sent
+     */
+    public NeoSteerControllerFactoryBuilder withWriteCoalescing(double epsilon, double keepAlivePeriod) {
+        this.writeCoalescingEpsilon = epsilon;
+        this.writeCoalescingKeepAlivePeriod = keepAlivePeriod;
+        return this;
+    }
+
+    public boolean hasWriteCoalescing() {
+        return Double.isFinite(writeCoalescingEpsilon) && Double.isFinite(writeCoalescingKeepAlivePeriod);
+    }
+
     public SteerControllerFactory<ControllerImplementation, SteerConfiguration> build() {
         return new FactoryImplementation();
     }
@@ -61,124 +114,220 @@ public final class NeoSteerControllerFactoryBuilder {
         @Override
         public void addDashboardEntries(ShuffleboardContainer container, ControllerImplementation controller) {
             SteerControllerFactory.super.addDashboardEntries(container, controller);
-            container.addNumber("Absolute Encoder Angle", () -> Math.toDegrees(controller.absoluteEncoder.getAbsoluteAngle()));
+            container.addNumber("Absolute Encoder Angle", () -> Math.toDegrees(controller.getSteerEncoder().getAbsoluteAngle()));
         }
 
         @Override
         public ControllerImplementation create(SteerConfiguration steerConfiguration, String _canbus, MechanicalConfiguration mechConfiguration) {
-            AbsoluteEncoder absoluteEncoder = steerConfiguration.getEncoderConfiguration().create();
+            AbsoluteEncoderConfiguration<?> encoderConfiguration = steerConfiguration.getEncoderConfiguration();
+            SparkMaxAbsoluteEncoderConfiguration onControllerEncoderConfiguration =
+                    encoderConfiguration instanceof SparkMaxAbsoluteEncoderConfiguration ?
+                            (SparkMaxAbsoluteEncoderConfiguration) encoderConfiguration : null;
+            boolean onControllerEncoder = onControllerEncoderConfiguration != null;
 
             CANSparkMax motor = new CANSparkMax(steerConfiguration.getMotorPort(), CANSparkMaxLowLevel.MotorType.kBrushless);
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, 100), "Failed to set periodic status frame 0 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, 20), "Failed to set periodic status frame 1 rate");
-            checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, 20), "Failed to set periodic status frame 2 rate");
-            checkNeoError(motor.setIdleMode(CANSparkMax.IdleMode.kBrake), "Failed to set NEO idle mode");
-            motor.setInverted(!mechConfiguration.isSteerInverted());
-            if (hasVoltageCompensation()) {
-                checkNeoError(motor.enableVoltageCompensation(nominalVoltage), "Failed to enable voltage compensation");
+            RelativeEncoder integratedEncoder = motor.getEncoder();
+            double positionConversionFactor = 2.0 * Math.PI * mechConfiguration.getSteerReduction();
+            double velocityConversionFactor = positionConversionFactor / 60.0;
+
+            double zeroOffset = 0.0;
+            if (onControllerEncoder) {
+                // The Spark MAX subtracts its zero offset where the configured offset is added
+                zeroOffset = -onControllerEncoderConfiguration.getOffset() % (2.0 * Math.PI);
+                if (zeroOffset < 0.0) {
+                    zeroOffset += 2.0 * Math.PI;
+                }
             }
-            if (hasCurrentLimit()) {
-                checkNeoError(motor.setSmartCurrentLimit((int) Math.round(currentLimit)), "Failed to set NEO current limits");
+
+            boolean configured = false;
+            int fingerprint = 0;
+            if (hasConfigurationFingerprinting()) {
+                // Every setting skipped below when the fingerprint matches, as it is sent to the motor
+                fingerprint = configurationFingerprint(IDLE_MODE, nominalVoltage, Math.round(currentLimit),
+                        positionConversionFactor, velocityConversionFactor,
+                        pidProportional, pidIntegral, pidDerivative,
+                        onControllerEncoder
+                                ? new Object[]{ABSOLUTE_POSITION_CONVERSION_FACTOR, ABSOLUTE_VELOCITY_CONVERSION_FACTOR,
+                                        onControllerEncoderConfiguration.isInverted(), zeroOffset, "wrapped", 0.0,
+                                        2.0 * Math.PI}
+                                : "integrated");
+                // Read back a setting too, in case the controller was swapped
+                configured = hasConfigurationFingerprint(motor, fingerprint) &&
+                        (float) integratedEncoder.getPositionConversionFactor() == (float) positionConversionFactor;
             }
 
-            RelativeEncoder integratedEncoder = motor.getEncoder();
-            checkNeoError(integratedEncoder.setPositionConversionFactor(2.0 * Math.PI * mechConfiguration.getSteerReduction()), "Failed to set NEO encoder conversion factor");
-            checkNeoError(integratedEncoder.setVelocityConversionFactor(2.0 * Math.PI * mechConfiguration.getSteerReduction() / 60.0), "Failed to set NEO encoder conversion factor");
-            checkNeoError(integratedEncoder.setPosition(absoluteEncoder.getAbsoluteAngle()), "Failed to set NEO encoder position");
+            // The absolute encoder's position is only sent in status frame 5
+            configureStatusFrames(motor,
+                    statusFrameProfile.getSteerGeneralPeriodMS(MotorType.NEO),
+                    statusFrameProfile.getSteerVelocityPeriodMS(),
+                    statusFrameProfile.getSteerPositionPeriodMS(),
+                    onControllerEncoder ? statusFrameProfile.getSteerPositionPeriodMS() : 0,
+                    statusFrameProfile.isUnusedFramesDisabled());
+            motor.setInverted(!mechConfiguration.isSteerInverted());
+            if (!configured) {
+                checkNeoError(motor.setIdleMode(IDLE_MODE), "Failed to set NEO idle mode");
+                if (hasVoltageCompensation()) {
+                    checkNeoError(motor.enableVoltageCompensation(nominalVoltage), "Failed to enable voltage compensation");
+                }
+                if (hasCurrentLimit()) {
+                    checkNeoError(motor.setSmartCurrentLimit((int) Math.round(currentLimit)), "Failed to set NEO current limits");
+                }
+
+                checkNeoError(integratedEncoder.setPositionConversionFactor(positionConversionFactor), "Failed to set NEO encoder conversion factor");
+                checkNeoError(integratedEncoder.setVelocityConversionFactor(velocityConversionFactor), "Failed to set NEO encoder conversion factor");
+            }
+
+            AbsoluteEncoder absoluteEncoder;
+            SparkMaxAbsoluteEncoder sparkMaxAbsoluteEncoder = null;
+            if (onControllerEncoder) {
+                sparkMaxAbsoluteEncoder = motor.getAbsoluteEncoder(SparkMaxAbsoluteEncoder.Type.kDutyCycle);
+                if (!configured) {
+                    checkNeoError(sparkMaxAbsoluteEncoder.setPositionConversionFactor(ABSOLUTE_POSITION_CONVERSION_FACTOR), "Failed to set absolute encoder conversion factor");
+                    checkNeoError(sparkMaxAbsoluteEncoder.setVelocityConversionFactor(ABSOLUTE_VELOCITY_CONVERSION_FACTOR), "Failed to set absolute encoder conversion factor");
+                    checkNeoError(sparkMaxAbsoluteEncoder.setInverted(onControllerEncoderConfiguration.isInverted()), "Failed to set absolute encoder direction");
+                    checkNeoError(sparkMaxAbsoluteEncoder.setZeroOffset(zeroOffset), "Failed to set absolute encoder offset");
+                }
+                absoluteEncoder = new OnControllerEncoderImplementation(sparkMaxAbsoluteEncoder);
+            } else {
+                absoluteEncoder = encoderConfiguration.create();
+                checkNeoError(integratedEncoder.setPosition(absoluteEncoder.getAbsoluteAngle()), "Failed to set NEO encoder position");
+            }
 
             SparkMaxPIDController controller = motor.getPIDController();
-            if (hasPidConstants()) {
-                checkNeoError(controller.setP(pidProportional), "Failed to set NEO PID proportional constant");
-                checkNeoError(controller.setI(pidIntegral), "Failed to set NEO PID integral constant");
-                checkNeoError(controller.setD(pidDerivative), "Failed to set NEO PID derivative constant");
+            if (!configured) {
+                if (hasPidConstants()) {
+                    checkNeoError(controller.setP(pidProportional), "Failed to set NEO PID proportional constant");
+                    checkNeoError(controller.setI(pidIntegral), "Failed to set NEO PID integral constant");
+                    checkNeoError(controller.setD(pidDerivative), "Failed to set NEO PID derivative constant");
+                }
+                if (onControllerEncoder) {
+                    checkNeoError(controller.setFeedbackDevice(sparkMaxAbsoluteEncoder), "Failed to set NEO PID feedback device");
+                    // Let the Spark MAX take the shortest path across zero, so targets can be sent as they are
+                    checkNeoError(controller.setPositionPIDWrappingEnabled(true), "Failed to enable NEO PID wrapping");
+                    checkNeoError(controller.setPositionPIDWrappingMinInput(0.0), "Failed to set NEO PID wrapping range");
+                    checkNeoError(controller.setPositionPIDWrappingMaxInput(2.0 * Math.PI), "Failed to set NEO PID wrapping range");
+                } else {
+                    checkNeoError(controller.setFeedbackDevice(integratedEncoder), "Failed to set NEO PID feedback device");
+                }
+
+                if (hasConfigurationFingerprinting()) {
+                    saveConfigurationFingerprint(motor, fingerprint);
+                }
             }
-            checkNeoError(controller.setFeedbackDevice(integratedEncoder), "Failed to set NEO PID feedback device");
 
-            return new ControllerImplementation(motor, absoluteEncoder);
+            return new ControllerImplementation(motor, absoluteEncoder, onControllerEncoder, hasWriteCoalescing()
+                    ? new WriteCoalescer(writeCoalescingEpsilon, writeCoalescingKeepAlivePeriod)
+                    : null);
         }
     }
 
-    public static class ControllerImplementation implements SteerController {
-        private static final int ENCODER_RESET_ITERATIONS = 500;
-        private static final double ENCODER_RESET_MAX_ANGULAR_VELOCITY = Math.toRadians(0.5);
+    public static class ControllerImplementation extends IOSteerController {
+        public ControllerImplementation(CANSparkMax motor, AbsoluteEncoder absoluteEncoder) {
+            this(motor, absoluteEncoder, false, null);
+        }
 
-        @SuppressWarnings("FieldCanBeLocal")
+        private ControllerImplementation(CANSparkMax motor, AbsoluteEncoder absoluteEncoder, boolean onControllerEncoder,
+                                         WriteCoalescer writeCoalescer) {
+            super(new IOImplementation(motor, onControllerEncoder ? absoluteEncoder : null), absoluteEncoder,
+                    absoluteEncoder, writeCoalescer);
+        }
+    }
+
+    private static class IOImplementation implements SteerIO, StatusFrameTarget {
         private final CANSparkMax motor;
         private final SparkMaxPIDController controller;
         private final RelativeEncoder motorEncoder;
-        private final AbsoluteEncoder absoluteEncoder;
-
-        private double referenceAngleRadians = 0;
-
-        private double resetIteration = 0;
+        // The encoder the Spark MAX closes its loop on, if it isn't the motor's
+        private final AbsoluteEncoder onControllerEncoder;
 
-        public ControllerImplementation(CANSparkMax motor, AbsoluteEncoder absoluteEncoder) {
+        private IOImplementation(CANSparkMax motor, AbsoluteEncoder onControllerEncoder) {
             this.motor = motor;
             this.controller = motor.getPIDController();
             this.motorEncoder = motor.getEncoder();
-            this.absoluteEncoder = absoluteEncoder;
+            this.onControllerEncoder = onControllerEncoder;
         }
 
         @Override
-        public MotorController getSteerMotor() {
+        public MotorController getMotor() {
             return this.motor;
         }
 
         @Override
-        public AbsoluteEncoder getSteerEncoder() {
-            return this.absoluteEncoder;
+        public double getPositionRadians() {
+            if (onControllerEncoder != null) {
+                return onControllerEncoder.getAbsoluteAngle();
+            }
+
+            return motorEncoder.getPosition();
         }
 
         @Override
-        public double getReferenceAngle() {
-            return referenceAngleRadians;
+        public double getVelocityRadiansPerSecond() {
+            if (onControllerEncoder != null) {
+                return 0.0;
+            }
+
+            return motorEncoder.getVelocity();
         }
 
         @Override
-        public void setReferenceAngle(double referenceAngleRadians) {
-            double currentAngleRadians = motorEncoder.getPosition();
-
-            // Reset the NEO's encoder periodically when the module is not rotating.
-            // Sometimes (~5% of the time) when we initialize, the absolute encoder isn't fully set up, and we don't
-            // end up getting a good reading. If we reset periodically this won't matter anymore.
-            if (motorEncoder.getVelocity() < ENCODER_RESET_MAX_ANGULAR_VELOCITY) {
-                if (++resetIteration >= ENCODER_RESET_ITERATIONS) {
-                    resetIteration = 0;
-                    double absoluteAngle = absoluteEncoder.getAbsoluteAngle();
-                    motorEncoder.setPosition(absoluteAngle);
-                    currentAngleRadians = absoluteAngle;
-                }
-            } else {
-                resetIteration = 0;
-            }
+        public void setPosition(double positionRadians) {
+            controller.setReference(positionRadians, CANSparkMax.ControlType.kPosition);
+        }
 
-            double currentAngleRadiansMod = currentAngleRadians % (2.0 * Math.PI);
-            if (currentAngleRadiansMod < 0.0) {
-                currentAngleRadiansMod += 2.0 * Math.PI;
-            }
+        @Override
+        public void resetPosition(double positionRadians) {
+            motorEncoder.setPosition(positionRadians);
+        }
 
-            // The reference angle has the range [0, 2pi) but the Neo's encoder can go above that
-            double adjustedReferenceAngleRadians = referenceAngleRadians + currentAngleRadians - currentAngleRadiansMod;
-            if (referenceAngleRadians - currentAngleRadiansMod > Math.PI) {
-                adjustedReferenceAngleRadians -= 2.0 * Math.PI;
-            } else if (referenceAngleRadians - currentAngleRadiansMod < -Math.PI) {
-                adjustedReferenceAngleRadians += 2.0 * Math.PI;
-            }
+        @Override
+        public boolean hasAbsoluteFeedback() {
+            return onControllerEncoder != null;
+        }
+
+        @Override
+        public boolean isContinuousInput() {
+            // The Spark MAX wraps its loop around the absolute encoder's [0, 2pi) range itself
+            return onControllerEncoder != null;
+        }
+
+        @Override
+        public StatusFrameTarget getStatusFrameTarget() {
+            return this;
+        }
+
+        @Override
+        public void configureStatusFrames(StatusFrameProfile profile) {
+            // The absolute encoder's position is only sent in status frame 5
+            RevUtils.configureStatusFrames(motor,
+                    profile.getSteerGeneralPeriodMS(MotorType.NEO),
+                    profile.getSteerVelocityPeriodMS(),
+                    profile.getSteerPositionPeriodMS(),
+                    onControllerEncoder != null ? profile.getSteerPositionPeriodMS() : 0,
+                    profile.isUnusedFramesDisabled());
+        }
+    }
 
-            this.referenceAngleRadians = referenceAngleRadians;
+    private static class OnControllerEncoderImplementation implements AbsoluteEncoder {
+        private final SparkMaxAbsoluteEncoder encoder;
 
-            controller.setReference(adjustedReferenceAngleRadians, CANSparkMax.ControlType.kPosition);
+        private OnControllerEncoderImplementation(SparkMaxAbsoluteEncoder encoder) {
+            this.encoder = encoder;
         }
 
         @Override
-        public double getStateAngle() {
-            double motorAngleRadians = motorEncoder.getPosition();
-            motorAngleRadians %= 2.0 * Math.PI;
-            if (motorAngleRadians < 0.0) {
-                motorAngleRadians += 2.0 * Math.PI;
+        public double getAbsoluteAngle() {
+            double angle = encoder.getPosition() % (2.0 * Math.PI);
+            if (angle < 0.0) {
+                angle += 2.0 * Math.PI;
             }
 
-            return motorAngleRadians;
+            return angle;
+        }
+
+        @Override
+        public Object getInternal() {
+            return encoder;
         }
     }
 }
@@ -1,15 +1,112 @@
 package com.swervedrivespecialties.swervelib.rev;
 
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel;
 import com.revrobotics.REVLibError;
-import edu.wpi.first.wpilibj.DriverStation;
+import com.swervedrivespecialties.swervelib.DeviceConfigurationReport;
+import com.swervedrivespecialties.swervelib.StatusFrameProfile;
+import edu.wpi.first.wpilibj.Preferences;
 import edu.wpi.first.wpilibj.RobotBase;
 
+import java.util.Arrays;
+
 public final class RevUtils {
+    private static final String FINGERPRINT_KEY_PREFIX = "SwerveLib/SparkMaxConfiguration/";
+    // The periods of the unused frames after a power cycle, from REV's documentation
+    private static final int STATUS_3_DEFAULT_PERIOD_MS = 50;
+    private static final int STATUS_4_DEFAULT_PERIOD_MS = 20;
+    private static final int STATUS_5_DEFAULT_PERIOD_MS = 200;
+    private static final int STATUS_6_DEFAULT_PERIOD_MS = 200;
+
     private RevUtils() {}
 
     public static void checkNeoError(REVLibError error, String message) {
         if (RobotBase.isReal() && error != REVLibError.kOk) {
-            DriverStation.reportError(String.format("%s: %s", message, error.toString()), false);
+            DeviceConfigurationReport.reportError(String.format("%s: %s", message, error.toString()));
+        }
+    }
+
+    /**
+     * Gets a fingerprint of the settings a Spark MAX is configured with.
+     *
+     * @param settings every persisted setting, as numbers, booleans, strings, enums or arrays of them
+     * @return the fingerprint, never 0
+     */
+    public static int configurationFingerprint(Object... settings) {
+        int fingerprint = Arrays.deepToString(settings).hashCode();
+        return fingerprint != 0 ? fingerprint : 1;
+    }
+
+    /**
+     * Gets whether a Spark MAX was last configured and flashed with settings that have the given fingerprint.
+     * <p>
+     * The Spark MAX has no spare parameter to hold the fingerprint, so it is kept in the roboRIO's {@link Preferences}
+     * under the device's CAN ID. Callers should read back at least one setting to catch a swapped controller.
+     *
+     * @param motor       the motor to check
+     * @param fingerprint the fingerprint of the settings the motor should have
+     * @return true if the stored fingerprint matches
+     */
+    public static boolean hasConfigurationFingerprint(CANSparkMax motor, int fingerprint) {
+        return Preferences.getInt(FINGERPRINT_KEY_PREFIX + motor.getDeviceId(), 0) == fingerprint;
+    }
+
+    /**
+     * Saves a Spark MAX's settings to its flash and, if that succeeds, stores their fingerprint.
+     *
+     * @param motor       the configured motor
+     * @param fingerprint the fingerprint of the settings the motor was configured with
+     */
+    public static void saveConfigurationFingerprint(CANSparkMax motor, int fingerprint) {
+        REVLibError error = motor.burnFlash();
+        checkNeoError(error, "Failed to save NEO configuration");
+        if (error == REVLibError.kOk) {
+            Preferences.setInt(FINGERPRINT_KEY_PREFIX + motor.getDeviceId(), fingerprint);
         }
     }
+
+    /**
+     * Sets a Spark MAX's status frame periods. These aren't saved to flash, so they have to be set on every boot.
+     * <p>
+     * Status 3 (analog sensor), 4 (alternate encoder) and 6 (duty cycle encoder velocity) are never read by the
+     * library. Status 5 (duty cycle encoder position) is only read when the absolute encoder is used. Unless they are
+     * disabled, these frames are given back their default periods in case an earlier call disabled them.
+     *
+     * @param motor                   the motor to configure
+     * @param generalPeriodMS         period of Status 0, with the applied output and faults
+     * @param velocityPeriodMS        period of Status 1, with the motor velocity
+     * @param positionPeriodMS        period of Status 2, with the motor position
+     * @param absoluteEncoderPeriodMS period of Status 5, or 0 if the absolute encoder isn't used
+     * @param unusedFramesDisabled    whether to slow the unused frames to the longest period, rather than give them
+     *                                back their default periods
+     * @see StatusFrameProfile
+     */
+    public static void configureStatusFrames(CANSparkMax motor, int generalPeriodMS, int velocityPeriodMS,
+                                             int positionPeriodMS, int absoluteEncoderPeriodMS,
+                                             boolean unusedFramesDisabled) {
+        checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus0, generalPeriodMS),
+                "Failed to set periodic status frame 0 rate");
+        checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus1, velocityPeriodMS),
+                "Failed to set periodic status frame 1 rate");
+        checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus2, positionPeriodMS),
+                "Failed to set periodic status frame 2 rate");
+
+        int unusedPeriodMS = StatusFrameProfile.REV_MAX_PERIOD_MS;
+        int status5PeriodMS = absoluteEncoderPeriodMS;
+        if (absoluteEncoderPeriodMS <= 0) {
+            status5PeriodMS = unusedFramesDisabled ? unusedPeriodMS : STATUS_5_DEFAULT_PERIOD_MS;
+        }
+        checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus5, status5PeriodMS),
+                "Failed to set periodic status frame 5 rate");
+
+        checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus3,
+                unusedFramesDisabled ? unusedPeriodMS : STATUS_3_DEFAULT_PERIOD_MS),
+                "Failed to set periodic status frame 3 rate");
+        checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus4,
+                unusedFramesDisabled ? unusedPeriodMS : STATUS_4_DEFAULT_PERIOD_MS),
+                "Failed to set periodic status frame 4 rate");
+        checkNeoError(motor.setPeriodicFramePeriod(CANSparkMaxLowLevel.PeriodicFrame.kStatus6,
+                unusedFramesDisabled ? unusedPeriodMS : STATUS_6_DEFAULT_PERIOD_MS),
+                "Failed to set periodic status frame 6 rate");
+    }
 }
@@ -0,0 +1,64 @@
+package com.swervedrivespecialties.swervelib.rev;
+
+import com.swervedrivespecialties.swervelib.AbsoluteEncoder;
+import com.swervedrivespecialties.swervelib.AbsoluteEncoderConfiguration;
+
+import java.util.Objects;
+
+/**
+ * Configuration for a duty cycle absolute encoder, such as the REV Through Bore Encoder, wired directly to the steer
+ * motor's Spark MAX.
+ * <p>
+ * The encoder is read by the Spark MAX itself, so it can only be created by
+ * {@link NeoSteerControllerFactoryBuilder}, which closes the steer position loop on it.
+ */
+public class SparkMaxAbsoluteEncoderConfiguration implements AbsoluteEncoderConfiguration<SparkMaxAbsoluteEncoderConfiguration> {
+    /**
+     * Offset, in radians, added to the encoder's position so zero is the wheel facing straight forward.
+     */
+    private final double offset;
+    private final boolean inverted;
+
+    public SparkMaxAbsoluteEncoderConfiguration(double offset, boolean inverted) {
+        this.offset = offset;
+        this.inverted = inverted;
+    }
+
+    public SparkMaxAbsoluteEncoderConfiguration(double offset) {
+        this(offset, false);
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+
+    public boolean isInverted() {
+        return inverted;
+    }
+
+    @Override
+    public AbsoluteEncoder create() {
+        throw new RuntimeException("A Spark MAX absolute encoder can only be used with a NEO steer motor!");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SparkMaxAbsoluteEncoderConfiguration that = (SparkMaxAbsoluteEncoderConfiguration) o;
+        return Double.compare(that.getOffset(), getOffset()) == 0 && that.isInverted() == isInverted();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getOffset(), isInverted());
+    }
+
+    @Override
+    public String toString() {
+        return "SparkMaxAbsoluteEncoderConfiguration{" +
+                "offset=" + offset +
+                ", inverted=" + inverted +
+                '}';
+    }
+}
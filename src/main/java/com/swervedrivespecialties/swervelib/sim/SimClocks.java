@@ -0,0 +1,12 @@
+package com.swervedrivespecialties.swervelib.sim;
+
+final class SimClocks {
+    static final double DEFAULT_STEP_PERIOD = 0.001;
+
+    private SimClocks() {
+    }
+
+    static double systemTime() {
+        return System.nanoTime() / 1.0e9;
+    }
+}
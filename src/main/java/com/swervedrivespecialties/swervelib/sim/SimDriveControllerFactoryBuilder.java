@@ -0,0 +1,148 @@
+package com.swervedrivespecialties.swervelib.sim;
+
+import com.swervedrivespecialties.swervelib.DriveControllerFactory;
+import com.swervedrivespecialties.swervelib.DriveIO;
+import com.swervedrivespecialties.swervelib.IODriveController;
+import com.swervedrivespecialties.swervelib.MechanicalConfiguration;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Builds drive controllers that simulate the motor, gearbox and wheel in pure Java instead of talking to hardware.
+ * <p>
+ * The drive configuration (the motor's CAN ID on real hardware) and the CAN bus are ignored, so these factories can be
+ * swapped for the vendor ones without changing how modules are created.
+ */
+public final class SimDriveControllerFactoryBuilder {
+    private DCMotor motor = DCMotor.getFalcon500(1);
+    private double momentOfInertia = 0.025;
+    private double nominalVoltage = 12.0;
+    private double proportionalConstant = 0.0;
+    private double integralConstant = 0.0;
+    private double derivativeConstant = 0.0;
+    private double stepPeriod = SimClocks.DEFAULT_STEP_PERIOD;
+    private DoubleSupplier clock = SimClocks::systemTime;
+
+    /**
+     * Sets the motor driving the wheel. Defaults to a single Falcon 500.
+     */
+    public SimDriveControllerFactoryBuilder withMotor(DCMotor motor) {
+        this.motor = motor;
+        return this;
+    }
+
+    /**
+     * Sets the moment of inertia, in kg m^2, that the wheel has to accelerate. This should include the module's share
+     * of the robot's mass. Defaults to 0.025 kg m^2.
+     */
+    public SimDriveControllerFactoryBuilder withMomentOfInertia(double momentOfInertia) {
+        this.momentOfInertia = momentOfInertia;
+        return this;
+    }
+
+    public SimDriveControllerFactoryBuilder withVoltageCompensation(double nominalVoltage) {
+        this.nominalVoltage = nominalVoltage;
+        return this;
+    }
+
+    /**
+     * Sets the gains of the simulated on-controller velocity loop, in volts per m/s of error, volts per meter of
+     * accumulated error and volts per m/s^2. Defaults to no gains, so only the feedforward is applied.
+     */
+    public SimDriveControllerFactoryBuilder withPidConstants(double proportional, double integral, double derivative) {
+        this.proportionalConstant = proportional;
+        this.integralConstant = integral;
+        this.derivativeConstant = derivative;
+        return this;
+    }
+
+    /**
+     * Sets the fixed integration step, in seconds. Defaults to 1 ms.
+     */
+    public SimDriveControllerFactoryBuilder withStepPeriod(double stepPeriod) {
+        this.stepPeriod = stepPeriod;
+        return this;
+    }
+
+    /**
+     * Sets the clock, in seconds, the simulation advances with. Supplying a manually advanced clock makes the
+     * simulation fully deterministic. Defaults to the JVM's monotonic clock.
+     */
+    public SimDriveControllerFactoryBuilder withClock(DoubleSupplier clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public DriveControllerFactory<ControllerImplementation, Integer> build() {
+        return new FactoryImplementation();
+    }
+
+    private class FactoryImplementation implements DriveControllerFactory<ControllerImplementation, Integer> {
+        @Override
+        public ControllerImplementation create(Integer id, String canbus, MechanicalConfiguration mechConfiguration) {
+            SimMotor simMotor = new SimMotor(
+                    motor,
+                    1.0 / mechConfiguration.getDriveReduction(),
+                    momentOfInertia,
+                    nominalVoltage,
+                    stepPeriod,
+                    clock
+            );
+
+            return new ControllerImplementation(simMotor, mechConfiguration.getWheelDiameter() / 2.0,
+                    proportionalConstant, integralConstant, derivativeConstant);
+        }
+    }
+
+    public static final class ControllerImplementation extends IODriveController {
+        private ControllerImplementation(SimMotor motor, double wheelRadius, double proportional, double integral,
+                                         double derivative) {
+            super(new IOImplementation(motor, wheelRadius, proportional, integral, derivative));
+        }
+    }
+
+    private static final class IOImplementation implements DriveIO {
+        private final SimMotor motor;
+        private final double wheelRadius;
+        private final double proportional;
+        private final double integral;
+        private final double derivative;
+
+        private IOImplementation(SimMotor motor, double wheelRadius, double proportional, double integral,
+                                 double derivative) {
+            this.motor = motor;
+            this.wheelRadius = wheelRadius;
+            // The motor's loop works in radians of wheel rotation
+            this.proportional = proportional * wheelRadius;
+            this.integral = integral * wheelRadius;
+            this.derivative = derivative * wheelRadius;
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return motor;
+        }
+
+        @Override
+        public void setVoltage(double voltage) {
+            motor.setVoltage(voltage);
+        }
+
+        @Override
+        public void setVelocity(double metersPerSecond, double feedforwardVolts) {
+            motor.setVelocityTarget(metersPerSecond / wheelRadius, feedforwardVolts, proportional, integral, derivative);
+        }
+
+        @Override
+        public double getPositionMeters() {
+            return motor.getPosition() * wheelRadius;
+        }
+
+        @Override
+        public double getVelocityMetersPerSecond() {
+            return motor.getVelocity() * wheelRadius;
+        }
+    }
+}
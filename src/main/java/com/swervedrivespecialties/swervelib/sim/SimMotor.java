@@ -0,0 +1,201 @@
+package com.swervedrivespecialties.swervelib.sim;
+
+import edu.wpi.first.math.system.LinearSystem;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.math.system.plant.LinearSystemId;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A simulated motor and gearbox driving an inertial load, with optional on-controller position and velocity loops.
+ * <p>
+ * The dynamics come from {@link LinearSystemId#createDCMotorSystem(DCMotor, double, double)} and are integrated with a
+ * fixed-step fourth order Runge-Kutta integrator. The motor catches up to the clock lazily, whenever it is read or
+ * commanded, so it needs no periodic update call. The closed loops run once per integration step, like the
+ * loops on a real motor controller.
+ * <p>
+ * Positions and velocities are of the gearbox output, in radians and radians per second.
+ */
+class SimMotor implements MotorController {
+    private enum ControlMode {
+        VOLTAGE,
+        POSITION,
+        VELOCITY
+    }
+
+    private final double velocityGain;
+    private final double voltageGain;
+    private final double nominalVoltage;
+    private final double stepPeriod;
+    private final DoubleSupplier clock;
+
+    private double lastTime;
+    private double position = 0.0;
+    private double velocity = 0.0;
+
+    private double appliedVoltage = 0.0;
+    private boolean inverted = false;
+
+    private ControlMode controlMode = ControlMode.VOLTAGE;
+    private double target = 0.0;
+    private double feedforward = 0.0;
+    private double proportional = 0.0;
+    private double integral = 0.0;
+    private double derivative = 0.0;
+    private double errorSum = 0.0;
+    private double lastVelocity = 0.0;
+
+    SimMotor(DCMotor motor, double gearing, double momentOfInertia, double nominalVoltage, double stepPeriod,
+             DoubleSupplier clock) {
+        LinearSystem<?, ?, ?> plant = LinearSystemId.createDCMotorSystem(motor, momentOfInertia, gearing);
+        this.velocityGain = plant.getA(1, 1);
+        this.voltageGain = plant.getB(1, 0);
+        this.nominalVoltage = nominalVoltage;
+        this.stepPeriod = stepPeriod;
+        this.clock = clock;
+        this.lastTime = clock.getAsDouble();
+    }
+
+    /**
+     * Advances the simulation to the current time in whole integration steps.
+     */
+    void update() {
+        double now = clock.getAsDouble();
+        while (now - lastTime >= stepPeriod) {
+            step(stepPeriod);
+            lastTime += stepPeriod;
+        }
+    }
+
+    private void step(double dt) {
+        if (controlMode == ControlMode.POSITION) {
+            double error = target - position;
+            errorSum += error * dt;
+            // Derivative on measurement so a new target doesn't kick the output
+            appliedVoltage = clampVoltage(proportional * error + integral * errorSum - derivative * velocity);
+        } else if (controlMode == ControlMode.VELOCITY) {
+            double error = target - velocity;
+            errorSum += error * dt;
+            appliedVoltage = clampVoltage(feedforward + proportional * error + integral * errorSum
+                    - derivative * (velocity - lastVelocity) / dt);
+        }
+        lastVelocity = velocity;
+
+        // The applied voltage is constant over the step, so only velocity needs the RK4 stages
+        double k1 = acceleration(velocity);
+        double k2 = acceleration(velocity + 0.5 * dt * k1);
+        double k3 = acceleration(velocity + 0.5 * dt * k2);
+        double k4 = acceleration(velocity + dt * k3);
+
+        double nextVelocity = velocity + dt / 6.0 * (k1 + 2.0 * k2 + 2.0 * k3 + k4);
+        position += dt / 6.0 * (velocity + 2.0 * (velocity + 0.5 * dt * k1) + 2.0 * (velocity + 0.5 * dt * k2)
+                + (velocity + dt * k3));
+        velocity = nextVelocity;
+    }
+
+    private double acceleration(double velocity) {
+        return velocityGain * velocity + voltageGain * appliedVoltage;
+    }
+
+    private double clampVoltage(double voltage) {
+        return Math.max(-nominalVoltage, Math.min(nominalVoltage, voltage));
+    }
+
+    /**
+     * Closes a position loop on the motor, running every integration step.
+     *
+     * @param position     the target output position in radians
+     * @param proportional volts per radian of error
+     * @param integral     volts per radian-second of accumulated error
+     * @param derivative   volts per radian per second of output velocity
+     */
+    void setPositionTarget(double position, double proportional, double integral, double derivative) {
+        setTarget(ControlMode.POSITION, position, 0.0, proportional, integral, derivative);
+    }
+
+    /**
+     * Closes a velocity loop on the motor, running every integration step.
+     *
+     * @param velocity     the target output velocity in radians per second
+     * @param feedforward  volts added to the loop's output
+     * @param proportional volts per radian per second of error
+     * @param integral     volts per radian of accumulated error
+     * @param derivative   volts per radian per second squared of output acceleration
+     */
+    void setVelocityTarget(double velocity, double feedforward, double proportional, double integral,
+                           double derivative) {
+        setTarget(ControlMode.VELOCITY, velocity, feedforward, proportional, integral, derivative);
+    }
+
+    private void setTarget(ControlMode controlMode, double target, double feedforward, double proportional,
+                           double integral, double derivative) {
+        update();
+        if (this.controlMode != controlMode) {
+            errorSum = 0.0;
+        }
+        this.controlMode = controlMode;
+        this.target = target;
+        this.feedforward = feedforward;
+        this.proportional = proportional;
+        this.integral = integral;
+        this.derivative = derivative;
+    }
+
+    double getPosition() {
+        update();
+        return position;
+    }
+
+    double getVelocity() {
+        update();
+        return velocity;
+    }
+
+    double getAppliedVoltage() {
+        update();
+        return appliedVoltage;
+    }
+
+    double getNominalVoltage() {
+        return nominalVoltage;
+    }
+
+    @Override
+    public void setVoltage(double outputVolts) {
+        update();
+        controlMode = ControlMode.VOLTAGE;
+        appliedVoltage = clampVoltage(outputVolts);
+    }
+
+    @Override
+    public void set(double speed) {
+        setVoltage(speed * nominalVoltage);
+    }
+
+    @Override
+    public double get() {
+        return getAppliedVoltage() / nominalVoltage;
+    }
+
+    @Override
+    public void setInverted(boolean isInverted) {
+        // Inverting a real motor flips both its output and its sensor, which cancel out for the simulated load
+        this.inverted = isInverted;
+    }
+
+    @Override
+    public boolean getInverted() {
+        return inverted;
+    }
+
+    @Override
+    public void disable() {
+        setVoltage(0.0);
+    }
+
+    @Override
+    public void stopMotor() {
+        setVoltage(0.0);
+    }
+}
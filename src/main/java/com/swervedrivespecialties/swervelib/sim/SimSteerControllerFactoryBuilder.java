@@ -0,0 +1,156 @@
+package com.swervedrivespecialties.swervelib.sim;
+
+import com.swervedrivespecialties.swervelib.*;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Builds steer controllers that simulate the motor, gearbox and steering pulley in pure Java instead of talking to
+ * hardware. The position loop runs on the simulated motor controller every integration step.
+ * <p>
+ * The motor port and CAN bus are ignored, and the absolute encoder configuration is never created; the simulated
+ * module's absolute encoder reports the simulated steer angle directly.
+ */
+public final class SimSteerControllerFactoryBuilder {
+    private DCMotor motor = DCMotor.getFalcon500(1);
+    private double momentOfInertia = 0.004;
+    private double nominalVoltage = 12.0;
+    private double stepPeriod = SimClocks.DEFAULT_STEP_PERIOD;
+    private DoubleSupplier clock = SimClocks::systemTime;
+
+    // PID configuration, in volts per radian of steer angle
+    private double proportionalConstant = 10.0;
+    private double integralConstant = 0.0;
+    private double derivativeConstant = 0.2;
+
+    /**
+     * Sets the motor turning the module. Defaults to a single Falcon 500.
+     */
+    public SimSteerControllerFactoryBuilder withMotor(DCMotor motor) {
+        this.motor = motor;
+        return this;
+    }
+
+    /**
+     * Sets the moment of inertia, in kg m^2, of everything the steer motor turns. Defaults to 0.004 kg m^2.
+     */
+    public SimSteerControllerFactoryBuilder withMomentOfInertia(double momentOfInertia) {
+        this.momentOfInertia = momentOfInertia;
+        return this;
+    }
+
+    public SimSteerControllerFactoryBuilder withVoltageCompensation(double nominalVoltage) {
+        this.nominalVoltage = nominalVoltage;
+        return this;
+    }
+
+    /**
+     * Sets the gains of the simulated position loop. Unlike the vendor controllers these are in volts per radian of
+     * steer angle error, so they do not depend on the motor's sensor units.
+     */
+    public SimSteerControllerFactoryBuilder withPidConstants(double proportional, double integral, double derivative) {
+        this.proportionalConstant = proportional;
+        this.integralConstant = integral;
+        this.derivativeConstant = derivative;
+        return this;
+    }
+
+    /**
+     * Sets the fixed integration step, in seconds. Defaults to 1 ms.
+     */
+    public SimSteerControllerFactoryBuilder withStepPeriod(double stepPeriod) {
+        this.stepPeriod = stepPeriod;
+        return this;
+    }
+
+    /**
+     * Sets the clock, in seconds, the simulation advances with. Supplying a manually advanced clock makes the
+     * simulation fully deterministic. Defaults to the JVM's monotonic clock.
+     */
+    public SimSteerControllerFactoryBuilder withClock(DoubleSupplier clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    public SteerControllerFactory<ControllerImplementation, SteerConfiguration> build() {
+        return new FactoryImplementation();
+    }
+
+    private class FactoryImplementation implements SteerControllerFactory<ControllerImplementation, SteerConfiguration> {
+        @Override
+        public ControllerImplementation create(SteerConfiguration steerConfiguration, String canbus,
+                                               MechanicalConfiguration mechConfiguration) {
+            SimMotor simMotor = new SimMotor(
+                    motor,
+                    1.0 / mechConfiguration.getSteerReduction(),
+                    momentOfInertia,
+                    nominalVoltage,
+                    stepPeriod,
+                    clock
+            );
+
+            return new ControllerImplementation(simMotor, proportionalConstant, integralConstant, derivativeConstant);
+        }
+    }
+
+    public static final class ControllerImplementation extends IOSteerController {
+        private ControllerImplementation(SimMotor motor, double proportional, double integral, double derivative) {
+            this(new IOImplementation(motor, proportional, integral, derivative));
+        }
+
+        private ControllerImplementation(IOImplementation io) {
+            super(io, io::getAngle);
+        }
+    }
+
+    private static final class IOImplementation implements SteerIO {
+        private final SimMotor motor;
+        private final double proportional;
+        private final double integral;
+        private final double derivative;
+
+        private IOImplementation(SimMotor motor, double proportional, double integral, double derivative) {
+            this.motor = motor;
+            this.proportional = proportional;
+            this.integral = integral;
+            this.derivative = derivative;
+        }
+
+        private double getAngle() {
+            double angle = motor.getPosition() % (2.0 * Math.PI);
+            if (angle < 0.0) {
+                angle += 2.0 * Math.PI;
+            }
+
+            return angle;
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return motor;
+        }
+
+        @Override
+        public double getPositionRadians() {
+            return motor.getPosition();
+        }
+
+        @Override
+        public double getVelocityRadiansPerSecond() {
+            return motor.getVelocity();
+        }
+
+        @Override
+        public void setPosition(double positionRadians) {
+            motor.setPositionTarget(positionRadians, proportional, integral, derivative);
+        }
+
+        @Override
+        public boolean hasAbsoluteFeedback() {
+            // The simulated position is exact, so there is nothing to correct it with
+            return true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.swervedrivespecialties.swervelib;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DoubleRingBufferTest {
+    @Test
+    void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(8, new DoubleRingBuffer(1, 5).getCapacity());
+        assertEquals(8, new DoubleRingBuffer(1, 8).getCapacity());
+    }
+
+    @Test
+    void recordsComeOutInOrder() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(2, 4);
+        double[] record = new double[2];
+
+        for (int i = 0; i < 3; i++) {
+            record[0] = i;
+            record[1] = -i;
+            assertTrue(buffer.offer(record));
+        }
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(buffer.poll(record));
+            assertArrayEquals(new double[]{i, -i}, record, 0.0);
+        }
+        assertFalse(buffer.poll(record));
+    }
+
+    @Test
+    void fullBufferDropsNewRecords() {
+        DoubleRingBuffer buffer = new DoubleRingBuffer(1, 2);
+        double[] record = new double[1];
+
+        record[0] = 1.0;
+        assertTrue(buffer.offer(record));
+        record[0] = 2.0;
+        assertTrue(buffer.offer(record));
+        record[0] = 3.0;
+        assertFalse(buffer.offer(record));
+        assertEquals(1, buffer.getDroppedRecords());
+
+        assertTrue(buffer.poll(record));
+        assertEquals(1.0, record[0], 0.0);
+        assertEquals(1, buffer.size());
+    }
+}
@@ -0,0 +1,45 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DriveCycleTest {
+    @Test
+    void everyModuleIsReadBeforeAnyIsWritten() {
+        List<String> events = new ArrayList<>();
+        FakeSwerveModule[] modules = FakeSwerveModule.create(events);
+        DriveCycle cycle = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0).createDriveCycle();
+        events.clear();
+
+        cycle.run(new ChassisSpeeds(1.0, 0.0, 0.0));
+
+        int lastRead = events.lastIndexOf("read");
+        int firstWrite = events.indexOf("write");
+        assertEquals(modules.length, events.size() - firstWrite);
+        assertEquals(firstWrite - 1, lastRead);
+        for (DriveCycle.Phase phase : DriveCycle.Phase.values()) {
+            assertEquals(1, cycle.getHistogram(phase).getCount());
+        }
+    }
+
+    @Test
+    void modulesFacingBackwardsAreReversedFromTheSnapshot() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        for (FakeSwerveModule module : modules) {
+            module.steerAngle = Math.PI;
+        }
+        DriveCycle cycle = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0).createDriveCycle();
+
+        cycle.run(new ChassisSpeeds(2.0, 0.0, 0.0));
+
+        for (FakeSwerveModule module : modules) {
+            assertEquals(-6.0, module.voltage, 1e-9);
+            assertEquals(Math.PI, module.angle, 1e-9);
+        }
+    }
+}
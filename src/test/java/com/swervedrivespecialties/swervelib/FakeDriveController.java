@@ -0,0 +1,30 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+/**
+ * A drive controller that remembers the last voltage it was given.
+ */
+final class FakeDriveController implements DriveController {
+    double voltage = Double.NaN;
+
+    @Override
+    public MotorController getDriveMotor() {
+        return null;
+    }
+
+    @Override
+    public void setReferenceVoltage(double voltage) {
+        this.voltage = voltage;
+    }
+
+    @Override
+    public double getStateVelocity() {
+        return 0.0;
+    }
+
+    @Override
+    public double getStateDistance() {
+        return 0.0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+/**
+ * A steer controller whose angle is set by the test, which remembers the last reference it was given and counts
+ * how often its angle is read.
+ */
+final class FakeSteerController implements SteerController {
+    double angle = 0.0;
+    double reference = Double.NaN;
+    int reads = 0;
+
+    @Override
+    public MotorController getSteerMotor() {
+        return null;
+    }
+
+    @Override
+    public AbsoluteEncoder getSteerEncoder() {
+        return () -> angle;
+    }
+
+    @Override
+    public double getReferenceAngle() {
+        return reference;
+    }
+
+    @Override
+    public void setReferenceAngle(double referenceAngleRadians) {
+        this.reference = referenceAngleRadians;
+    }
+
+    @Override
+    public double getStateAngle() {
+        reads++;
+        return angle;
+    }
+}
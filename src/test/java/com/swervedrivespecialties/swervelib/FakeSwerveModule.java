@@ -0,0 +1,118 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+
+import java.util.List;
+
+/**
+ * A module whose readings are set by the test, which remembers the last command it was given.
+ */
+final class FakeSwerveModule implements SwerveModule {
+    /**
+     * Four modules on the corners of a 0.6 m square.
+     */
+    static final Translation2d[] LOCATIONS = {
+            new Translation2d(0.3, 0.3),
+            new Translation2d(0.3, -0.3),
+            new Translation2d(-0.3, 0.3),
+            new Translation2d(-0.3, -0.3)
+    };
+
+    double driveVelocity = 0.0;
+    double driveDistance = 0.0;
+    double steerAngle = 0.0;
+
+    double voltage = Double.NaN;
+    double velocity = Double.NaN;
+    double angle = Double.NaN;
+
+    List<StatusFrameTarget> statusFrameTargets = List.of();
+
+    // Records "read" for every refresh and "write" for every command, if not null
+    private final List<String> events;
+
+    FakeSwerveModule() {
+        this(null);
+    }
+
+    FakeSwerveModule(List<String> events) {
+        this.events = events;
+    }
+
+    /**
+     * Creates a module for each of {@link #LOCATIONS}.
+     */
+    static FakeSwerveModule[] create(List<String> events) {
+        FakeSwerveModule[] modules = new FakeSwerveModule[LOCATIONS.length];
+        for (int i = 0; i < modules.length; i++) {
+            modules[i] = new FakeSwerveModule(events);
+        }
+        return modules;
+    }
+
+    static FakeSwerveModule[] create() {
+        return create(null);
+    }
+
+    @Override
+    public MotorController getDriveMotor() {
+        return null;
+    }
+
+    @Override
+    public MotorController getSteerMotor() {
+        return null;
+    }
+
+    @Override
+    public AbsoluteEncoder getSteerEncoder() {
+        return () -> steerAngle;
+    }
+
+    @Override
+    public double getDriveVelocity() {
+        return driveVelocity;
+    }
+
+    @Override
+    public double getDriveDistance() {
+        return driveDistance;
+    }
+
+    @Override
+    public double getSteerAngle() {
+        return steerAngle;
+    }
+
+    @Override
+    public void set(double driveVoltage, double steerAngle) {
+        if (events != null) {
+            events.add("write");
+        }
+        this.voltage = driveVoltage;
+        this.angle = steerAngle;
+    }
+
+    @Override
+    public void setVelocity(double driveVelocity, double feedforwardVolts, double steerAngle) {
+        if (events != null) {
+            events.add("write");
+        }
+        this.velocity = driveVelocity;
+        this.voltage = feedforwardVolts;
+        this.angle = steerAngle;
+    }
+
+    @Override
+    public List<StatusFrameTarget> getStatusFrameTargets() {
+        return statusFrameTargets;
+    }
+
+    @Override
+    public void refresh() {
+        if (events != null) {
+            events.add("read");
+        }
+    }
+}
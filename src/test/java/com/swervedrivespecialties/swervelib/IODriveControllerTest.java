@@ -0,0 +1,68 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IODriveControllerTest {
+    @Test
+    void onDemandGettersReadOnlyTheSensorTheyReturn() {
+        FakeDriveIO io = new FakeDriveIO();
+        IODriveController controller = new IODriveController(io);
+
+        io.position = 2.0;
+        io.velocity = 3.0;
+
+        assertEquals(3.0, controller.getStateVelocity(), 1e-9);
+        assertEquals(0, io.positionReads);
+        assertEquals(1, io.velocityReads);
+
+        assertEquals(2.0, controller.getStateDistance(), 1e-9);
+        assertEquals(1, io.positionReads);
+        assertEquals(1, io.velocityReads);
+    }
+
+    @Test
+    void refreshReadsEverySensorOnce() {
+        FakeDriveIO io = new FakeDriveIO();
+        IODriveController controller = new IODriveController(io);
+
+        io.position = 2.0;
+        controller.refresh();
+        io.position = 4.0;
+
+        assertEquals(2.0, controller.getStateDistance(), 1e-9);
+        controller.getStateVelocity();
+        assertEquals(1, io.positionReads);
+        assertEquals(1, io.velocityReads);
+    }
+
+    private static class FakeDriveIO implements DriveIO {
+        private double position = 0.0;
+        private double velocity = 0.0;
+        private int positionReads = 0;
+        private int velocityReads = 0;
+
+        @Override
+        public double getPositionMeters() {
+            positionReads++;
+            return position;
+        }
+
+        @Override
+        public double getVelocityMetersPerSecond() {
+            velocityReads++;
+            return velocity;
+        }
+
+        @Override
+        public void setVoltage(double volts) {
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IOSteerControllerTest {
+    @Test
+    void targetsAreUnwrappedToTheNearestRevolution() {
+        FakeSteerIO io = new FakeSteerIO();
+        io.position = 4.0 * Math.PI + 0.1;
+        IOSteerController controller = new IOSteerController(io, () -> 0.1);
+
+        controller.setReferenceAngle(2.0 * Math.PI - 0.1);
+
+        assertEquals(4.0 * Math.PI - 0.1, io.target, 1e-9);
+        assertEquals(0.1, controller.getStateAngle(), 1e-9);
+    }
+
+    @Test
+    void encoderIsResetFromTheAbsoluteEncoderWhileStill() {
+        FakeSteerIO io = new FakeSteerIO();
+        io.position = 0.5;
+        IOSteerController controller = new IOSteerController(io, () -> 0.25);
+
+        for (int i = 0; i < 500; i++) {
+            controller.setReferenceAngle(1.0);
+        }
+
+        assertEquals(0.25, io.reset, 1e-9);
+        assertEquals(1, io.resets);
+    }
+
+    @Test
+    void refreshLatchesInputs() {
+        FakeSteerIO io = new FakeSteerIO();
+        IOSteerController controller = new IOSteerController(io, () -> 0.0);
+
+        io.position = 1.0;
+        controller.refresh();
+        io.position = 2.0;
+
+        assertEquals(1.0, controller.getStateAngle(), 1e-9);
+        controller.setReferenceAngle(1.5);
+        assertEquals(1, io.positionReads);
+        assertEquals(1, io.velocityReads);
+    }
+
+    @Test
+    void onDemandGettersReadOnlyTheSensorsTheyNeed() {
+        FakeSteerIO io = new FakeSteerIO();
+        IOSteerController controller = new IOSteerController(io, () -> 0.0);
+
+        controller.getStateAngle();
+        assertEquals(1, io.positionReads);
+        assertEquals(0, io.velocityReads);
+
+        // Velocity is only needed to decide whether to reset the motor's encoder
+        controller.setReferenceAngle(1.0);
+        assertEquals(2, io.positionReads);
+        assertEquals(1, io.velocityReads);
+
+        io.absoluteFeedback = true;
+        controller.setReferenceAngle(1.0);
+        assertEquals(3, io.positionReads);
+        assertEquals(1, io.velocityReads);
+    }
+
+    @Test
+    void anAbsoluteFeedbackSensorIsRetunedWithTheMotor() {
+        FakeSteerIO io = new FakeSteerIO();
+        StatusFrameTarget motorTarget = profile -> { };
+        StatusFrameTarget encoderTarget = profile -> { };
+        io.statusFrameTarget = motorTarget;
+        AbsoluteEncoder encoder = new AbsoluteEncoder() {
+            @Override
+            public double getAbsoluteAngle() {
+                return 0.0;
+            }
+
+            @Override
+            public StatusFrameTarget getStatusFrameTarget() {
+                return encoderTarget;
+            }
+        };
+        IOSteerController controller = new IOSteerController(io, encoder);
+
+        assertEquals(List.of(motorTarget, encoderTarget), controller.getStatusFrameTargets());
+        io.absoluteFeedback = true;
+        assertEquals(List.of(motorTarget), controller.getStatusFrameTargets());
+    }
+
+    private static class FakeSteerIO implements SteerIO {
+        private double position = 0.0;
+        private double target = Double.NaN;
+        private double reset = Double.NaN;
+        private int resets = 0;
+        private int positionReads = 0;
+        private int velocityReads = 0;
+        private boolean absoluteFeedback = false;
+        private StatusFrameTarget statusFrameTarget = null;
+
+        @Override
+        public double getPositionRadians() {
+            positionReads++;
+            return position;
+        }
+
+        @Override
+        public double getVelocityRadiansPerSecond() {
+            velocityReads++;
+            return 0.0;
+        }
+
+        @Override
+        public void setPosition(double positionRadians) {
+            target = positionRadians;
+        }
+
+        @Override
+        public void resetPosition(double positionRadians) {
+            reset = positionRadians;
+            resets++;
+        }
+
+        @Override
+        public boolean hasAbsoluteFeedback() {
+            return absoluteFeedback;
+        }
+
+        @Override
+        public StatusFrameTarget getStatusFrameTarget() {
+            return statusFrameTarget;
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.LatencyDiagnostics.CallSite;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InstrumentedControllerTest {
+    private static final long READ_MILLIS = 2;
+
+    @Test
+    void steerRefreshIsTimed() {
+        SteerController controller = InstrumentedSteerController.wrap(
+                (SteerConfiguration configuration, String canbus, MechanicalConfiguration mechConfiguration) ->
+                        new IOSteerController(new SlowSteerIO(), () -> 0.0)
+        ).create(new SteerConfiguration(7, null), "canivore", SdsModuleConfigurations.MK4_L2);
+
+        controller.refresh();
+
+        LatencyDiagnostics diagnostics = controller.getDiagnostics();
+        assertEquals("Steer 7 on canivore", diagnostics.getName());
+        LatencyHistogram refresh = diagnostics.getHistogram(CallSite.REFRESH);
+        assertEquals(1, refresh.getCount());
+        // A refresh reads both sensors
+        assertTrue(refresh.getMax() >= 2 * READ_MILLIS * 1e-3);
+        assertEquals(0, diagnostics.getHistogram(CallSite.GET_STATE_ANGLE).getCount());
+    }
+
+    @Test
+    void driveRefreshIsTimed() {
+        DriveController controller = InstrumentedDriveController.wrap(
+                (Integer id, String canbus, MechanicalConfiguration mechConfiguration) ->
+                        new IODriveController(new SlowDriveIO())
+        ).create(3, "", SdsModuleConfigurations.MK4_L2);
+
+        controller.refresh();
+
+        LatencyDiagnostics diagnostics = controller.getDiagnostics();
+        assertEquals("Drive 3", diagnostics.getName());
+        LatencyHistogram refresh = diagnostics.getHistogram(CallSite.REFRESH);
+        assertEquals(1, refresh.getCount());
+        assertTrue(refresh.getMax() >= 2 * READ_MILLIS * 1e-3);
+    }
+
+    private static void read() {
+        try {
+            Thread.sleep(READ_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class SlowSteerIO implements SteerIO {
+        @Override
+        public double getPositionRadians() {
+            read();
+            return 0.0;
+        }
+
+        @Override
+        public double getVelocityRadiansPerSecond() {
+            read();
+            return 0.0;
+        }
+
+        @Override
+        public void setPosition(double positionRadians) {
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+
+    private static class SlowDriveIO implements DriveIO {
+        @Override
+        public double getPositionMeters() {
+            read();
+            return 0.0;
+        }
+
+        @Override
+        public double getVelocityMetersPerSecond() {
+            read();
+            return 0.0;
+        }
+
+        @Override
+        public void setVoltage(double volts) {
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+}
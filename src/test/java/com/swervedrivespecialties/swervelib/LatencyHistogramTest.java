@@ -0,0 +1,34 @@
+package com.swervedrivespecialties.swervelib;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+    @Test
+    void percentilesAreWithinAFactorOfTwo() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 99; i++) {
+            histogram.record(100_000L);
+        }
+        histogram.record(5_000_000L);
+
+        assertEquals(100, histogram.getCount());
+        assertTrue(histogram.getP50() >= 100e-6 && histogram.getP50() <= 200e-6);
+        assertTrue(histogram.getP99() >= 100e-6 && histogram.getP99() <= 200e-6);
+        assertEquals(5e-3, histogram.getPercentile(1.0), 1e-12);
+        assertEquals(5e-3, histogram.getMax(), 1e-12);
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000L);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0.0, histogram.getP99());
+        assertEquals(0.0, histogram.getMax());
+    }
+}
@@ -0,0 +1,110 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ModuleLoggerTest {
+    @Test
+    void logReadsBackWhatWasLogged() throws IOException {
+        Path directory = Files.createTempDirectory("module-logger");
+        ModuleLogger logger = new ModuleLogger(directory, 4 * ModuleLogger.RECORD_SIZE, 2, 1 << 20, 2)
+                .withClock(() -> 0.0);
+        int first = logger.registerDevice("Module");
+        int second = logger.registerDevice("Module");
+        assertEquals(List.of("Module 0", "Module 1"), logger.getDevices());
+
+        logger.start();
+        logger.log(first, RecordType.MODULE_SET_VELOCITY, 2.5, 1.25, 0.5);
+        logger.log(second, RecordType.STEER_ANGLE, 0.75, 0.0, 0.0);
+        logger.close();
+
+        ModuleLog log = ModuleLog.read(listFiles(directory).toArray(new Path[0]));
+        assertEquals(List.of("Module 0", "Module 1"), log.getDevices());
+        assertEquals(2, log.getRecordCount());
+        assertEquals(first, log.getDevice(0));
+        assertEquals(RecordType.MODULE_SET_VELOCITY, log.getType(0));
+        assertEquals(2.5, log.getValue(0, 0));
+        assertEquals(1.25, log.getValue(0, 1));
+        assertEquals(0.5, log.getValue(0, 2));
+        assertEquals(second, log.getDevice(1));
+        assertEquals(RecordType.STEER_ANGLE, log.getType(1));
+        assertEquals(0.75, log.getValue(1, 0));
+    }
+
+    @Test
+    void oldFilesAreDeletedWhenRotating() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("module-logger");
+        ModuleLogger logger = createRotatingLogger(directory);
+        logger.start();
+        logRecords(logger, 0, 10);
+        logger.close();
+
+        List<Path> files = listFiles(directory);
+        assertEquals(3, files.size());
+        // Only the last three records are left, one per file
+        ModuleLog log = ModuleLog.read(files.toArray(new Path[0]));
+        assertEquals(3, log.getRecordCount());
+        assertEquals(7.0, log.getValue(0, 0));
+    }
+
+    @Test
+    void filesFromEarlierRunsCountTowardsTheLimit() throws IOException, InterruptedException {
+        Path directory = Files.createTempDirectory("module-logger");
+        ModuleLogger first = createRotatingLogger(directory);
+        first.start();
+        logRecords(first, 0, 10);
+        first.close();
+
+        ModuleLogger second = createRotatingLogger(directory);
+        second.start();
+        logRecords(second, 10, 1);
+        second.close();
+
+        List<Path> files = listFiles(directory);
+        assertEquals(3, files.size());
+        // The new run's files sort after the old run's, and its header-only first file pushed out another old one
+        ModuleLog log = ModuleLog.read(files.toArray(new Path[0]));
+        assertEquals(2, log.getRecordCount());
+        assertEquals(9.0, log.getValue(0, 0));
+        assertEquals(10.0, log.getValue(1, 0));
+    }
+
+    @Test
+    void devicesCannotBeRegisteredAfterStarting() throws IOException {
+        ModuleLogger logger = new ModuleLogger(Files.createTempDirectory("module-logger")).withClock(() -> 0.0);
+        logger.start();
+        assertThrows(IllegalStateException.class, () -> logger.registerDevice("Module"));
+        logger.close();
+    }
+
+    private static ModuleLogger createRotatingLogger(Path directory) {
+        // Each file is started again once a single buffer has been written to it
+        ModuleLogger logger = new ModuleLogger(directory, ModuleLogger.RECORD_SIZE, 2, 1, 3).withClock(() -> 0.0);
+        logger.registerDevice("Module");
+        return logger;
+    }
+
+    private static void logRecords(ModuleLogger logger, int first, int count) throws InterruptedException {
+        for (int i = first; i < first + count; i++) {
+            logger.log(0, RecordType.DRIVE_DISTANCE, i, 0.0, 0.0);
+            // Wait for the buffer to come back, so the next record isn't dropped
+            logger.flushAndWait();
+        }
+    }
+
+    private static List<Path> listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
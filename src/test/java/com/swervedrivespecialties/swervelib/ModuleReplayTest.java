@@ -0,0 +1,157 @@
+package com.swervedrivespecialties.swervelib;
+
+import com.swervedrivespecialties.swervelib.ModuleLogger.RecordType;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModuleReplayTest {
+    @Test
+    void replayOfUnchangedCodeMatches() throws IOException {
+        Path directory = Files.createTempDirectory("module-replay");
+        // Big enough to hold the whole run, so the writer never falls behind and drops records
+        ModuleLogger logger = new ModuleLogger(directory, 1024 * 1024, 2, ModuleLogger.DEFAULT_MAX_FILE_BYTES,
+                ModuleLogger.DEFAULT_MAX_FILES).withClock(() -> 0.0);
+        FakeSteerIO steer = new FakeSteerIO();
+        // Several revolutions out, so targets are unwrapped
+        steer.position = 6.0 * Math.PI + 0.2;
+        SwerveModule module = new SwerveModuleFactory<Integer, Integer>(
+                SdsModuleConfigurations.MK4_L2,
+                (id, canbus, mechConfiguration) -> new IODriveController(new FakeDriveIO()),
+                (id, canbus, mechConfiguration) -> new IOSteerController(steer, () -> 0.3)
+        ).withSensorSnapshots().withLogger(logger).create(0, 0);
+        logger.start();
+
+        // Enough commands for the motor's encoder to be reset from the absolute encoder once
+        for (int i = 0; i < 520; i++) {
+            module.refresh();
+            // Turn far enough each time that some commands reverse the drive
+            if (i % 2 == 0) {
+                module.set(0.1 * i, 1.3 * i);
+            } else {
+                module.setVelocity(0.05 * i, 0.5, -0.7 * i);
+            }
+        }
+        logger.close();
+        assertEquals(0, logger.getDroppedRecords());
+        assertEquals(1, steer.resets);
+
+        ModuleReplay replay = new ModuleReplay(ModuleLog.read(listFiles(directory)));
+        ModuleReplay.Result result = replay.run(new SwerveModuleFactory<>(
+                SdsModuleConfigurations.MK4_L2,
+                replay.getDriveControllerFactory(),
+                replay.getSteerControllerFactory()
+        ).withSensorSnapshots(), 1e-12);
+
+        assertTrue(result.isMatch(), result::toString);
+        assertEquals(520, result.getCommands(0));
+        // A voltage or a velocity and feedforward, a steer position each command, and the encoder reset
+        assertEquals(260 + 2 * 260 + 520 + 1, result.getSetpoints(0));
+    }
+
+    @Test
+    void changedOutputsAreReported() throws IOException {
+        Path directory = Files.createTempDirectory("module-replay");
+        ModuleLogger logger = new ModuleLogger(directory).withClock(() -> 0.0);
+        int device = logger.registerDevice("Module");
+        logger.start();
+        logger.log(device, RecordType.MODULE_SET, 2.0, 0.5, 0.0);
+        logger.log(device, RecordType.STEER_IO_POSITION, 0.0, 0.0, 0.0);
+        logger.log(device, RecordType.DRIVE_IO_SET_VOLTAGE, 2.0, 0.0, 0.0);
+        logger.log(device, RecordType.STEER_IO_POSITION, 0.0, 0.0, 0.0);
+        logger.log(device, RecordType.STEER_IO_VELOCITY, 1.0, 0.0, 0.0);
+        // What an older version of the steer controller might have sent
+        logger.log(device, RecordType.STEER_IO_SET_POSITION, 0.6, 0.0, 0.0);
+        logger.close();
+
+        ModuleReplay replay = new ModuleReplay(ModuleLog.read(listFiles(directory)));
+        ModuleReplay.Result result = replay.run(new SwerveModuleFactory<>(
+                SdsModuleConfigurations.MK4_L2,
+                replay.getDriveControllerFactory(),
+                replay.getSteerControllerFactory()
+        ), 1e-9);
+
+        assertFalse(result.isMatch());
+        assertEquals(5, result.getFirstMismatch());
+        assertEquals(1, result.getMismatches(0));
+        assertEquals(0.1, result.getMaxError(0), 1e-9);
+    }
+
+    private static Path[] listFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toArray(Path[]::new);
+        }
+    }
+
+    private static final class FakeDriveIO implements DriveIO {
+        private double position = 0.0;
+        private double velocity = 0.0;
+
+        @Override
+        public double getPositionMeters() {
+            return position;
+        }
+
+        @Override
+        public double getVelocityMetersPerSecond() {
+            return velocity;
+        }
+
+        @Override
+        public void setVoltage(double volts) {
+            velocity = volts / 4.0;
+            position += velocity * 0.02;
+        }
+
+        @Override
+        public void setVelocity(double metersPerSecond, double feedforwardVolts) {
+            velocity = metersPerSecond;
+            position += velocity * 0.02;
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+
+    private static final class FakeSteerIO implements SteerIO {
+        private double position = 0.0;
+        private int resets = 0;
+
+        @Override
+        public double getPositionRadians() {
+            return position;
+        }
+
+        @Override
+        public double getVelocityRadiansPerSecond() {
+            return 0.0;
+        }
+
+        @Override
+        public void setPosition(double positionRadians) {
+            // Reaches each target by the next command
+            position = positionRadians;
+        }
+
+        @Override
+        public void resetPosition(double positionRadians) {
+            position = positionRadians;
+            resets++;
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.swervedrivespecialties.swervelib;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PackedModuleStatesTest {
+    @Test
+    void decodeReadsWhatEncodeWrote() {
+        int moduleCount = 4;
+        double[] values = new double[1 + moduleCount * PackedModuleStates.MODULE_FIELDS];
+        for (int i = 1; i < values.length; i++) {
+            values[i] = i * 0.5;
+        }
+
+        byte[] data = new byte[PackedModuleStates.getSize(moduleCount)];
+        PackedModuleStates.encode(12.25, values, 1, moduleCount, ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN));
+
+        PackedModuleStates states = new PackedModuleStates(PackedModuleStates.getModuleCount(data));
+        states.decode(data);
+
+        assertEquals(moduleCount, states.getModuleCount());
+        assertEquals(12.25, states.getTimestamp());
+        for (int module = 0; module < moduleCount; module++) {
+            for (int field = 0; field < PackedModuleStates.MODULE_FIELDS; field++) {
+                assertEquals(values[1 + module * PackedModuleStates.MODULE_FIELDS + field], states.get(module, field));
+            }
+        }
+    }
+
+    @Test
+    void decodeRejectsOtherModuleCounts() {
+        byte[] data = new byte[PackedModuleStates.getSize(2)];
+        PackedModuleStates.encode(0.0, new double[2 * PackedModuleStates.MODULE_FIELDS], 0, 2,
+                ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN));
+
+        assertThrows(IllegalArgumentException.class, () -> new PackedModuleStates(4).decode(data));
+    }
+}
@@ -0,0 +1,48 @@
+package com.swervedrivespecialties.swervelib;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatusFrameProfileTest {
+    @Test
+    void slowerPeriodsLowerBusLoad() {
+        StatusFrameProfile defaults = new StatusFrameProfile();
+        StatusFrameProfile trimmed = new StatusFrameProfile()
+                .withDrivePeriods(500, 20, 20)
+                .withSteerPeriods(500, 100, 20)
+                .withSteerEncoderPeriod(250)
+                .withUnusedFramesDisabled();
+
+        for (MotorType motorType : MotorType.values()) {
+            double defaultLoad = defaults.estimateBusLoad(6, motorType, motorType, EncoderType.CANCoder);
+            double trimmedLoad = trimmed.estimateBusLoad(6, motorType, motorType, EncoderType.CANCoder);
+            assertTrue(trimmedLoad < defaultLoad, motorType + " load should drop");
+            assertTrue(trimmedLoad > 0.0 && defaultLoad < 1.0);
+        }
+    }
+
+    @Test
+    void generalPeriodsDefaultToEachMotorControllersOwn() {
+        StatusFrameProfile defaults = new StatusFrameProfile();
+        assertEquals(250, defaults.getDriveGeneralPeriodMS(MotorType.FALCON));
+        assertEquals(100, defaults.getDriveGeneralPeriodMS(MotorType.NEO));
+        assertEquals(100, defaults.getSteerGeneralPeriodMS(MotorType.NEO));
+
+        StatusFrameProfile slowed = new StatusFrameProfile().withSteerPeriods(250, 20, 20);
+        assertEquals(250, slowed.getSteerGeneralPeriodMS(MotorType.NEO));
+        assertEquals(100, slowed.getDriveGeneralPeriodMS(MotorType.NEO));
+    }
+
+    @Test
+    void busLoadScalesWithModuleCount() {
+        StatusFrameProfile profile = new StatusFrameProfile();
+        double single = profile.estimateBusLoad(1, MotorType.NEO, MotorType.NEO, EncoderType.SparkMaxAbsolute);
+        assertEquals(4.0 * single, profile.estimateBusLoad(4, MotorType.NEO, MotorType.NEO,
+                EncoderType.SparkMaxAbsolute), 1e-9);
+        // Each module's frames take 140 bits on a 1 Mbit/s bus
+        assertEquals(profile.estimateModuleFramesPerSecond(MotorType.NEO, MotorType.NEO,
+                EncoderType.SparkMaxAbsolute) * 140.0 / 1e6, single, 1e-9);
+    }
+}
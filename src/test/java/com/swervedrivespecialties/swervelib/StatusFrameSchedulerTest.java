@@ -0,0 +1,71 @@
+package com.swervedrivespecialties.swervelib;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StatusFrameSchedulerTest {
+    private static final int DEVICE_COUNT = 5;
+
+    @Test
+    void devicesAreRetunedAFewPerCycle() {
+        List<String> updates = new ArrayList<>();
+        StatusFrameScheduler scheduler = createScheduler(updates);
+        StatusFrameProfile slow = new StatusFrameProfile().withDrivePeriods(500, 50, 50);
+        scheduler.setProfile(slow);
+
+        scheduler.periodic();
+        assertSame(slow, scheduler.getActiveProfile());
+        assertEquals(2, updates.size());
+        assertTrue(scheduler.isTransitioning());
+
+        scheduler.periodic();
+        scheduler.periodic();
+        assertEquals(DEVICE_COUNT, updates.size());
+        assertFalse(scheduler.isTransitioning());
+
+        // An equal profile doesn't start another transition
+        scheduler.setProfile(new StatusFrameProfile().withDrivePeriods(500, 50, 50));
+        scheduler.periodic();
+        assertEquals(DEVICE_COUNT, updates.size());
+    }
+
+    @Test
+    void aNewProfileReplacesThePendingDevices() {
+        List<String> updates = new ArrayList<>();
+        StatusFrameScheduler scheduler = createScheduler(updates).withDevicesPerCycle(3);
+        StatusFrameProfile slow = new StatusFrameProfile().withDrivePeriods(500, 50, 50);
+        StatusFrameProfile trimmed = new StatusFrameProfile().withUnusedFramesDisabled();
+
+        scheduler.setProfile(slow);
+        scheduler.periodic();
+        scheduler.setProfile(trimmed);
+        scheduler.periodic();
+        scheduler.periodic();
+
+        assertFalse(scheduler.isTransitioning());
+        assertEquals(List.of("500-0", "500-1", "500-2",
+                "100-0", "100-1", "100-2", "100-3", "100-4"), updates);
+    }
+
+    /**
+     * Creates a scheduler for a module whose devices record the drive general period they're retuned to and their
+     * index, instead of retuning a device.
+     */
+    private static StatusFrameScheduler createScheduler(List<String> updates) {
+        FakeSwerveModule module = new FakeSwerveModule();
+        List<StatusFrameTarget> targets = new ArrayList<>();
+        for (int i = 0; i < DEVICE_COUNT; i++) {
+            int device = i;
+            targets.add(profile -> updates.add(profile.getDriveGeneralPeriodMS(MotorType.NEO) + "-" + device));
+        }
+        module.statusFrameTargets = targets;
+        return new StatusFrameScheduler(new MkModuleConfiguration(), module);
+    }
+}
@@ -0,0 +1,107 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SwerveDriveExecutorTest {
+    @Test
+    void newestRequestIsRunAndPublished() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        for (FakeSwerveModule module : modules) {
+            module.driveDistance = 1.5;
+        }
+        double[] time = {10.0};
+        SwerveDriveExecutor executor = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0)
+                .createExecutor(200.0)
+                .withClock(() -> time[0]);
+        SwerveDriveExecutor.State state = executor.createState();
+        assertFalse(executor.read(state));
+
+        executor.markRunning();
+        executor.setChassisSpeeds(new ChassisSpeeds(1.0, 0.0, 0.0));
+        executor.setChassisSpeeds(new ChassisSpeeds(2.0, 0.0, 0.0));
+        executor.run();
+
+        for (FakeSwerveModule module : modules) {
+            assertEquals(6.0, module.voltage, 1e-9);
+        }
+        assertTrue(executor.read(state));
+        assertEquals(1, state.getCycles());
+        assertEquals(10.0, state.getTimestamp());
+        assertEquals(1.5, state.getDistances()[0], 1e-9);
+
+        // With no new request the last one keeps running
+        time[0] += 0.005;
+        executor.run();
+        for (FakeSwerveModule module : modules) {
+            assertEquals(6.0, module.voltage, 1e-9);
+        }
+        assertTrue(executor.read(state));
+        assertEquals(2, state.getCycles());
+        assertEquals(10.005, state.getTimestamp());
+        executor.close();
+    }
+
+    @Test
+    void drivetrainStopsOnceTheCommandTimesOut() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        double[] time = {0.0};
+        SwerveDriveExecutor executor = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0)
+                .createExecutor(200.0)
+                .withCommandTimeout(0.1)
+                .withClock(() -> time[0]);
+
+        executor.markRunning();
+        executor.setChassisSpeeds(new ChassisSpeeds(2.0, 0.0, 0.0));
+        executor.run();
+        time[0] = 0.1;
+        executor.run();
+        assertEquals(6.0, modules[0].voltage, 1e-9);
+
+        time[0] = 0.15;
+        executor.run();
+        for (FakeSwerveModule module : modules) {
+            assertEquals(0.0, module.voltage, 1e-9);
+        }
+        executor.close();
+    }
+
+    @Test
+    void stoppingStopsTheDriveMotorsAndTheLoop() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        SwerveDriveExecutor executor = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0)
+                .createExecutor(200.0)
+                .withClock(() -> 0.0);
+
+        executor.markRunning();
+        executor.setChassisSpeeds(new ChassisSpeeds(2.0, 0.0, 0.0));
+        executor.run();
+        executor.stop();
+        for (FakeSwerveModule module : modules) {
+            assertEquals(0.0, module.voltage, 1e-9);
+        }
+
+        // A callback that was already queued must not move the modules again
+        executor.setChassisSpeeds(new ChassisSpeeds(2.0, 0.0, 0.0));
+        executor.run();
+        for (FakeSwerveModule module : modules) {
+            assertEquals(0.0, module.voltage, 1e-9);
+        }
+        executor.close();
+    }
+
+    @Test
+    void cannotBeConfiguredWhileRunning() {
+        SwerveDriveExecutor executor = new SwerveDrive(FakeSwerveModule.LOCATIONS, FakeSwerveModule.create(), 4.0,
+                12.0).createExecutor(200.0).withClock(() -> 0.0);
+        executor.markRunning();
+        assertThrows(IllegalStateException.class, () -> executor.withRealTimePriority(10));
+        executor.close();
+        assertThrows(IllegalArgumentException.class, () -> executor.withRealTimePriority(100));
+    }
+}
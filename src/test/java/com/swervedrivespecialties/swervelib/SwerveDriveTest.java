@@ -0,0 +1,136 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SwerveDriveTest {
+    @Test
+    void readAllRefreshesEveryModuleBeforeReadingThem() {
+        List<String> events = new ArrayList<>();
+        FakeSwerveModule[] modules = FakeSwerveModule.create(events);
+        SwerveDrive drive = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0);
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].driveVelocity = i;
+            modules[i].driveDistance = 10.0 + i;
+            modules[i].steerAngle = 0.1 * i;
+        }
+        events.clear();
+
+        drive.readAll();
+
+        assertEquals(modules.length, events.size());
+        for (int i = 0; i < modules.length; i++) {
+            assertEquals(i, drive.getDriveVelocities()[i], 1e-9);
+            assertEquals(10.0 + i, drive.getDriveDistances()[i], 1e-9);
+            assertEquals(0.1 * i, drive.getSteerAngles()[i], 1e-9);
+            assertEquals(10.0 + i, drive.getModulePositions()[i].distanceMeters, 1e-9);
+            assertEquals(0.1 * i, drive.getModuleStates()[i].angle.getRadians(), 1e-9);
+        }
+    }
+
+    @Test
+    void driveScalesSpeedsToVoltages() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        SwerveDrive drive = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0);
+
+        drive.drive(new ChassisSpeeds(2.0, 0.0, 0.0));
+
+        for (FakeSwerveModule module : modules) {
+            assertEquals(6.0, module.voltage, 1e-9);
+            assertEquals(0.0, module.angle, 1e-9);
+        }
+    }
+
+    @Test
+    void driveAndDriveCycleComputeTheSameSetpoints() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        for (FakeSwerveModule module : modules) {
+            module.steerAngle = Math.PI;
+        }
+        SwerveDrive drive = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0);
+        ChassisSpeeds speeds = new ChassisSpeeds(2.0, 1.0, 0.5);
+
+        drive.driveVelocity(speeds);
+        double[] velocities = new double[modules.length];
+        double[] voltages = new double[modules.length];
+        double[] angles = new double[modules.length];
+        for (int i = 0; i < modules.length; i++) {
+            velocities[i] = modules[i].velocity;
+            voltages[i] = modules[i].voltage;
+            angles[i] = modules[i].angle;
+            // Reversed against the angle read, rather than turned more than 90 degrees
+            assertTrue(velocities[i] < 0.0);
+        }
+
+        drive.createDriveCycle().runVelocity(speeds);
+        for (int i = 0; i < modules.length; i++) {
+            assertEquals(velocities[i], modules[i].velocity, 1e-9);
+            assertEquals(voltages[i], modules[i].voltage, 1e-9);
+            assertEquals(angles[i], modules[i].angle, 1e-9);
+        }
+    }
+
+    @Test
+    void driveDesaturatesToTheMaxVelocity() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        SwerveDrive drive = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0);
+
+        drive.drive(new ChassisSpeeds(8.0, 0.0, 0.0));
+
+        for (FakeSwerveModule module : modules) {
+            assertEquals(12.0, module.voltage, 1e-9);
+        }
+    }
+
+    @Test
+    void driveVelocitySendsDesaturatedSpeedsWithProportionalFeedforward() {
+        FakeSwerveModule[] modules = FakeSwerveModule.create();
+        SwerveDrive drive = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0);
+
+        drive.driveVelocity(new ChassisSpeeds(8.0, 0.0, 0.0));
+
+        for (FakeSwerveModule module : modules) {
+            assertEquals(4.0, module.velocity, 1e-9);
+            assertEquals(12.0, module.voltage, 1e-9);
+            assertEquals(0.0, module.angle, 1e-9);
+        }
+    }
+
+    @Test
+    void stopHoldsTheLastReadSteerAnglesWithoutReadingAgain() {
+        List<String> events = new ArrayList<>();
+        FakeSwerveModule[] modules = FakeSwerveModule.create(events);
+        SwerveDrive drive = new SwerveDrive(FakeSwerveModule.LOCATIONS, modules, 4.0, 12.0);
+        for (int i = 0; i < modules.length; i++) {
+            modules[i].steerAngle = 0.5 * i;
+        }
+        drive.readAll();
+        for (FakeSwerveModule module : modules) {
+            module.steerAngle = 3.0;
+        }
+        events.clear();
+
+        drive.stop();
+
+        assertFalse(events.contains("read"));
+        for (int i = 0; i < modules.length; i++) {
+            assertEquals(0.0, modules[i].voltage, 1e-9);
+            assertEquals(0.5 * i, modules[i].angle, 1e-9);
+        }
+    }
+
+    @Test
+    void moduleLocationsMustMatchModules() {
+        assertThrows(IllegalArgumentException.class, () -> new SwerveDrive(
+                new Translation2d[]{new Translation2d(0.3, 0.3)}, FakeSwerveModule.create(), 4.0, 12.0));
+    }
+}
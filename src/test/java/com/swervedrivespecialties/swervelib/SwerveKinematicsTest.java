@@ -0,0 +1,75 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SwerveKinematicsTest {
+    private static final SwerveKinematics KINEMATICS = new SwerveKinematics(
+            new Translation2d(0.3, 0.3),
+            new Translation2d(0.3, -0.3),
+            new Translation2d(-0.3, 0.3),
+            new Translation2d(-0.3, -0.3)
+    );
+
+    @Test
+    void rotationPointsModulesTangentially() {
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        KINEMATICS.toModuleStates(0.0, 0.0, 1.0, speeds, angles);
+
+        for (double speed : speeds) {
+            assertEquals(0.3 * Math.sqrt(2.0), speed, 1e-9);
+        }
+        assertEquals(Math.toRadians(135.0), angles[0], 1e-9);
+        assertEquals(Math.toRadians(45.0), angles[1], 1e-9);
+        assertEquals(Math.toRadians(225.0), angles[2], 1e-9);
+        assertEquals(Math.toRadians(315.0), angles[3], 1e-9);
+    }
+
+    @Test
+    void stoppingKeepsAngles() {
+        double[] speeds = {1.0, 1.0, 1.0, 1.0};
+        double[] angles = {0.1, 0.2, 0.3, 0.4};
+        KINEMATICS.toModuleStates(0.0, 0.0, 0.0, speeds, angles);
+
+        assertEquals(0.0, speeds[2]);
+        assertEquals(0.3, angles[2]);
+    }
+
+    @Test
+    void forwardKinematicsInvertsInverseKinematics() {
+        double[] speeds = new double[4];
+        double[] angles = new double[4];
+        double[] chassisSpeeds = new double[3];
+        KINEMATICS.toModuleStates(1.5, -0.75, 2.0, speeds, angles);
+        KINEMATICS.toChassisSpeeds(speeds, angles, chassisSpeeds);
+
+        assertEquals(1.5, chassisSpeeds[0], 1e-9);
+        assertEquals(-0.75, chassisSpeeds[1], 1e-9);
+        assertEquals(2.0, chassisSpeeds[2], 1e-9);
+    }
+
+    @Test
+    void desaturateScalesAllSpeeds() {
+        double[] speeds = {2.0, -6.0, 3.0};
+        SwerveKinematics.desaturate(speeds, 3.0);
+
+        assertEquals(1.0, speeds[0], 1e-9);
+        assertEquals(-3.0, speeds[1], 1e-9);
+        assertEquals(1.5, speeds[2], 1e-9);
+    }
+
+    @Test
+    void optimizeReversesLargeTurns() {
+        double[] speeds = {1.0, 1.0};
+        double[] angles = {Math.toRadians(170.0), Math.toRadians(350.0)};
+        SwerveKinematics.optimize(speeds, angles, new double[]{Math.toRadians(10.0), Math.toRadians(10.0)});
+
+        assertEquals(-1.0, speeds[0], 1e-9);
+        assertEquals(Math.toRadians(350.0), angles[0], 1e-9);
+        assertEquals(1.0, speeds[1], 1e-9);
+        assertEquals(Math.toRadians(350.0), angles[1], 1e-9);
+    }
+}
@@ -0,0 +1,126 @@
+package com.swervedrivespecialties.swervelib;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SwerveModuleFactoryTest {
+    @Test
+    void setKeepsSmallAngleChanges() {
+        FakeModule fake = new FakeModule(Math.toRadians(10.0));
+        fake.module.set(6.0, Math.toRadians(40.0));
+
+        assertEquals(6.0, fake.drive.voltage, 1e-9);
+        assertEquals(Math.toRadians(40.0), fake.steer.reference, 1e-9);
+    }
+
+    @Test
+    void setFlipsDriveForLargeAngleChanges() {
+        FakeModule fake = new FakeModule(Math.toRadians(10.0));
+        fake.module.set(6.0, Math.toRadians(170.0));
+
+        assertEquals(-6.0, fake.drive.voltage, 1e-9);
+        assertEquals(Math.toRadians(350.0), fake.steer.reference, 1e-9);
+    }
+
+    @Test
+    void setWrapsAcrossZero() {
+        FakeModule fake = new FakeModule(Math.toRadians(350.0));
+        fake.module.set(6.0, Math.toRadians(-380.0));
+
+        assertEquals(6.0, fake.drive.voltage, 1e-9);
+        assertEquals(Math.toRadians(340.0), fake.steer.reference, 1e-9);
+    }
+
+    @Test
+    void setReadsSteerAngleOnce() {
+        FakeModule fake = new FakeModule(0.0);
+        fake.module.set(1.0, Math.toRadians(135.0));
+
+        assertEquals(1, fake.steer.reads);
+    }
+
+    @Test
+    void createAsyncConfiguresControllersOnExecutorAndCollectsErrors() {
+        FakeDriveController drive = new FakeDriveController();
+        FakeSteerController steer = new FakeSteerController();
+        steer.angle = 1.0;
+        Thread caller = Thread.currentThread();
+        Thread[] steerThread = new Thread[1];
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        DeviceConfigurationReport report = new DeviceConfigurationReport();
+        try {
+            SwerveModule module = new SwerveModuleFactory<Integer, Integer>(
+                    SdsModuleConfigurations.MK4_L2,
+                    (id, canbus, mechConfiguration) -> drive,
+                    (id, canbus, mechConfiguration) -> {
+                        steerThread[0] = Thread.currentThread();
+                        DeviceConfigurationReport.reportError("Failed to configure steer");
+                        return steer;
+                    }
+            ).createAsync(executor, report, "Drive", "Steer", null, 1, "", 2, "").join();
+
+            assertEquals(1.0, module.getSteerAngle(), 1e-9);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertNotEquals(caller, steerThread[0]);
+        assertEquals(2, report.getEntries().size());
+        assertTrue(report.hasErrors());
+        for (DeviceConfigurationReport.Entry entry : report.getEntries()) {
+            if (entry.getName().equals("Steer")) {
+                assertEquals(1, entry.getErrors().size());
+            } else {
+                assertEquals(0, entry.getErrors().size());
+            }
+        }
+    }
+
+    @Test
+    void instrumentationTimesControllerCallsBeneathSnapshots() {
+        FakeDriveController drive = new FakeDriveController();
+        FakeSteerController steer = new FakeSteerController();
+        SwerveModule module = new SwerveModuleFactory<Integer, Integer>(
+                SdsModuleConfigurations.MK4_L2,
+                (id, canbus, mechConfiguration) -> drive,
+                (id, canbus, mechConfiguration) -> steer
+        ).withSensorSnapshots().withInstrumentation().withClock(() -> 12.5).create(0, 0);
+
+        module.refresh();
+        assertEquals(12.5, module.getTimestamp());
+        module.set(1.0, 0.0);
+        module.getSteerAngle();
+
+        LatencyDiagnostics driveDiagnostics = module.getDriveDiagnostics();
+        LatencyDiagnostics steerDiagnostics = module.getSteerDiagnostics();
+        assertEquals(1, driveDiagnostics.getHistogram(LatencyDiagnostics.CallSite.SET_REFERENCE_VOLTAGE).getCount());
+        // Once when the snapshot controller is created and once per refresh, never for the latched reads
+        assertEquals(2, steerDiagnostics.getHistogram(LatencyDiagnostics.CallSite.GET_STATE_ANGLE).getCount());
+        assertEquals(2, steer.reads);
+        assertEquals(1, steerDiagnostics.getHistogram(LatencyDiagnostics.CallSite.SET_REFERENCE_ANGLE).getCount());
+        assertEquals(2, steerDiagnostics.getHistogram(LatencyDiagnostics.CallSite.REFRESH).getCount());
+        assertEquals("Steer 0", steerDiagnostics.getName());
+    }
+
+    private static class FakeModule {
+        private final FakeDriveController drive = new FakeDriveController();
+        private final FakeSteerController steer = new FakeSteerController();
+        private final SwerveModule module;
+
+        private FakeModule(double steerAngle) {
+            steer.angle = steerAngle;
+            module = new SwerveModuleFactory<Integer, Integer>(
+                    SdsModuleConfigurations.MK4_L2,
+                    (id, canbus, mechConfiguration) -> drive,
+                    (id, canbus, mechConfiguration) -> steer
+            ).create(0, 0);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SwerveModuleTest {
+    @Test
+    void getPositionFillsExistingObject() {
+        FixedModule module = new FixedModule(1.5, 2.0, 0.25);
+        SwerveModulePosition position = new SwerveModulePosition();
+
+        assertSame(position, module.getPosition(position));
+        assertEquals(2.0, position.distanceMeters, 1e-9);
+        assertEquals(0.25, position.angle.getRadians(), 1e-9);
+    }
+
+    @Test
+    void getStateReusesUnchangedRotation() {
+        FixedModule module = new FixedModule(1.5, 2.0, 0.25);
+        SwerveModuleState state = new SwerveModuleState(0.0, Rotation2d.fromRadians(0.25));
+        Rotation2d angle = state.angle;
+
+        module.getState(state);
+
+        assertEquals(1.5, state.speedMetersPerSecond, 1e-9);
+        assertSame(angle, state.angle);
+    }
+
+    @Test
+    void getPositionsFillsPrimitiveArrays() {
+        SwerveModule[] modules = {new FixedModule(0.0, 1.0, 0.1), new FixedModule(0.0, 2.0, 0.2)};
+        double[] distances = new double[2];
+        double[] angles = new double[2];
+
+        SwerveModule.getPositions(modules, distances, angles);
+
+        assertArrayEquals(new double[]{1.0, 2.0}, distances, 1e-9);
+        assertArrayEquals(new double[]{0.1, 0.2}, angles, 1e-9);
+    }
+
+    private static class FixedModule implements SwerveModule {
+        private final double velocity;
+        private final double distance;
+        private final double angle;
+
+        private FixedModule(double velocity, double distance, double angle) {
+            this.velocity = velocity;
+            this.distance = distance;
+            this.angle = angle;
+        }
+
+        @Override
+        public MotorController getDriveMotor() {
+            return null;
+        }
+
+        @Override
+        public MotorController getSteerMotor() {
+            return null;
+        }
+
+        @Override
+        public AbsoluteEncoder getSteerEncoder() {
+            return () -> angle;
+        }
+
+        @Override
+        public double getDriveVelocity() {
+            return velocity;
+        }
+
+        @Override
+        public double getDriveDistance() {
+            return distance;
+        }
+
+        @Override
+        public double getSteerAngle() {
+            return angle;
+        }
+
+        @Override
+        public void set(double driveVoltage, double steerAngle) {
+        }
+    }
+}
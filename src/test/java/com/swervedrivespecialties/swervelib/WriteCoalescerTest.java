@@ -0,0 +1,105 @@
+package com.swervedrivespecialties.swervelib;
+
+import edu.wpi.first.wpilibj.motorcontrol.MotorController;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WriteCoalescerTest {
+    @Test
+    void repeatedSetpointsWithinEpsilonAreSuppressed() {
+        WriteCoalescer coalescer = new WriteCoalescer(0.01, 1000.0);
+
+        assertTrue(coalescer.shouldWrite(0, 1.0, 0.0));
+        assertFalse(coalescer.shouldWrite(0, 1.005, 0.0));
+        assertTrue(coalescer.shouldWrite(0, 1.02, 0.0));
+        // A different kind of setpoint always goes out
+        assertTrue(coalescer.shouldWrite(1, 1.02, 0.0));
+
+        assertEquals(3, coalescer.getWrites());
+        assertEquals(1, coalescer.getSuppressedWrites());
+    }
+
+    @Test
+    void keepAlivePeriodResendsUnchangedSetpoints() throws InterruptedException {
+        WriteCoalescer coalescer = new WriteCoalescer(0.01, 0.001);
+
+        assertTrue(coalescer.shouldWrite(0, 1.0, 0.0));
+        Thread.sleep(5);
+        assertTrue(coalescer.shouldWrite(0, 1.0, 0.0));
+    }
+
+    @Test
+    void driveControllerOnlySendsChangedSetpoints() {
+        FakeDriveIO io = new FakeDriveIO();
+        IODriveController controller = new IODriveController(io, new WriteCoalescer(0.01, 1000.0));
+
+        for (int i = 0; i < 10; i++) {
+            controller.setReferenceVoltage(0.0);
+        }
+        controller.setReferenceVoltage(3.0);
+        controller.setReferenceVelocity(1.0, 3.0);
+        controller.setReferenceVelocity(1.0, 3.0);
+
+        assertEquals(3, io.writes);
+        assertEquals(10, controller.getWriteCoalescer().getSuppressedWrites());
+    }
+
+    @Test
+    void voltageIsResentWhenTheBatterySags() {
+        FakeDriveIO io = new FakeDriveIO();
+        io.batteryVoltage = 12.5;
+        IODriveController controller = new IODriveController(io, new WriteCoalescer(0.05, 1000.0));
+
+        controller.setReferenceVoltage(6.0);
+        controller.setReferenceVoltage(6.0);
+        io.batteryVoltage = 12.48;
+        controller.setReferenceVoltage(6.0);
+        assertEquals(1, io.writes);
+
+        // The duty cycle the motor controller has would now give less than 6 V
+        io.batteryVoltage = 11.0;
+        controller.setReferenceVoltage(6.0);
+        assertEquals(2, io.writes);
+        assertEquals(6.0 / 11.0, io.dutyCycle, 1e-9);
+    }
+
+    private static class FakeDriveIO implements DriveIO {
+        private int writes = 0;
+        private double batteryVoltage = Double.NaN;
+        private double dutyCycle = Double.NaN;
+
+        @Override
+        public double getPositionMeters() {
+            return 0.0;
+        }
+
+        @Override
+        public double getVelocityMetersPerSecond() {
+            return 0.0;
+        }
+
+        @Override
+        public void setVoltage(double volts) {
+            writes++;
+            dutyCycle = volts / batteryVoltage;
+        }
+
+        @Override
+        public double getSupplyVoltage() {
+            return batteryVoltage;
+        }
+
+        @Override
+        public void setVelocity(double metersPerSecond, double feedforwardVolts) {
+            writes++;
+        }
+
+        @Override
+        public MotorController getMotor() {
+            return null;
+        }
+    }
+}
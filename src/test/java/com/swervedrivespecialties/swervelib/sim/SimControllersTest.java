@@ -0,0 +1,85 @@
+package com.swervedrivespecialties.swervelib.sim;
+
+import com.swervedrivespecialties.swervelib.SdsModuleConfigurations;
+import com.swervedrivespecialties.swervelib.SwerveModule;
+import com.swervedrivespecialties.swervelib.SwerveModuleFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimControllersTest {
+    private double time = 0.0;
+
+    private SwerveModule createModule() {
+        return new SwerveModuleFactory<>(
+                SdsModuleConfigurations.MK4_L2,
+                new SimDriveControllerFactoryBuilder().withClock(() -> time).build(),
+                new SimSteerControllerFactoryBuilder().withClock(() -> time).build()
+        ).create(1, null);
+    }
+
+    @Test
+    void driveAcceleratesTowardsFreeSpeed() {
+        SwerveModule module = createModule();
+        module.set(12.0, 0.0);
+
+        time = 2.0;
+
+        // A Falcon 500 on an MK4 L2 has a free speed of about 4.97 m/s
+        double velocity = module.getDriveVelocity();
+        assertTrue(velocity > 4.0, "velocity " + velocity);
+        assertTrue(velocity < 5.0, "velocity " + velocity);
+        assertTrue(module.getDriveDistance() > 0.0);
+    }
+
+    @Test
+    void driveVelocityLoopTracksTarget() {
+        SwerveModule module = new SwerveModuleFactory<>(
+                SdsModuleConfigurations.MK4_L2,
+                new SimDriveControllerFactoryBuilder().withPidConstants(2.0, 0.0, 0.0).withClock(() -> time).build(),
+                new SimSteerControllerFactoryBuilder().withClock(() -> time).build()
+        ).create(1, null);
+
+        // Steering to 180 degrees is done by driving backwards at 0 degrees
+        module.setVelocity(3.0, 3.0 * 12.0 / 4.97, Math.PI);
+
+        time = 2.0;
+
+        assertEquals(-3.0, module.getDriveVelocity(), 0.05);
+        assertEquals(0.0, module.getSteerAngle(), Math.toRadians(1.0));
+    }
+
+    @Test
+    void steerSettlesOnTarget() {
+        SwerveModule module = createModule();
+        module.set(0.0, Math.toRadians(60.0));
+
+        time = 1.0;
+
+        assertEquals(Math.toRadians(60.0), module.getSteerAngle(), Math.toRadians(1.0));
+        assertEquals(module.getSteerAngle(), module.getSteerEncoder().getAbsoluteAngle(), 1e-9);
+    }
+
+    @Test
+    void steerTakesShortestPathAcrossZero() {
+        SwerveModule module = createModule();
+        module.set(0.0, Math.toRadians(-30.0));
+
+        time = 1.0;
+
+        assertEquals(Math.toRadians(330.0), module.getSteerAngle(), Math.toRadians(1.0));
+    }
+
+    @Test
+    void simulationIsDeterministic() {
+        SwerveModule first = createModule();
+        SwerveModule second = createModule();
+        first.set(6.0, 1.0);
+        second.set(6.0, 1.0);
+
+        time = 0.5;
+
+        assertEquals(first.getDriveDistance(), second.getDriveDistance(), 0.0);
+        assertEquals(first.getSteerAngle(), second.getSteerAngle(), 0.0);
+    }
+}